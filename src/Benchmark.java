@@ -0,0 +1,189 @@
+import db.CommitStats;
+import db.Compression;
+import db.Condition;
+import db.Database;
+import db.Options;
+import db.ResultTable;
+import db.Type;
+import java.io.File;
+import java.util.Random;
+
+public class Benchmark {
+
+	private static final String DATA_DIR = "bin/bench/";
+	private static final String[] COLUMNS = {"id", "name", "city", "status",
+		"notes"};
+	private static final String[] CITIES = {"London", "Leeds", "York",
+		"Bristol", "Glasgow", "Cardiff", "Belfast", "Norwich"};
+	private static final String[] STATUSES = {"active", "inactive",
+		"pending"};
+
+	/**
+	 * Builds rows of string-heavy test data, similar to a typical table.
+	 */
+	private static String[][] rows (int noRows) {
+
+		Random random = new Random(42);
+		String[][] rows = new String[noRows][];
+
+		for (int i = 0; i < noRows; i++) {
+			rows[i] = new String[] {
+				"id" + i,
+				"customer" + random.nextInt(noRows / 10 + 1),
+				CITIES[random.nextInt(CITIES.length)],
+				STATUSES[random.nextInt(STATUSES.length)],
+				"Order placed on day " + random.nextInt(365) +
+					" and shipped by courier."
+			};
+		}
+
+		return rows;
+
+	}
+
+	/**
+	 * Removes any files left in the benchmark directory.
+	 */
+	private static void clean () {
+
+		File dir = new File(DATA_DIR);
+		dir.mkdirs();
+
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+
+	}
+
+	/**
+	 * Writes and reads back a table with each kind of compression, and
+	 * reports the size of the file and the time taken.
+	 */
+	private static void compression (String[][] rows) throws Exception {
+
+		System.out.println("Table files, " + rows.length + " rows:\n");
+		System.out.printf("%-10s %12s %10s %10s%n", "Codec", "Bytes",
+			"Write ms", "Read ms");
+
+		for (Compression compression : Compression.values()) {
+
+			clean();
+
+			Options options = new Options();
+			options.compression = compression;
+
+			Database db = new Database(DATA_DIR, options);
+			db.createTable("bench", COLUMNS);
+			db.query.insert("bench", rows);
+
+			long start = System.nanoTime();
+			CommitStats stats = db.commit();
+			long write = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			Database reopened = new Database(DATA_DIR, options);
+			ResultTable result = reopened.query.select("bench", COLUMNS);
+			long read = System.nanoTime() - start;
+
+			System.out.printf("%-10s %12d %10d %10d%n", compression,
+				stats.bytes, write / 1000000, read / 1000000);
+
+		}
+
+		clean();
+		System.out.println();
+
+	}
+
+	/**
+	 * Selects rows from an in-memory table with a few conditions, one row at
+	 * a time and in batches, and reports the rows scanned per second.
+	 */
+	private static void scans (int noRows, boolean print) throws Exception {
+
+		clean();
+
+		Database db = new Database(DATA_DIR);
+		db.createTable("scan", new String[] {"id", "city", "amount",
+			"price"}, new Type[] {Type.INT, Type.STRING, Type.INT,
+			Type.DOUBLE});
+
+		Random random = new Random(42);
+
+		for (int i = 0; i < noRows; i++) {
+			db.query.insert("scan", new String[] {"" + i,
+				CITIES[random.nextInt(CITIES.length)],
+				"" + random.nextInt(1000), "" + random.nextInt(10000) / 100.0});
+		}
+
+		db.query.encode("scan", "city");
+
+		String[] cols = {"id", "amount"};
+		String[] names = {"amount range", "city equal", "price and city"};
+		Condition[] conditions = {
+			Condition.between("amount", "100", "199"),
+			Condition.equal("city", "York"),
+			Condition.and(Condition.between("price", "10", "20"),
+				Condition.equal("city", "Leeds"))
+		};
+
+		if (print) {
+			System.out.println("Scans, " + noRows + " rows:\n");
+			System.out.printf("%-16s %10s %14s %14s%n", "Condition", "Rows",
+				"Row Mrows/s", "Batch Mrows/s");
+		}
+
+		for (int i = 0; i < conditions.length; i++) {
+
+			long row = Long.MAX_VALUE;
+			long batch = Long.MAX_VALUE;
+			long returned = 0;
+
+			// Takes the best of several runs, as single runs are noisy.
+			for (int run = 0; run < 5; run++) {
+
+				long start = System.nanoTime();
+				returned = db.query.select("scan", cols, conditions[i])
+					.stats().returned;
+				row = Math.min(row, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				db.query.selectBatched("scan", cols, conditions[i]);
+				batch = Math.min(batch, System.nanoTime() - start);
+
+			}
+
+			if (print) {
+				System.out.printf("%-16s %10d %14.1f %14.1f%n", names[i],
+					returned, noRows * 1000.0 / row, noRows * 1000.0 / batch);
+			}
+
+		}
+
+		clean();
+
+		if (print) {
+			System.out.println();
+		}
+
+	}
+
+	public static void main(String[] args) {
+
+		int noRows = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		int scanRows = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		String[][] rows = rows(noRows);
+
+		try {
+			// Runs everything once first, so that timings are taken warm.
+			compression(rows(noRows / 10));
+			compression(rows);
+			scans(scanRows / 10, false);
+			scans(scanRows, true);
+		} catch (Exception e) {
+			System.out.println("Benchmark failed: " + e.getMessage());
+		}
+
+	}
+
+}
@@ -0,0 +1,148 @@
+package db;
+
+/**
+ * A function computed over the rows of each group of an aggregation, e.g.
+ * SUM(amount). Null values are left out of every function but COUNT(*).
+ * SUM and AVG apply only to INT, LONG and DOUBLE columns, while MIN and MAX
+ * compare values by what they stand for in the column's type. The name of
+ * an aggregate, as given by {@link #toString()}, names its column in the
+ * result.
+ *
+ * @since 0.9
+ */
+
+public class Aggregate {
+
+	// ----- Class Constants ----- //
+
+	static final int COUNT = 0;
+	static final int COUNT_DISTINCT = 1;
+	static final int SUM = 2;
+	static final int MIN = 3;
+	static final int MAX = 4;
+	static final int AVG = 5;
+
+	private static final String[] NAMES = {"COUNT", "COUNT", "SUM", "MIN",
+		"MAX", "AVG"};
+
+	// ----- Instance Variables ----- //
+
+	private int function;
+	private String column;
+
+	// ----- Class Methods ----- //
+
+	/**
+	 * Counts the rows of each group, i.e. COUNT(*).
+	 *
+	 * @return the aggregate.
+	 * @since 0.9
+	 */
+	public static Aggregate count () {
+		return new Aggregate(COUNT, null);
+	}
+
+	/**
+	 * Counts the rows of each group that are not null in a column.
+	 *
+	 * @param column the name of the column.
+	 * @return the aggregate.
+	 * @since 0.9
+	 */
+	public static Aggregate count (String column) {
+		return new Aggregate(COUNT, column);
+	}
+
+	/**
+	 * Counts the distinct values of a column in each group.
+	 *
+	 * @param column the name of the column.
+	 * @return the aggregate.
+	 * @since 0.9
+	 */
+	public static Aggregate countDistinct (String column) {
+		return new Aggregate(COUNT_DISTINCT, column);
+	}
+
+	/**
+	 * Adds up the values of a numeric column in each group. INT and LONG
+	 * columns are summed as a LONG, and DOUBLE columns as a DOUBLE.
+	 *
+	 * @param column the name of the column.
+	 * @return the aggregate.
+	 * @since 0.9
+	 */
+	public static Aggregate sum (String column) {
+		return new Aggregate(SUM, column);
+	}
+
+	/**
+	 * Finds the lowest value of a column in each group.
+	 *
+	 * @param column the name of the column.
+	 * @return the aggregate.
+	 * @since 0.9
+	 */
+	public static Aggregate min (String column) {
+		return new Aggregate(MIN, column);
+	}
+
+	/**
+	 * Finds the highest value of a column in each group.
+	 *
+	 * @param column the name of the column.
+	 * @return the aggregate.
+	 * @since 0.9
+	 */
+	public static Aggregate max (String column) {
+		return new Aggregate(MAX, column);
+	}
+
+	/**
+	 * Finds the mean of the values of a numeric column in each group, as a
+	 * DOUBLE.
+	 *
+	 * @param column the name of the column.
+	 * @return the aggregate.
+	 * @since 0.9
+	 */
+	public static Aggregate avg (String column) {
+		return new Aggregate(AVG, column);
+	}
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Gets the function computed, as one of the constants of this class.
+	 *
+	 * @return the function.
+	 * @since 0.9
+	 */
+	int function () {
+		return function;
+	}
+
+	/**
+	 * Gets the name of the column the function is computed over.
+	 *
+	 * @return the column name, or null for COUNT(*).
+	 * @since 0.9
+	 */
+	String column () {
+		return column;
+	}
+
+	@Override
+	public String toString () {
+		return NAMES[function] + "(" + (function == COUNT_DISTINCT ?
+			"DISTINCT " : "") + (column == null ? "*" : column) + ")";
+	}
+
+	// ----- Constructor ----- //
+
+	private Aggregate (int function, String column) {
+		this.function = function;
+		this.column = column;
+	}
+
+}
@@ -0,0 +1,656 @@
+package db;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes aggregates over the rows of a table, grouped by the values of
+ * some of its columns, i.e. a hash GROUP BY. Values are read straight from
+ * the table's columns as the rows are scanned, with numbers read in their
+ * primitive form, so the selected rows are never copied out first. Rows
+ * are grouped on the codes of columns held as dictionaries, which are only
+ * turned back into values for the rows of the result.
+ *
+ * <p>Tables of at least the database's parallel threshold are aggregated on
+ * the shared fork/join pool, as selections are scanned: the rows are split
+ * in half until the parts are small enough, and each part is aggregated
+ * into a partial table of its own. The partial tables are then merged, in
+ * table order, so groups come back in the order their first rows appear.
+ *
+ * @since 0.9
+ */
+
+class Aggregation {
+
+	// ----- Class Constants ----- //
+
+	private static final List<String> NO_GROUP = Collections.emptyList();
+
+	// ----- Instance Variables ----- //
+
+	private Table table;
+	private Condition bound;
+	private int[] groupCols;
+	private Column[] groups;
+	private Aggregate[] aggregates;
+	private int[] columns;
+	private Column[] values;
+	private Type[] types;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Tests the methods in the Aggregation class, must be run with -ea.
+	 *
+	 * @since 0.9
+	 */
+	private static void testAggregation () throws Exception {
+
+		Table sales = new Table(new String[] {"id", "region", "amount",
+			"price"}, new Type[] {Type.INT, Type.STRING, Type.INT,
+			Type.DOUBLE}, false);
+		String[] regions = {"north", "south", "east"};
+		int threshold = 1 << 16;
+
+		for (int i = 0; i < threshold * 2; i++) {
+			sales.addRow(new String[] {"" + i, regions[i % 3],
+				i % 10 == 0 ? null : "" + i % 100, "" + (i % 4) * 0.5});
+		}
+		sales.encodeColumn(1);
+
+		Aggregate[] all = {Aggregate.count(), Aggregate.count("amount"),
+			Aggregate.countDistinct("amount"), Aggregate.sum("amount"),
+			Aggregate.min("amount"), Aggregate.max("price"),
+			Aggregate.avg("price")};
+		String[][] totals = new Aggregation(sales, null, new int[0], all)
+			.result(new String[0], threshold).getRows();
+		assert Arrays.equals(totals[0], new String[] {"131072", "117964",
+			"90", "5897276", "1", "1.5", "0.75"}) :
+			"Aggregates not computed over the whole table.";
+
+		ResultTable grouped = new Aggregation(sales, null, new int[] {1},
+			new Aggregate[] {Aggregate.count(), Aggregate.max("id")})
+			.result(new String[] {"region"}, threshold);
+		assert Arrays.deepEquals(grouped.getRows(), new String[][] {
+			{"north", "43691", "131070"}, {"south", "43691", "131071"},
+			{"east", "43690", "131069"}}) : "Groups not merged in order.";
+		assert Arrays.equals(grouped.getColumns(), new String[] {"region",
+			"COUNT(*)", "MAX(id)"}) : "Aggregates not named correctly.";
+		String[][] pairs = new Aggregation(sales, null, new int[] {1, 3},
+			new Aggregate[] {Aggregate.min("id")}).result(new String[] {
+			"region", "price"}, 0).getRows();
+		assert pairs.length == 12 && Arrays.equals(pairs[5], new String[] {
+			"east", "0.5", "5"}) : "Rows not grouped by several columns.";
+
+		Condition none = Condition.equal("region", "west").bind(sales);
+		assert Arrays.equals(new Aggregation(sales, none, new int[0], all)
+			.result(new String[0], threshold).getRows()[0], new String[] {
+			"0", "0", "0", null, null, null, null}) :
+			"Empty table not aggregated.";
+		assert new Aggregation(sales, none, new int[] {1}, all)
+			.result(new String[] {"region"}, threshold).noRecords() == 0 :
+			"Empty group returned.";
+
+		try {
+			new Aggregation(sales, null, new int[0], new Aggregate[] {
+				Aggregate.sum("region")});
+			assert false : "Text should not be summed.";
+		} catch (Exception e) {
+			if (!e.getMessage().startsWith("Only numeric")) {
+				throw e;
+			}
+		}
+
+	}
+
+	/**
+	 * Aggregates the rows of the table, splitting a large table into parts
+	 * that are aggregated in parallel.
+	 *
+	 * @param groupNames the names of the columns grouped by.
+	 * @param threshold the fewest rows aggregated in parallel, or zero to
+	 * aggregate every table on the current thread.
+	 * @return a ResultTable holding a row for each group, with the values of
+	 * the group's columns followed by those of the aggregates.
+	 * @since 0.9
+	 */
+	ResultTable result (String[] groupNames, int threshold) throws Exception {
+
+		int[] candidates = bound == null ? null : bound.candidates();
+		int total = candidates == null ? table.slots() : candidates.length;
+		Partial merged;
+
+		if (threshold > 0 && total >= threshold) {
+			int parts = ForkJoinPool.getCommonPoolParallelism() * 4;
+			int grain = Math.max(total / parts, threshold / 2);
+			merged = ForkJoinPool.commonPool().invoke(new PartTask(candidates,
+				0, total, grain));
+		} else {
+			merged = partial(candidates, 0, total);
+		}
+
+		if (groupCols.length == 0 && merged.groups.isEmpty()) {
+			merged.groups.put(NO_GROUP, newStates());
+		}
+
+		String[] names = Arrays.copyOf(groupNames, groupNames.length +
+			aggregates.length);
+
+		for (int i = 0; i < aggregates.length; i++) {
+			names[groupNames.length + i] = aggregates[i].toString();
+		}
+
+		ResultTable result = new ResultTable(names);
+
+		for (Map.Entry<Object, State[]> group : merged.groups.entrySet()) {
+			result.addRow(row(group.getKey(), group.getValue()));
+		}
+
+		result.stats = new ScanStats(merged.examined, result.noRecords(),
+			candidates != null);
+
+		return result;
+
+	}
+
+	/**
+	 * Aggregates a part of the table into a partial table of its own.
+	 *
+	 * @param candidates the slots of the rows to be read, or null to read
+	 * every slot.
+	 * @param from the position of the first row of the part.
+	 * @param to the position after the last row of the part.
+	 * @return the partial table.
+	 * @since 0.9
+	 */
+	private Partial partial (int[] candidates, int from, int to) {
+
+		Partial partial = new Partial();
+
+		for (int i = from; i < to; i++) {
+
+			int slot = candidates == null ? i : candidates[i];
+
+			if (!table.isLive(slot)) {
+				continue;
+			}
+
+			partial.examined++;
+
+			if (bound != null && !bound.test(slot)) {
+				continue;
+			}
+
+			Object key = key(slot);
+			State[] states = partial.groups.get(key);
+
+			if (states == null) {
+				states = newStates();
+				partial.groups.put(key, states);
+			}
+
+			for (int agg = 0; agg < states.length; agg++) {
+				add(agg, states[agg], slot);
+			}
+
+		}
+
+		return partial;
+
+	}
+
+	/**
+	 * Merges one partial table into another that comes before it.
+	 *
+	 * @param first the earlier partial table, which is merged into.
+	 * @param second the later partial table.
+	 * @return the merged partial table.
+	 * @since 0.9
+	 */
+	private Partial merge (Partial first, Partial second) {
+
+		for (Map.Entry<Object, State[]> group : second.groups.entrySet()) {
+
+			State[] states = first.groups.get(group.getKey());
+
+			if (states == null) {
+				first.groups.put(group.getKey(), group.getValue());
+				continue;
+			}
+
+			for (int agg = 0; agg < states.length; agg++) {
+				combine(agg, states[agg], group.getValue()[agg]);
+			}
+
+		}
+
+		first.examined += second.examined;
+
+		return first;
+
+	}
+
+	/**
+	 * Gets the key of the group a row belongs to, i.e. its value in the
+	 * column grouped by, or a list of its values where there are several.
+	 *
+	 * @param slot the slot of the row.
+	 * @return the key.
+	 * @since 0.9
+	 */
+	private Object key (int slot) {
+
+		if (groupCols.length == 0) {
+			return NO_GROUP;
+		} else if (groupCols.length == 1) {
+			return part(0, slot);
+		}
+
+		Object[] key = new Object[groupCols.length];
+
+		for (int i = 0; i < key.length; i++) {
+			key[i] = part(i, slot);
+		}
+
+		return Arrays.asList(key);
+
+	}
+
+	/**
+	 * Gets a row's value in one of the columns grouped by, as part of the key
+	 * of its group. The code is used in place of the value for a column held
+	 * as a dictionary, so equal values are found without reading them.
+	 *
+	 * @param group the position of the column among those grouped by.
+	 * @param slot the slot of the row.
+	 * @return the value, or its code.
+	 * @since 0.9
+	 */
+	private Object part (int group, int slot) {
+
+		Column column = groups[group];
+
+		if (column instanceof DictionaryColumn) {
+			return ((DictionaryColumn) column).code(slot);
+		}
+
+		return column.get(slot);
+
+	}
+
+	/**
+	 * Gets the value of one of the columns grouped by from the key of a
+	 * group, i.e. the reverse of {@link #part(int, int)}.
+	 *
+	 * @param group the position of the column among those grouped by.
+	 * @param part the value or code held in the key.
+	 * @return the value.
+	 * @since 0.9
+	 */
+	private String value (int group, Object part) {
+
+		Column column = groups[group];
+
+		if (column instanceof DictionaryColumn) {
+			return ((DictionaryColumn) column).decode((Integer) part);
+		}
+
+		return (String) part;
+
+	}
+
+	/**
+	 * Creates the empty state of each aggregate, for a new group.
+	 *
+	 * @return an array of the states.
+	 * @since 0.9
+	 */
+	private State[] newStates () {
+
+		State[] states = new State[aggregates.length];
+
+		for (int i = 0; i < states.length; i++) {
+
+			states[i] = new State();
+
+			if (aggregates[i].function() == Aggregate.COUNT_DISTINCT) {
+				states[i].distinct = new HashSet<String>();
+			}
+
+		}
+
+		return states;
+
+	}
+
+	/**
+	 * Adds a row to the state of an aggregate.
+	 *
+	 * @param agg the position of the aggregate.
+	 * @param state the state of the aggregate for the row's group.
+	 * @param slot the slot of the row.
+	 * @since 0.9
+	 */
+	private void add (int agg, State state, int slot) {
+
+		int function = aggregates[agg].function();
+
+		if (columns[agg] < 0) {
+			state.count++;
+			return;
+		} else if (isNull(agg, slot)) {
+			return;
+		}
+
+		state.count++;
+
+		if (function == Aggregate.COUNT_DISTINCT) {
+			state.distinct.add(table.cell(slot, columns[agg]));
+		} else if (function == Aggregate.SUM || function == Aggregate.AVG) {
+
+			TypedColumn column = (TypedColumn) values[agg];
+
+			if (types[agg] == Type.DOUBLE) {
+				state.sum += column.getDouble(slot);
+			} else {
+				state.total += column.getLong(slot);
+			}
+
+		} else if (function == Aggregate.MIN || function == Aggregate.MAX) {
+			state.best = better(agg, state.best, slot);
+		}
+
+	}
+
+	/**
+	 * Merges the state of an aggregate from a later partial table into that
+	 * of an earlier one.
+	 *
+	 * @param agg the position of the aggregate.
+	 * @param state the state from the earlier partial table.
+	 * @param other the state from the later partial table.
+	 * @since 0.9
+	 */
+	private void combine (int agg, State state, State other) {
+
+		state.count += other.count;
+		state.total += other.total;
+		state.sum += other.sum;
+		if (state.distinct != null) {
+			state.distinct.addAll(other.distinct);
+		}
+
+		if (other.best >= 0) {
+			state.best = better(agg, state.best, other.best);
+		}
+
+	}
+
+	/**
+	 * Checks whether a row is null in the column of an aggregate.
+	 *
+	 * @param agg the position of the aggregate.
+	 * @param slot the slot of the row.
+	 * @return true if the row is null.
+	 * @since 0.9
+	 */
+	private boolean isNull (int agg, int slot) {
+
+		Column column = values[agg];
+
+		return column instanceof TypedColumn ?
+			((TypedColumn) column).isNull(slot) : column.get(slot) == null;
+
+	}
+
+	/**
+	 * Chooses the row holding the lower value in the column of a MIN
+	 * aggregate, or the higher in that of a MAX. The earlier row is chosen
+	 * when the values are equal.
+	 *
+	 * @param agg the position of the aggregate.
+	 * @param best the slot of the row chosen so far, or -1 if there is none.
+	 * @param slot the slot of a row that is not null.
+	 * @return the slot of the row chosen.
+	 * @since 0.9
+	 */
+	private int better (int agg, int best, int slot) {
+
+		if (best < 0) {
+			return slot;
+		}
+
+		Column column = values[agg];
+		int diff;
+
+		if (types[agg] == Type.DOUBLE) {
+			TypedColumn typed = (TypedColumn) column;
+			diff = Double.compare(typed.getDouble(slot), typed.getDouble(best));
+		} else if (column instanceof TypedColumn) {
+			TypedColumn typed = (TypedColumn) column;
+			diff = Long.compare(typed.getLong(slot), typed.getLong(best));
+		} else {
+			diff = column.get(slot).compareTo(column.get(best));
+		}
+
+		if (aggregates[agg].function() == Aggregate.MAX) {
+			diff = -diff;
+		}
+
+		return diff < 0 || (diff == 0 && slot < best) ? slot : best;
+
+	}
+
+	/**
+	 * Builds the row of the result for a group.
+	 *
+	 * @param key the key of the group.
+	 * @param states the state of each aggregate for the group.
+	 * @return the values of the group's columns, followed by those of the
+	 * aggregates.
+	 * @since 0.9
+	 */
+	private String[] row (Object key, State[] states) {
+
+		int offset = groupCols.length;
+		String[] row = new String[offset + states.length];
+
+		if (offset == 1) {
+			row[0] = value(0, key);
+		} else {
+
+			List<?> values = (List<?>) key;
+
+			for (int i = 0; i < offset; i++) {
+				row[i] = value(i, values.get(i));
+			}
+
+		}
+
+		for (int agg = 0; agg < states.length; agg++) {
+			row[offset + agg] = value(agg, states[agg]);
+		}
+
+		return row;
+
+	}
+
+	/**
+	 * Gets the final value of an aggregate from its state.
+	 *
+	 * @param agg the position of the aggregate.
+	 * @param state the state of the aggregate for a group.
+	 * @return the value, or null where the group has no values to sum,
+	 * average or compare.
+	 * @since 0.9
+	 */
+	private String value (int agg, State state) {
+
+		boolean decimal = types[agg] == Type.DOUBLE;
+
+		switch (aggregates[agg].function()) {
+			case Aggregate.COUNT:
+				return Long.toString(state.count);
+			case Aggregate.COUNT_DISTINCT:
+				return Integer.toString(state.distinct.size());
+			case Aggregate.SUM:
+				return state.count == 0 ? null : decimal ?
+					Double.toString(state.sum) : Long.toString(state.total);
+			case Aggregate.AVG:
+				return state.count == 0 ? null : Double.toString((decimal ?
+					state.sum : state.total) / state.count);
+			default:
+				return state.best < 0 ? null : table.cell(state.best,
+					columns[agg]);
+		}
+
+	}
+
+	// ----- Tasks ----- //
+
+	/**
+	 * Aggregates a range of the rows on a fork/join pool. A range larger
+	 * than the grain is split in half, the halves are aggregated in
+	 * parallel, and their partial tables are merged in table order.
+	 *
+	 * @since 0.9
+	 */
+	private class PartTask extends RecursiveTask<Partial> {
+
+		private static final long serialVersionUID = 1L;
+
+		private int[] candidates;
+		private int from;
+		private int to;
+		private int grain;
+
+		@Override
+		protected Partial compute () {
+
+			if (to - from <= grain) {
+				return partial(candidates, from, to);
+			}
+
+			int middle = (from + to) >>> 1;
+			PartTask second = new PartTask(candidates, middle, to, grain);
+
+			second.fork();
+			Partial first = new PartTask(candidates, from, middle, grain)
+				.compute();
+
+			return merge(first, second.join());
+
+		}
+
+		PartTask (int[] candidates, int from, int to, int grain) {
+			this.candidates = candidates;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+	}
+
+	// ----- States ----- //
+
+	/**
+	 * The running state of an aggregate for one group, i.e. the number of
+	 * values seen, their sum, the slot of the lowest or highest, or the
+	 * distinct values, depending on the function.
+	 *
+	 * @since 0.9
+	 */
+	private static class State {
+		long count;
+		long total;
+		double sum;
+		int best = -1;
+		HashSet<String> distinct;
+	}
+
+	/**
+	 * The groups found in a part of the table, with their states, and the
+	 * number of rows examined.
+	 *
+	 * @since 0.9
+	 */
+	private static class Partial {
+		LinkedHashMap<Object, State[]> groups =
+			new LinkedHashMap<Object, State[]>();
+		long examined;
+	}
+
+	// ----- Constructor ----- //
+
+	/**
+	 * Class constructor, checks the aggregates against the table.
+	 *
+	 * @param table the table being aggregated.
+	 * @param bound the condition the rows must meet, bound to the table, or
+	 * null for every row.
+	 * @param groupCols the indices of the columns grouped by.
+	 * @param aggregates the aggregates to compute for each group.
+	 * @since 0.9
+	 */
+	Aggregation (Table table, Condition bound, int[] groupCols,
+		Aggregate[] aggregates) throws Exception {
+
+		this.table = table;
+		this.bound = bound;
+		this.groupCols = groupCols;
+		this.groups = new Column[groupCols.length];
+		this.aggregates = aggregates;
+		this.columns = new int[aggregates.length];
+		this.values = new Column[aggregates.length];
+		this.types = new Type[aggregates.length];
+
+		for (int i = 0; i < groupCols.length; i++) {
+			groups[i] = table.column(groupCols[i]);
+		}
+
+		for (int i = 0; i < aggregates.length; i++) {
+
+			String column = aggregates[i].column();
+			int function = aggregates[i].function();
+			columns[i] = column == null ? -1 : table.columnIndex(column);
+
+			if (column == null) {
+				continue;
+			} else if (columns[i] < 0) {
+				throw new Exception("No such column.");
+			}
+
+			values[i] = table.column(columns[i]);
+			types[i] = table.type(columns[i]);
+
+			if ((function == Aggregate.SUM || function == Aggregate.AVG) &&
+				types[i] != Type.INT && types[i] != Type.LONG &&
+				types[i] != Type.DOUBLE) {
+				throw new Exception("Only numeric columns can be summed: " +
+					column);
+			}
+
+		}
+
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		try {
+			testAggregation();
+			System.out.println("Aggregation tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}
@@ -0,0 +1,66 @@
+package db;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * Holds the values of a BOOLEAN column as a bitmap.
+ *
+ * @since 0.9
+ */
+
+class BooleanColumn extends TypedColumn {
+
+	// ----- Instance Variables ----- //
+
+	private BitSet cells;
+
+	// ----- Instance Methods ----- //
+
+	@Override
+	long getLong (int row) {
+		return cells.get(row) ? 1 : 0;
+	}
+
+	@Override
+	double getDouble (int row) {
+		return getLong(row);
+	}
+
+	@Override
+	protected void store (int row, String value) {
+		cells.set(row, Type.parseBoolean(value));
+	}
+
+	@Override
+	protected String format (int row) {
+		return Boolean.toString(cells.get(row));
+	}
+
+	@Override
+	protected void move (int from, int to) {
+		cells.set(to, cells.get(from));
+	}
+
+	@Override
+	protected void ensure (int capacity) {
+	}
+
+	@Override
+	protected void write (ByteBuffer out, int row) {
+		out.put((byte) (cells.get(row) ? 1 : 0));
+	}
+
+	@Override
+	protected void read (ByteBuffer in, int row) {
+		cells.set(row, in.get() != 0);
+	}
+
+	// ----- Constructor ----- //
+
+	BooleanColumn () {
+		super(Type.BOOLEAN);
+		this.cells = new BitSet();
+	}
+
+}
@@ -0,0 +1,80 @@
+package db;
+
+import java.util.BitSet;
+
+/**
+ * Holds the values of a single table column, with each row identified by its
+ * position. Subclasses decide how the values are stored.
+ *
+ * @since 0.9
+ */
+
+abstract class Column {
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Gets the value held in a row. The position is not checked against the
+	 * size of the column, callers must only ask for rows that exist.
+	 *
+	 * @param row the position of the row.
+	 * @return the value stored in the cell.
+	 * @since 0.9
+	 */
+	abstract String get (int row);
+
+	/**
+	 * Sets the value held in a row.
+	 *
+	 * @param row the position of the row.
+	 * @param value the value to store in the cell.
+	 * @since 0.9
+	 */
+	abstract void set (int row, String value);
+
+	/**
+	 * Adds a value to the end of the column.
+	 *
+	 * @param value the value to be added.
+	 * @since 0.9
+	 */
+	abstract void add (String value);
+
+	/**
+	 * Removes a set of rows, moving the remaining rows down to fill the gaps.
+	 *
+	 * @param deleted the positions of the rows to be removed.
+	 * @since 0.9
+	 */
+	abstract void compact (BitSet deleted);
+
+	/**
+	 * Copies the first rows of the column into a new column of the same
+	 * kind, e.g. for a view that stops sharing its table's columns. Rows in
+	 * the deleted set are null in the copy, but keep their position.
+	 *
+	 * @param noRows the number of rows to copy.
+	 * @param deleted the positions of the rows left null.
+	 * @return the copy.
+	 * @since 0.9
+	 */
+	abstract Column copy (int noRows, BitSet deleted);
+
+	/**
+	 * Gets the number of rows in the column.
+	 *
+	 * @return the integer number of rows.
+	 * @since 0.9
+	 */
+	abstract int size ();
+
+	/**
+	 * Lets go of any memory the column holds outside the heap. The column
+	 * must not be used afterwards.
+	 *
+	 * @since 0.9
+	 */
+	void release () {
+	}
+
+}
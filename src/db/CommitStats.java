@@ -0,0 +1,37 @@
+package db;
+
+/**
+ * Reports how much was written to disk by a commit.
+ *
+ * @since 0.9
+ */
+
+public class CommitStats {
+
+	// ----- Instance Variables ----- //
+
+	/**
+	 * The number of table files written.
+	 */
+	public final int tables;
+
+	/**
+	 * The number of bytes written, to table files and the write-ahead log.
+	 */
+	public final long bytes;
+
+	// ----- Instance Methods ----- //
+
+	@Override
+	public String toString () {
+		return tables + " tables, " + bytes + " bytes";
+	}
+
+	// ----- Constructor ----- //
+
+	CommitStats (int tables, long bytes) {
+		this.tables = tables;
+		this.bytes = bytes;
+	}
+
+}
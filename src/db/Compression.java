@@ -0,0 +1,42 @@
+package db;
+
+/**
+ * The ways the blocks of a table file can be compressed. Each table has its
+ * own setting, which is kept in the header of its file.
+ *
+ * @since 0.9
+ */
+
+public enum Compression {
+
+	/**
+	 * Blocks are stored as they are.
+	 */
+	NONE (0),
+
+	/**
+	 * Blocks are compressed in the LZ4 block format, which is fast to read
+	 * and write but compresses less.
+	 */
+	LZ4 (1),
+
+	/**
+	 * Blocks are compressed with DEFLATE, which compresses more but is
+	 * slower.
+	 */
+	DEFLATE (2);
+
+	// ----- Instance Variables ----- //
+
+	/**
+	 * The byte identifying the compression in a table file.
+	 */
+	final byte id;
+
+	// ----- Constructor ----- //
+
+	Compression (int id) {
+		this.id = (byte) id;
+	}
+
+}
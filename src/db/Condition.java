@@ -0,0 +1,1061 @@
+package db;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+
+/**
+ * A condition the rows of a selection must meet, i.e. a WHERE clause. Simple
+ * conditions test the value a row holds in one column, and are combined with
+ * {@link #and(Condition...)}, {@link #or(Condition...)} and
+ * {@link #not(Condition)}. Values are given as strings, and compared by what
+ * they stand for in the column's type, e.g. INT values by number.
+ *
+ * <p>A condition is checked against a table before it is used, and rows are
+ * then tested one at a time as the table is read. Where a simple condition
+ * can be answered by the primary key or by an index on its column, only the
+ * rows the index finds are tested. Rows may also be tested in batches,
+ * which lets the simplest conditions run as a tight loop over a column.
+ *
+ * <p>Which index, if any, a bound condition finds its rows through is chosen
+ * when it is bound, and only changes when it is bound again, i.e. after the
+ * table's schema changes. Changes to the rows themselves are picked up as
+ * the condition is used, so it can be kept bound for many runs.
+ *
+ * @since 0.9
+ */
+
+public abstract class Condition {
+
+	// ----- Class Constants ----- //
+
+	private static final int EQUAL = 0;
+	private static final int BETWEEN = 1;
+	private static final int IN = 2;
+	private static final int PREFIX = 3;
+
+	private static final int NO_ROWS = 0;
+	private static final int LOOKUP = 1;
+	private static final int LOOKUP_MANY = 2;
+	private static final int RANGE = 3;
+	private static final int SCAN = 4;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Tests the methods in the Condition class, must be run with -ea.
+	 *
+	 * @since 0.9
+	 */
+	private static void testCondition () throws Exception {
+
+		Table table = new Table(new String[] {"id", "city", "age"},
+			new Type[] {Type.INT, Type.STRING, Type.INT}, false);
+		String[] cities = {"Leeds", "London", "York", null};
+
+		for (int i = 0; i < 200; i++) {
+			table.addRow(new String[] {"" + i, cities[i % 4], "" + i % 50});
+		}
+
+		assert count(table, equal("city", "York")) == 50 :
+			"Equal not tested correctly.";
+		assert count(table, equal("city", null)) == 50 :
+			"Null not matched by equal.";
+		assert count(table, notEqual("city", "York")) == 150 :
+			"Not equal not tested correctly.";
+		assert count(table, between("age", "5", "14")) == 40 :
+			"Range not compared by number.";
+		assert count(table, in("id", "7", "007", "300", "x")) == 1 :
+			"In list not tested correctly.";
+		assert count(table, prefix("city", "L")) == 100 :
+			"Prefix not tested correctly.";
+		assert count(table, and(prefix("city", "L"), between("age", null,
+			"9"))) == 20 : "And not tested correctly.";
+		assert count(table, or(equal("city", "York"), equal("age", "0"))) ==
+			52 : "Or not tested correctly.";
+		assert count(table, not(or(equal("city", "York"), equal("city",
+			null)))) == 100 : "Not not tested correctly.";
+
+		assert equal("id", "12").bind(table).candidates().length == 1 :
+			"Primary key not used for equal.";
+		assert and(equal("age", "3"), equal("id", "53")).bind(table)
+			.candidates().length == 1 : "Primary key not used within and.";
+		assert equal("city", "York").bind(table).candidates() == null :
+			"Unindexed column should be scanned.";
+		table.createIndex("city");
+		assert in("city", "York", "Leeds").bind(table).candidates().length ==
+			100 : "Index not used for in list.";
+		assert or(equal("city", "York"), equal("age", "3")).bind(table)
+			.candidates() == null : "Or with an unindexed column scanned.";
+		table.createIndex("age", true);
+		assert between("age", "10", "11").bind(table).candidates().length ==
+			8 : "Ordered index not used for range.";
+		assert count(table, equal("city", "Bath")) == 0 &&
+			count(table, equal("age", "old")) == 0 :
+			"Missing value should match no rows.";
+		Condition young = and(between("age", null, "1"), equal("city",
+			"Leeds")).bind(table);
+		assert young.candidates().length == 50 :
+			"Lookup not chosen over range.";
+		table.addRow(new String[] {"200", "Leeds", "0"});
+		assert young.candidates().length == 51 && countBound(table,
+			young) == 3 :
+			"Candidates not found again after rows changed.";
+
+		int[] batch = new int[table.slots()];
+		for (int i = 0; i < batch.length; i++) {
+			batch[i] = i;
+		}
+		Condition bound = and(between("age", "5", null), equal("id", "12"))
+			.bind(table);
+		assert bound.filter(batch, batch.length) == 1 && batch[0] == 12 :
+			"Batch not filtered correctly.";
+
+		table.encodeColumn(1);
+		assert count(table, equal("city", "York")) == 50 &&
+			count(table, in("city", "York", null, "Bath")) == 100 :
+			"Dictionary column not tested correctly.";
+		Condition bath = in("city", "Bath", "Hull").bind(table);
+		assert countBound(table, bath) == 0 :
+			"Missing value found in dictionary.";
+		table.addRow(new String[] {"201", "Bath", "1"});
+		assert countBound(table, bath) == 1 :
+			"New dictionary value not found.";
+		for (int i = 0; i < batch.length; i++) {
+			batch[i] = i;
+		}
+		assert equal("city", "York").bind(table).filter(batch, 200) == 50 &&
+			batch[0] == 2 && batch[49] == 198 :
+			"Dictionary batch not filtered correctly.";
+
+		try {
+			prefix("age", "1").bind(table);
+			assert false : "Prefix should only apply to STRING columns.";
+		} catch (Exception e) {
+			if (!e.getMessage().startsWith("Prefixes only apply")) {
+				throw e;
+			}
+		}
+
+	}
+
+	/**
+	 * Counts the rows of a table that meet a condition, for testing.
+	 *
+	 * @param table the table being tested.
+	 * @param condition the condition.
+	 * @return the number of rows meeting the condition.
+	 * @since 0.9
+	 */
+	private static int count (Table table, Condition condition)
+		throws Exception {
+		return countBound(table, condition.bind(table));
+	}
+
+	/**
+	 * Counts the rows of a table that meet a condition already bound to it,
+	 * for testing.
+	 *
+	 * @param table the table being tested.
+	 * @param bound the condition, bound to the table.
+	 * @return the number of rows meeting the condition.
+	 * @since 0.9
+	 */
+	private static int countBound (Table table, Condition bound) {
+
+		int count = 0;
+
+		for (int slot = 0; slot < table.slots(); slot++) {
+			if (table.isLive(slot) && bound.test(slot)) {
+				count++;
+			}
+		}
+
+		return count;
+
+	}
+
+	/**
+	 * Creates a condition met by rows holding a given value in a column.
+	 * A null value is met by rows holding null.
+	 *
+	 * @param column the name of the column.
+	 * @param value the value the column must hold, may be null.
+	 * @return the condition.
+	 * @since 0.9
+	 */
+	public static Condition equal (String column, String value) {
+		return new Match(column, EQUAL, new String[] {value});
+	}
+
+	/**
+	 * Creates a condition met by rows not holding a given value in a column,
+	 * including rows holding null unless the value is null.
+	 *
+	 * @param column the name of the column.
+	 * @param value the value the column must not hold, may be null.
+	 * @return the condition.
+	 * @since 0.9
+	 */
+	public static Condition notEqual (String column, String value) {
+		return not(equal(column, value));
+	}
+
+	/**
+	 * Creates a condition met by rows holding a value within a range in a
+	 * column. Rows holding null never meet the condition.
+	 *
+	 * @param column the name of the column.
+	 * @param from the lowest value in the range, or null for no lower bound.
+	 * @param to the highest value in the range, or null for no upper bound.
+	 * @return the condition.
+	 * @since 0.9
+	 */
+	public static Condition between (String column, String from, String to) {
+		return new Match(column, BETWEEN, new String[] {from, to});
+	}
+
+	/**
+	 * Creates a condition met by rows holding any one of a set of values in
+	 * a column.
+	 *
+	 * @param column the name of the column.
+	 * @param values the values the column may hold, which may include null.
+	 * @return the condition.
+	 * @since 0.9
+	 */
+	public static Condition in (String column, String... values) {
+		return new Match(column, IN, values.clone());
+	}
+
+	/**
+	 * Creates a condition met by rows holding a value that starts with a
+	 * prefix, in a STRING column.
+	 *
+	 * @param column the name of the column.
+	 * @param prefix the start of the values being looked for.
+	 * @return the condition.
+	 * @since 0.9
+	 */
+	public static Condition prefix (String column, String prefix) {
+		return new Match(column, PREFIX, new String[] {prefix});
+	}
+
+	/**
+	 * Creates a condition met by rows meeting every one of a set of
+	 * conditions.
+	 *
+	 * @param conditions the conditions to be met.
+	 * @return the condition.
+	 * @since 0.9
+	 */
+	public static Condition and (Condition... conditions) {
+		return new All(conditions.clone());
+	}
+
+	/**
+	 * Creates a condition met by rows meeting any one of a set of conditions.
+	 *
+	 * @param conditions the conditions that may be met.
+	 * @return the condition.
+	 * @since 0.9
+	 */
+	public static Condition or (Condition... conditions) {
+		return new Any(conditions.clone());
+	}
+
+	/**
+	 * Creates a condition met by rows not meeting another condition.
+	 *
+	 * @param condition the condition that must not be met.
+	 * @return the condition.
+	 * @since 0.9
+	 */
+	public static Condition not (Condition condition) {
+		return new Not(condition);
+	}
+
+	/**
+	 * Checks the condition against a table, i.e. that its columns exist and
+	 * its values are valid for their types, and readies it to test the
+	 * table's rows. The condition itself is not changed, and may be bound to
+	 * other tables.
+	 *
+	 * @param table the table whose rows will be tested.
+	 * @return a copy of the condition, bound to the table.
+	 * @since 0.9
+	 */
+	abstract Condition bind (Table table) throws Exception;
+
+	/**
+	 * Tests the row in a slot of the table the condition is bound to.
+	 *
+	 * @param slot the slot of a row.
+	 * @return true if the row meets the condition.
+	 * @since 0.9
+	 */
+	abstract boolean test (int slot);
+
+	/**
+	 * Tests a batch of rows of the table the condition is bound to, keeping
+	 * only the slots of those that meet it, in the same order. The array of
+	 * slots acts as a selection vector, and is overwritten.
+	 *
+	 * @param slots the slots of the rows to be tested.
+	 * @param count the number of slots in the batch.
+	 * @return the number of slots kept, at the start of the array.
+	 * @since 0.9
+	 */
+	int filter (int[] slots, int count) {
+
+		int kept = 0;
+
+		for (int i = 0; i < count; i++) {
+			if (test(slots[i])) {
+				slots[kept++] = slots[i];
+			}
+		}
+
+		return kept;
+
+	}
+
+	/**
+	 * Finds the rows that may meet the condition through the indexes of the
+	 * table the condition is bound to, so that only those need be tested.
+	 *
+	 * @return the slots of the rows, in ascending order, or null if every
+	 * row must be tested.
+	 * @since 0.9
+	 */
+	abstract int[] candidates ();
+
+	/**
+	 * Gets how the rows that may meet a bound condition are found, i.e.
+	 * through which kind of index, if any, as chosen when it was bound.
+	 * Kinds that are likely to find fewer rows rank lower.
+	 *
+	 * @return NO_ROWS, LOOKUP, LOOKUP_MANY or RANGE, or SCAN if every row
+	 * must be tested.
+	 * @since 0.9
+	 */
+	abstract int access ();
+
+	/**
+	 * Merges sorted arrays of slots, leaving out any slot repeated.
+	 *
+	 * @param sets the arrays of slots, each in ascending order.
+	 * @return the slots in all of the arrays, in ascending order.
+	 * @since 0.9
+	 */
+	private static int[] union (int[][] sets) {
+
+		int total = 0;
+
+		for (int[] set : sets) {
+			total += set.length;
+		}
+
+		int[] merged = new int[total];
+		int size = 0;
+
+		for (int[] set : sets) {
+			System.arraycopy(set, 0, merged, size, set.length);
+			size += set.length;
+		}
+
+		Arrays.sort(merged);
+		size = 0;
+
+		for (int i = 0; i < merged.length; i++) {
+			if (size == 0 || merged[size - 1] != merged[i]) {
+				merged[size++] = merged[i];
+			}
+		}
+
+		return Arrays.copyOf(merged, size);
+
+	}
+
+	// ----- Match ----- //
+
+	/**
+	 * A condition on the value a row holds in a single column.
+	 *
+	 * @since 0.9
+	 */
+	private static class Match extends Condition {
+
+		private String column;
+		private int kind;
+		private String[] values;
+
+		@Override
+		Condition bind (Table table) throws Exception {
+
+			int index = table.columnIndex(column);
+
+			if (index == -1) {
+				throw new Exception("No such column.");
+			}
+
+			Type type = table.type(index);
+
+			if (kind == PREFIX && type != Type.STRING) {
+				throw new Exception("Prefixes only apply to STRING columns.");
+			} else if (kind == PREFIX && values[0] == null) {
+				throw new Exception("Prefix must not be null.");
+			}
+
+			String[] canonical = new String[values.length];
+			int size = 0;
+
+			for (String value : values) {
+				try {
+					canonical[size++] = type.canonical(value);
+				} catch (Exception e) {
+					if (kind == BETWEEN) {
+						throw e;
+					}
+					size--;
+				}
+			}
+
+			return new BoundMatch(table, index, kind,
+				Arrays.copyOf(canonical, size));
+
+		}
+
+		@Override
+		boolean test (int slot) {
+			throw new IllegalStateException("Condition not bound.");
+		}
+
+		@Override
+		int[] candidates () {
+			throw new IllegalStateException("Condition not bound.");
+		}
+
+		@Override
+		int access () {
+			throw new IllegalStateException("Condition not bound.");
+		}
+
+		Match (String column, int kind, String[] values) {
+			this.column = column;
+			this.kind = kind;
+			this.values = values;
+		}
+
+	}
+
+	/**
+	 * A condition on the value a row holds in a single column, bound to a
+	 * table. Values in dictionary columns are compared by their codes, and
+	 * those in typed columns in their primitive form, so that no row's value
+	 * need be turned into a string.
+	 *
+	 * @since 0.9
+	 */
+	private static class BoundMatch extends Condition {
+
+		private Table table;
+		private int index;
+		private int kind;
+		private String[] values;
+		private Type type;
+		private Column column;
+		private int access;
+		private HashSet<String> set;
+		private DictionaryColumn dictionary;
+		private volatile Codes codes;
+		private long[] longs;
+		private double[] doubles;
+
+		@Override
+		Condition bind (Table table) throws Exception {
+			throw new IllegalStateException("Condition already bound.");
+		}
+
+		@Override
+		boolean test (int slot) {
+
+			switch (kind) {
+				case EQUAL:
+					return values.length > 0 && equal(slot, 0);
+				case BETWEEN:
+					return between(slot);
+				case IN:
+					if (dictionary != null) {
+						return codes().contains(dictionary.code(slot));
+					}
+					return set.contains(column.get(slot));
+				default:
+					String value = column.get(slot);
+					return value != null && value.startsWith(values[0]);
+			}
+
+		}
+
+		/**
+		 * Tests whether a row holds one of the condition's values.
+		 *
+		 * @param slot the slot of the row.
+		 * @param i the index of the value.
+		 * @return true if the row holds the value.
+		 * @since 0.9
+		 */
+		private boolean equal (int slot, int i) {
+
+			if (dictionary != null) {
+				return codes().contains(dictionary.code(slot));
+			} else if (!(column instanceof TypedColumn)) {
+				return Objects.equals(column.get(slot), values[i]);
+			}
+
+			TypedColumn typed = (TypedColumn) column;
+
+			if (values[i] == null || typed.isNull(slot)) {
+				return values[i] == null && typed.isNull(slot);
+			}
+
+			return compare(typed, slot, i) == 0;
+
+		}
+
+		/**
+		 * Tests whether a row holds a value within the condition's range.
+		 *
+		 * @param slot the slot of the row.
+		 * @return true if the value is within the range.
+		 * @since 0.9
+		 */
+		private boolean between (int slot) {
+
+			if (column instanceof TypedColumn) {
+
+				TypedColumn typed = (TypedColumn) column;
+
+				return !typed.isNull(slot) &&
+					(values[0] == null || compare(typed, slot, 0) >= 0) &&
+					(values[1] == null || compare(typed, slot, 1) <= 0);
+
+			}
+
+			String value = column.get(slot);
+
+			return value != null &&
+				(values[0] == null || value.compareTo(values[0]) >= 0) &&
+				(values[1] == null || value.compareTo(values[1]) <= 0);
+
+		}
+
+		/**
+		 * Compares the value of a row in a typed column with one of the
+		 * condition's values.
+		 *
+		 * @param typed the column.
+		 * @param slot the slot of a row that is not null.
+		 * @param i the index of a value that is not null.
+		 * @return the order of the row's value relative to the condition's.
+		 * @since 0.9
+		 */
+		private int compare (TypedColumn typed, int slot, int i) {
+			return type == Type.DOUBLE ?
+				Double.compare(typed.getDouble(slot), doubles[i]) :
+				Long.compare(typed.getLong(slot), longs[i]);
+		}
+
+		@Override
+		int filter (int[] slots, int count) {
+
+			if (kind == EQUAL && values.length == 0) {
+				return 0;
+			} else if (dictionary != null) {
+				HashSet<Integer> found = codes();
+				return found.size() != 1 ? super.filter(slots, count) :
+					filterCode(slots, count, found.iterator().next());
+			} else if (!(column instanceof TypedColumn) ||
+				(kind != EQUAL && kind != BETWEEN) ||
+				(kind == EQUAL && values[0] == null)) {
+				return super.filter(slots, count);
+			}
+
+			int upper = kind == EQUAL ? 0 : 1;
+
+			if (type == Type.DOUBLE) {
+				return filterDouble(slots, count,
+					values[0] == null ? Double.NEGATIVE_INFINITY : doubles[0],
+					values[upper] == null ? Double.POSITIVE_INFINITY :
+					doubles[upper]);
+			}
+
+			return filterLong(slots, count,
+				values[0] == null ? Long.MIN_VALUE : longs[0],
+				values[upper] == null ? Long.MAX_VALUE : longs[upper]);
+
+		}
+
+		/**
+		 * Keeps the rows of a batch whose dictionary code matches.
+		 *
+		 * @param slots the slots of the rows to be tested.
+		 * @param count the number of slots in the batch.
+		 * @param code the code the rows must hold.
+		 * @return the number of slots kept.
+		 * @since 0.9
+		 */
+		private int filterCode (int[] slots, int count, int code) {
+
+			int kept = 0;
+
+			for (int i = 0; i < count; i++) {
+				int slot = slots[i];
+				if (dictionary.code(slot) == code) {
+					slots[kept++] = slot;
+				}
+			}
+
+			return kept;
+
+		}
+
+		/**
+		 * Keeps the rows of a batch whose value is within a range, in a
+		 * typed column read as longs.
+		 *
+		 * @param slots the slots of the rows to be tested.
+		 * @param count the number of slots in the batch.
+		 * @param low the lowest value kept.
+		 * @param high the highest value kept.
+		 * @return the number of slots kept.
+		 * @since 0.9
+		 */
+		private int filterLong (int[] slots, int count, long low, long high) {
+
+			TypedColumn typed = (TypedColumn) column;
+			int kept = 0;
+
+			for (int i = 0; i < count; i++) {
+
+				int slot = slots[i];
+
+				if (typed.isNull(slot)) {
+					continue;
+				}
+
+				long value = typed.getLong(slot);
+
+				if (value >= low && value <= high) {
+					slots[kept++] = slot;
+				}
+
+			}
+
+			return kept;
+
+		}
+
+		/**
+		 * Keeps the rows of a batch whose value is within a range, in a
+		 * DOUBLE column.
+		 *
+		 * @param slots the slots of the rows to be tested.
+		 * @param count the number of slots in the batch.
+		 * @param low the lowest value kept.
+		 * @param high the highest value kept.
+		 * @return the number of slots kept.
+		 * @since 0.9
+		 */
+		private int filterDouble (int[] slots, int count, double low,
+			double high) {
+
+			TypedColumn typed = (TypedColumn) column;
+			int kept = 0;
+
+			for (int i = 0; i < count; i++) {
+
+				int slot = slots[i];
+
+				if (typed.isNull(slot)) {
+					continue;
+				}
+
+				double value = typed.getDouble(slot);
+
+				if (Double.compare(value, low) >= 0 &&
+					Double.compare(value, high) <= 0) {
+					slots[kept++] = slot;
+				}
+
+			}
+
+			return kept;
+
+		}
+
+		@Override
+		int[] candidates () {
+
+			switch (access) {
+				case NO_ROWS:
+					return new int[0];
+				case LOOKUP:
+					return table.lookup(index, values[0]);
+				case LOOKUP_MANY:
+					int[][] found = new int[values.length][];
+					for (int i = 0; i < values.length; i++) {
+						found[i] = table.lookup(index, values[i]);
+					}
+					return union(found);
+				case RANGE:
+					try {
+						return union(new int[][] {kind == BETWEEN ?
+							table.range(index, values[0], values[1]) :
+							table.prefix(index, values[0])});
+					} catch (Exception e) {
+						return null;
+					}
+				default:
+					return null;
+			}
+
+		}
+
+		@Override
+		int access () {
+			return access;
+		}
+
+		/**
+		 * Gets the codes of the condition's values in the column's
+		 * dictionary. The codes are found again whenever the dictionary has
+		 * gained or renumbered values since they were last found, so a value
+		 * first added after the condition was bound is still matched.
+		 *
+		 * @return the codes.
+		 * @since 0.9
+		 */
+		private HashSet<Integer> codes () {
+
+			Codes found = codes;
+
+			if (found.generation != dictionary.generation()) {
+				found = new Codes(dictionary, values);
+				codes = found;
+			}
+
+			return found.codes;
+
+		}
+
+		/**
+		 * Chooses how the rows that may meet the condition are found, from
+		 * the indexes the table has when the condition is bound.
+		 *
+		 * @return the kind of access, as given by {@link #access()}.
+		 * @since 0.9
+		 */
+		private int chooseAccess () {
+
+			boolean indexed = table.isIndexed(index);
+
+			switch (kind) {
+				case EQUAL:
+					return values.length == 0 ? NO_ROWS : indexed ? LOOKUP :
+						SCAN;
+				case IN:
+					return indexed ? LOOKUP_MANY : SCAN;
+				default:
+					return table.isOrdered(table.getColumns()[index]) ?
+						RANGE : SCAN;
+			}
+
+		}
+
+		BoundMatch (Table table, int index, int kind, String[] values) {
+
+			this.table = table;
+			this.index = index;
+			this.kind = kind;
+			this.values = values;
+			this.type = table.type(index);
+			this.column = table.column(index);
+			this.access = chooseAccess();
+
+			if (column instanceof DictionaryColumn &&
+				(kind == EQUAL || kind == IN)) {
+
+				this.dictionary = (DictionaryColumn) column;
+				this.codes = new Codes(dictionary, values);
+
+			} else if (column instanceof TypedColumn) {
+
+				this.longs = new long[values.length];
+				this.doubles = new double[values.length];
+
+				for (int i = 0; i < values.length; i++) {
+					if (values[i] == null) {
+						continue;
+					} else if (type == Type.DOUBLE) {
+						doubles[i] = Double.parseDouble(values[i]);
+					} else if (type == Type.BOOLEAN) {
+						longs[i] = Type.parseBoolean(values[i]) ? 1 : 0;
+					} else if (type == Type.TIMESTAMP) {
+						longs[i] = Type.parseTimestamp(values[i]);
+					} else {
+						longs[i] = Long.parseLong(values[i]);
+					}
+				}
+
+			}
+
+			this.set = new HashSet<String>(Arrays.asList(values));
+
+		}
+
+	}
+
+	/**
+	 * The codes of a condition's values in a dictionary, as of one
+	 * generation of the dictionary. Values not in the dictionary have no
+	 * code, except null.
+	 *
+	 * @since 0.9
+	 */
+	private static class Codes {
+
+		final int generation;
+		final HashSet<Integer> codes = new HashSet<Integer>();
+
+		Codes (DictionaryColumn dictionary, String[] values) {
+
+			this.generation = dictionary.generation();
+
+			for (String value : values) {
+
+				int code = dictionary.codeOf(value);
+
+				if (code != DictionaryColumn.NULL || value == null) {
+					codes.add(code);
+				}
+
+			}
+
+		}
+
+	}
+
+	// ----- Combinations ----- //
+
+	/**
+	 * A condition met by rows meeting every one of a set of conditions. Only
+	 * the rows found through an index by one of them are tested, chosen by
+	 * the kind of index when the conditions are bound: a lookup of a single
+	 * value before one of several, and either before a range.
+	 *
+	 * @since 0.9
+	 */
+	private static class All extends Condition {
+
+		private Condition[] conditions;
+		private Condition chosen;
+
+		@Override
+		Condition bind (Table table) throws Exception {
+
+			Condition[] bound = new Condition[conditions.length];
+
+			for (int i = 0; i < bound.length; i++) {
+				bound[i] = conditions[i].bind(table);
+			}
+
+			return new All(bound).choose();
+
+		}
+
+		@Override
+		boolean test (int slot) {
+
+			for (Condition condition : conditions) {
+				if (!condition.test(slot)) {
+					return false;
+				}
+			}
+
+			return true;
+
+		}
+
+		@Override
+		int filter (int[] slots, int count) {
+
+			for (Condition condition : conditions) {
+				count = condition.filter(slots, count);
+			}
+
+			return count;
+
+		}
+
+		@Override
+		int[] candidates () {
+			return chosen == null ? null : chosen.candidates();
+		}
+
+		@Override
+		int access () {
+			return chosen == null ? SCAN : chosen.access();
+		}
+
+		/**
+		 * Chooses the condition whose rows are found through an index, once
+		 * the conditions are bound, preferring the kind of index likely to
+		 * find the fewest rows.
+		 *
+		 * @return this condition.
+		 * @since 0.9
+		 */
+		private All choose () {
+
+			for (Condition condition : conditions) {
+				if (condition.access() != SCAN && (chosen == null ||
+					condition.access() < chosen.access())) {
+					chosen = condition;
+				}
+			}
+
+			return this;
+
+		}
+
+		All (Condition[] conditions) {
+			this.conditions = conditions;
+		}
+
+	}
+
+	/**
+	 * A condition met by rows meeting any one of a set of conditions. Indexes
+	 * are only used if every condition can use one.
+	 *
+	 * @since 0.9
+	 */
+	private static class Any extends Condition {
+
+		private Condition[] conditions;
+
+		@Override
+		Condition bind (Table table) throws Exception {
+
+			Condition[] bound = new Condition[conditions.length];
+
+			for (int i = 0; i < bound.length; i++) {
+				bound[i] = conditions[i].bind(table);
+			}
+
+			return new Any(bound);
+
+		}
+
+		@Override
+		boolean test (int slot) {
+
+			for (Condition condition : conditions) {
+				if (condition.test(slot)) {
+					return true;
+				}
+			}
+
+			return false;
+
+		}
+
+		@Override
+		int[] candidates () {
+
+			if (access() == SCAN) {
+				return null;
+			}
+
+			int[][] found = new int[conditions.length][];
+
+			for (int i = 0; i < found.length; i++) {
+				if ((found[i] = conditions[i].candidates()) == null) {
+					return null;
+				}
+			}
+
+			return union(found);
+
+		}
+
+		@Override
+		int access () {
+
+			int widest = NO_ROWS;
+
+			for (Condition condition : conditions) {
+				widest = Math.max(widest, condition.access());
+			}
+
+			return widest;
+
+		}
+
+		Any (Condition[] conditions) {
+			this.conditions = conditions;
+		}
+
+	}
+
+	/**
+	 * A condition met by rows not meeting another condition. Every row is
+	 * tested.
+	 *
+	 * @since 0.9
+	 */
+	private static class Not extends Condition {
+
+		private Condition condition;
+
+		@Override
+		Condition bind (Table table) throws Exception {
+			return new Not(condition.bind(table));
+		}
+
+		@Override
+		boolean test (int slot) {
+			return !condition.test(slot);
+		}
+
+		@Override
+		int[] candidates () {
+			return null;
+		}
+
+		@Override
+		int access () {
+			return SCAN;
+		}
+
+		Not (Condition condition) {
+			this.condition = condition;
+		}
+
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		try {
+			testCondition();
+			System.out.println("Condition tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}
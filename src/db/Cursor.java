@@ -0,0 +1,63 @@
+package db;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the rows of a table one at a time, holding only a small part of the
+ * table in memory. Rows are returned in table order, with only the columns
+ * that were selected. Tables that are not in memory are read straight from
+ * their file, one block at a time, and the file is closed once the last row
+ * has been read, or when the cursor is closed.
+ *
+ * <p>The table should not be changed while a cursor over it is open.
+ *
+ * @since 0.9
+ */
+
+public abstract class Cursor implements Iterator<String[]>, AutoCloseable {
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Gets the remaining rows as a stream. Closing the stream closes the
+	 * cursor.
+	 *
+	 * @return a stream of the remaining rows.
+	 * @since 0.9
+	 */
+	public Stream<String[]> stream () {
+
+		Stream<String[]> rows = StreamSupport.stream(
+			Spliterators.spliteratorUnknownSize(this,
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+
+		return rows.onClose(() -> {
+			try {
+				close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+
+	}
+
+	/**
+	 * Releases anything held open by the cursor, such as the file it reads.
+	 *
+	 * @since 0.9
+	 */
+	@Override
+	public abstract void close () throws IOException;
+
+	// ----- Constructor ----- //
+
+	Cursor () {
+	}
+
+}
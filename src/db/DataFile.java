@@ -1,21 +1,78 @@
 package db;
 
-import java.io.FileOutputStream;
-import java.io.ObjectOutputStream;
-import java.io.FileInputStream;
-import java.io.ObjectInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
 import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * Handles reading and writing of tables to and from files.
  *
+ * <p>Tables are stored in a versioned binary format. The file starts with a
+ * header holding the format version, the sequence number of the last logged
+ * change included in the file and the column catalog, followed by
+ * blocks of rows. Each block holds the length-prefixed UTF-8 values of its
+ * rows column by column, and ends with a CRC32 checksum of those values.
+ * Blocks may be compressed, as set for each table, and each one names its
+ * own codec so that it can be decompressed without reference to the others.
+ * Columns with few distinct values keep a dictionary of them in the header,
+ * and blocks then hold a code into the dictionary for each row. Columns
+ * declared with a type other than STRING have their type in the header, and
+ * blocks hold a bitmap of null rows followed by a fixed-width binary value
+ * for each row. The header also names the columns that have indexes, and
+ * whether each index is a hash index or an ordered one, and the indexes are
+ * rebuilt as the table is read.
+ * Files written by earlier versions, which used Java serialization, can still
+ * be read and are replaced by the new format the next time they are saved.
+ *
+ * <p>Table files can also be mapped into memory rather than read, in which
+ * case their values are decoded from the file only when they are used.
+ *
  * @since 0.3
  */
 
 class DataFile {
 
+	// ----- Class Constants ----- //
+
+	private static final String EXTENSION = ".tbl";
+	private static final String LEGACY_EXTENSION = ".ser";
+	private static final String TEMP_EXTENSION = ".tmp";
+	private static final int MAGIC = 0x44425442;
+	private static final short VERSION = 7;
+	private static final byte PLAIN = 0;
+	private static final byte DICTIONARY = 1;
+	private static final byte TYPED = 2;
+	private static final byte HASH_INDEX = 0;
+	private static final byte ORDERED_INDEX = 1;
+	private static final int BLOCK_ROWS = 4096;
+	private static final int BUFFER_SIZE = 1 << 16;
+
 	// ----- Instance Variables ----- //
 
 	private String dataDir;
@@ -24,7 +81,7 @@ class DataFile {
 
 	/**
 	 * Tests the methods in the DataFile class, must be run with -ea.
-	 * 
+	 *
 	 * @since 0.3
 	 */
 	private void testDataFile () throws Exception {
@@ -32,13 +89,20 @@ class DataFile {
 		String[] columns = {"colOne", "colTwo", "colThree"};
 		Table table = new Table(columns);
 		String fileName = "testTable";
+
+		for (int i = 0; i < BLOCK_ROWS + 10; i++) {
+			table.addRow(new String[] {"key" + i, "val\u00e9" + i, null});
+		}
+		table.deleteRow("key3");
+
 		try {
-			saveTable(table, fileName);
+			assert saveTable(table, fileName) > 0 : "Bytes not counted.";
+			assert !table.isDirty() : "Table not marked as saved.";
 		} catch (IOException e) {
 			throw new IOException("Problem writing to file.", e);
 		}
 
-		File test = new File(dataDir + fileName + ".ser");
+		File test = new File(dataDir + fileName + EXTENSION);
 		assert test.exists() : "File not created correctly.";
 
 		Table testTable = null;
@@ -54,6 +118,13 @@ class DataFile {
 		assert testTable != null : "Table not read in correctly.";
 		assert Arrays.equals(columns, testTable.getColumns()) : "Incorrect " +
 		"object in file.";
+		assert Arrays.deepEquals(table.getRows(), testTable.getRows()) :
+			"Rows not read in correctly.";
+		assert testTable.getRecord("key4000") != null :
+			"Key index not rebuilt on read.";
+		assert !testTable.isDirty() : "Table read in should be saved.";
+		assert Arrays.equals(readHeader(fileName).columns, columns) :
+			"Header not read correctly.";
 
 		try {
 			assert listTables()[0].equals("testTable") : "File list incorrect.";
@@ -62,110 +133,1627 @@ class DataFile {
 			throw new Exception("Problem obtaining file list.");
 		}
 
+		Table mappedTable = mapTable(fileName);
+		assert Arrays.deepEquals(table.getRows(), mappedTable.getRows()) :
+			"Rows not mapped correctly.";
+		assert mappedTable.column(1) instanceof MappedColumn :
+			"Values not left in mapped file.";
+
+		mappedTable.addRow(new String[] {"newKey", "newVal", "newVal"});
+		saveTable(mappedTable, fileName);
+		assert readTable(fileName).noRecords() == table.noRecords() + 1 :
+			"Mapped table not saved over its own file correctly.";
+
+		try (RandomAccessFile corrupt = new RandomAccessFile(test, "rw")) {
+			corrupt.seek(100);
+			corrupt.write(corrupt.read() ^ 0xff);
+		}
+
+		try {
+			readTable(fileName);
+			assert false : "Corrupt block should not be read.";
+		} catch (IOException e) {
+			if (!e.getMessage().startsWith("Checksum mismatch")) {
+				throw e;
+			}
+		}
+
+		try {
+			mapTable(fileName);
+			assert false : "Corrupt block should not be mapped.";
+		} catch (IOException e) {
+			if (!e.getMessage().startsWith("Checksum mismatch")) {
+				throw e;
+			}
+		}
+
+		long plainBytes = saveTable(table, fileName);
+
+		for (Compression compression : new Compression[] {Compression.LZ4,
+			Compression.DEFLATE}) {
+
+			table.compression = compression;
+			assert saveTable(table, fileName) < plainBytes / 2 :
+				"Table not compressed.";
+			assert readHeader(fileName).compression == compression :
+				"Compression not recorded in header.";
+
+			Table compressed = readTable(fileName);
+			assert compressed.compression == compression &&
+				Arrays.deepEquals(table.getRows(), compressed.getRows()) :
+				"Compressed rows not read correctly.";
+			assert Arrays.deepEquals(table.getRows(),
+				mapTable(fileName).getRows()) :
+				"Compressed table not mapped correctly.";
+
+			try (Cursor cursor = openCursor(fileName, new int[] {1, 0})) {
+				for (String[] row : table.getRows()) {
+					assert Arrays.equals(cursor.next(),
+						new String[] {row[1], row[0]}) :
+						"Rows not read correctly by cursor.";
+				}
+				assert !cursor.hasNext() : "Cursor read too many rows.";
+			}
+
+		}
+
+		table.compression = Compression.NONE;
+		table.encodeColumns();
+		assert table.column(2) instanceof DictionaryColumn &&
+			table.column(1) instanceof StringColumn :
+			"Columns not encoded by their number of values.";
+		table.encodeColumn(1);
+		saveTable(table, fileName);
+		assert readHeader(fileName).dictionaries[1] != null :
+			"Dictionary not recorded in header.";
+
+		Table encoded = readTable(fileName);
+		assert encoded.column(1) instanceof DictionaryColumn &&
+			Arrays.deepEquals(table.getRows(), encoded.getRows()) :
+			"Dictionary columns not read correctly.";
+		assert Arrays.deepEquals(table.getRows(),
+			mapTable(fileName).getRows()) :
+			"Dictionary columns not mapped correctly.";
+
+		try (Cursor cursor = openCursor(fileName, new int[] {2, 1})) {
+			assert Arrays.equals(cursor.next(), new String[] {null,
+				"val\u00e90"}) : "Dictionary columns not read by cursor.";
+		}
+
+		Table typed = new Table(new String[] {"id", "count", "price", "paid",
+			"when"}, new Type[] {Type.INT, Type.LONG, Type.DOUBLE,
+			Type.BOOLEAN, Type.TIMESTAMP}, false);
+
+		for (int i = 0; i < BLOCK_ROWS + 10; i++) {
+			typed.addRow(new String[] {"" + i, i % 7 == 0 ? null : "" + i * 3L,
+				i + ".5", i % 2 == 0 ? "true" : "false", "" + i * 1000L});
+		}
+
+		saveTable(typed, "typedTable");
+		assert Arrays.equals(readHeader("typedTable").types, typed.types()) :
+			"Types not recorded in header.";
+		Table typedRead = readTable("typedTable");
+		assert typedRead.column(1) instanceof LongColumn &&
+			Arrays.deepEquals(typed.getRows(), typedRead.getRows()) :
+			"Typed columns not read correctly.";
+		assert Arrays.deepEquals(typed.getRows(),
+			mapTable("typedTable").getRows()) :
+			"Typed columns not mapped correctly.";
+
+		try (Cursor cursor = openCursor("typedTable", new int[] {4, 1})) {
+			assert Arrays.equals(cursor.next(), new String[] {
+				"1970-01-01T00:00:00Z", null}) :
+				"Typed columns not read by cursor.";
+		}
+
+		typed.createIndex("paid");
+		typed.createIndex("id", true);
+		saveTable(typed, "typedTable");
+		assert Arrays.equals(readHeader("typedTable").indexes,
+			new String[] {"paid", "id"}) : "Indexes not recorded in header.";
+		Table indexed = readTable("typedTable");
+		assert indexed.lookup(3, "true").length == (BLOCK_ROWS + 10) / 2 &&
+			indexed.isOrdered("id") && !indexed.isOrdered("paid") &&
+			mapTable("typedTable").indexNames().length == 2 :
+			"Indexes not rebuilt when read.";
+
+		deleteTable("typedTable");
+
 		deleteTable("testTable");
 		assert !test.exists() : "Table file not deleted from disk.";
 
+		File legacy = new File(dataDir + "legacyTable" + LEGACY_EXTENSION);
+		Files.write(legacy.toPath(), Base64.getMimeDecoder().decode(
+			"rO0ABXNyAAhkYi5UYWJsZT5ag+cVmQTxAgADTAAHY29sdW1uc3QAFUxq" +
+			"YXZhL3V0aWwvQXJyYXlMaXN0O0wABXByaW50dAAMTGRiL1ByaW50ZXI7" +
+			"TAAEcm93c3QAFkxqYXZhL3V0aWwvTGlua2VkTGlzdDt4cHNyABNqYXZh" +
+			"LnV0aWwuQXJyYXlMaXN0eIHSHZnHYZ0DAAFJAARzaXpleHAAAAADdwQA" +
+			"AAADdAACaWR0AARuYW1ldAAEY2l0eXhzcgAKZGIuUHJpbnRlcoN7KIr8" +
+			"b7htAgABTAAFdGFibGV0AApMZGIvVGFibGU7eHBxAH4ABHNyABRqYXZh" +
+			"LnV0aWwuTGlua2VkTGlzdAwpU11KYIgiAwAAeHB3BAAAAANzcgAJZGIu" +
+			"UmVjb3Jk5hTRVrnoTlMCAAFMAAZ2YWx1ZXNxAH4AAXhwc3EAfgAFAAAA" +
+			"A3cEAAAAA3QAATF0AANBbm50AAVMZWVkc3hzcQB+AA9zcQB+AAUAAAAD" +
+			"dwQAAAADdAABMnQAA0JvYnQABFlvcmt4c3EAfgAPc3EAfgAFAAAAA3cE" +
+			"AAAAA3QAATN0AAJDeXQABEh1bGx4eA=="));
+
+		assert listTables()[0].equals("legacyTable") :
+			"Legacy file not listed.";
+		Table legacyTable = readTable("legacyTable");
+		assert legacyTable.isDirty() : "Legacy table should be unsaved.";
+		assert readHeader("legacyTable") == null :
+			"Legacy table should have no header.";
+		assert Arrays.equals(legacyTable.getColumns(),
+			new String[] {"id", "name", "city"}) : "Legacy columns not read.";
+		assert Arrays.equals(legacyTable.getRecord("2").getValues(),
+			new String[] {"2", "Bob", "York"}) : "Legacy rows not read.";
+
+		saveTable(legacyTable, "legacyTable");
+		assert !legacy.exists() : "Legacy file not replaced on save.";
+		assert readTable("legacyTable").noRecords() == 3 :
+			"Migrated table not read correctly.";
+
+		deleteTable("legacyTable");
+
+	}
+
+	/**
+	 * Gets the path of the file holding a table.
+	 *
+	 * @param tableName the name of the table.
+	 * @param extension the file extension, including the dot.
+	 * @return the path of the file.
+	 * @since 0.9
+	 */
+	private Path tablePath (String tableName, String extension) {
+		return Paths.get(dataDir + tableName + extension);
 	}
 
 	/**
-	 * Saves a table to a file, serializing the object data.
-	 * 
+	 * Saves a table to a file in the binary table format. The table is
+	 * written to a temporary file which then replaces the old one, so that a
+	 * table mapped from the old file can still be read while it is saved.
+	 * The temporary file is forced to disk before it is renamed, so the
+	 * rename never reaches disk ahead of the data; the rename itself is only
+	 * durable once the directory is synced, see {@link #sync()}. Any file
+	 * left by an earlier version of the format is removed.
+	 *
 	 * @param table the table object to be saved.
 	 * @param name name of the table, used to define filename.
+	 * @return the number of bytes written.
 	 * @since 0.3
 	 */
-	void saveTable (Table table, String name) throws IOException {
+	long saveTable (Table table, String name) throws IOException {
+
+		Path temp = tablePath(name, EXTENSION + TEMP_EXTENSION);
+		long version = table.version();
+		long bytes;
+
+		try (FileChannel channel = FileChannel.open(temp,
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+			String[] columns = table.getColumns();
+
+			out.putInt(MAGIC);
+			out.putShort(VERSION);
+			out.putLong(table.sequence);
+			out.put(table.compression.id);
+			out.putInt(columns.length);
+
+			for (String column : columns) {
+				putString(channel, out, column);
+			}
+
+			for (int col = 0; col < columns.length; col++) {
+
+				Column column = table.column(col);
+				ensure(channel, out, 5);
+
+				if (column instanceof DictionaryColumn) {
+
+					String[] dictionary =
+						((DictionaryColumn) column).dictionary();
+					out.put(DICTIONARY);
+					out.putInt(dictionary.length);
+
+					for (String value : dictionary) {
+						putString(channel, out, value);
+					}
+
+				} else if (column instanceof TypedColumn) {
+					out.put(TYPED);
+					out.put(((TypedColumn) column).type().id);
+				} else {
+					out.put(PLAIN);
+				}
+
+			}
+
+			String[] indexes = table.indexNames();
+			ensure(channel, out, 4);
+			out.putInt(indexes.length);
+
+			for (String index : indexes) {
+				putString(channel, out, index);
+				ensure(channel, out, 1);
+				out.put(table.isOrdered(index) ? ORDERED_INDEX : HASH_INDEX);
+			}
+
+			ByteBuffer block = ByteBuffer.allocate(BUFFER_SIZE);
+			byte[] packed = new byte[0];
+			int[] blockSlots = new int[BLOCK_ROWS];
+			int slots = table.slots();
+			int slot = 0;
+
+			while (slot < slots) {
+
+				int noRows = 0;
+
+				for (; slot < slots && noRows < BLOCK_ROWS; slot++) {
+					if (table.isLive(slot)) {
+						blockSlots[noRows++] = slot;
+					}
+				}
+
+				if (noRows > 0) {
+
+					block = encodeBlock(table, blockSlots, noRows, block);
+					int rawLength = block.limit();
+
+					if (table.compression != Compression.NONE &&
+						packed.length < Lz4.maxLength(rawLength)) {
+						packed = new byte[Lz4.maxLength(rawLength)];
+					}
+
+					int length = compress(table.compression, block, packed);
+
+					if (length < 0) {
+						writeBlock(channel, out, block, Compression.NONE,
+							rawLength, noRows);
+					} else {
+						writeBlock(channel, out, ByteBuffer.wrap(packed, 0,
+							length), table.compression, rawLength, noRows);
+					}
+
+				}
+
+			}
+
+			ensure(channel, out, 4);
+			out.putInt(0);
+			flush(channel, out);
+			channel.force(true);
+			bytes = channel.position();
+
+		} catch (IOException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+
+		Files.move(temp, tablePath(name, EXTENSION),
+			StandardCopyOption.REPLACE_EXISTING,
+			StandardCopyOption.ATOMIC_MOVE);
+		Files.deleteIfExists(tablePath(name, LEGACY_EXTENSION));
+
+		if (table.version() == version) {
+			table.markSaved();
+		}
+
+		return bytes;
+
+	}
+
+	/**
+	 * Encodes the values of a block of rows, column by column, as
+	 * length-prefixed UTF-8. Null values are written with a length of -1.
+	 * Columns held as dictionaries are written as the code of each row, and
+	 * typed columns in their binary form.
+	 *
+	 * @param table the table holding the rows.
+	 * @param blockSlots the slots of the rows in the block.
+	 * @param noRows the number of rows in the block.
+	 * @param block a buffer to encode into, replaced if it is too small.
+	 * @return the buffer holding the encoded block, ready to be read.
+	 * @since 0.9
+	 */
+	private ByteBuffer encodeBlock (Table table, int[] blockSlots, int noRows,
+		ByteBuffer block) {
+
+		block.clear();
+		int noCols = table.columns.size();
+
+		for (int col = 0; col < noCols; col++) {
+
+			Column column = table.column(col);
 
-		FileOutputStream file = new FileOutputStream(dataDir + name + ".ser");
-		ObjectOutputStream objectOut = new ObjectOutputStream(file);
+			if (column instanceof DictionaryColumn) {
 
-		objectOut.writeObject(table);
-		objectOut.close();
-		file.close();
+				DictionaryColumn codes = (DictionaryColumn) column;
+				block = room(block, noRows * 4);
+
+				for (int i = 0; i < noRows; i++) {
+					block.putInt(codes.code(blockSlots[i]));
+				}
+
+				continue;
+
+			} else if (column instanceof TypedColumn) {
+
+				TypedColumn typed = (TypedColumn) column;
+				block = room(block, typed.blockLength(noRows));
+				typed.encode(block, blockSlots, noRows);
+
+				continue;
+
+			}
+
+			for (int i = 0; i < noRows; i++) {
+
+				String value = column.get(blockSlots[i]);
+				byte[] bytes = value == null ? null :
+					value.getBytes(StandardCharsets.UTF_8);
+				int length = bytes == null ? 0 : bytes.length;
+
+				block = room(block, length + 4);
+
+				if (bytes == null) {
+					block.putInt(-1);
+				} else {
+					block.putInt(length);
+					block.put(bytes);
+				}
+
+			}
+
+		}
+
+		block.flip();
+		return block;
 
 	}
 
 	/**
-	 * Reads a table from file, file must be a serialized Table object.
-	 * 
-	 * @param tableName the name of the file containing the Table object.
-	 * @return the Table object that has been read in.
-	 * @since 0.3
+	 * Makes room in a block being encoded, replacing it with a larger buffer
+	 * if needed.
+	 *
+	 * @param block the block being encoded.
+	 * @param bytes the number of bytes needed.
+	 * @return the block, or a larger copy of it.
+	 * @since 0.9
 	 */
-	Table readTable (String tableName)
-		throws IOException, ClassNotFoundException {
+	private ByteBuffer room (ByteBuffer block, int bytes) {
 
-		FileInputStream file = new FileInputStream(
-			dataDir + tableName + ".ser");
-		ObjectInputStream objectIn = new ObjectInputStream(file);
+		if (block.remaining() >= bytes) {
+			return block;
+		}
 
-		Table table = (Table) objectIn.readObject();
-		objectIn.close();
-		file.close();
+		ByteBuffer larger = ByteBuffer.allocate(Math.max(block.capacity() * 2,
+			block.position() + bytes));
+		block.flip();
 
-		return table;
+		return larger.put(block);
 
 	}
 
 	/**
-	 * Removes a table file from disk.
-	 * 
-	 * @param tableName the name of the file containing the Table object.
-	 * @since 0.6
+	 * Compresses an encoded block.
+	 *
+	 * @param compression the compression to use.
+	 * @param block the encoded block.
+	 * @param packed the array to compress into, at least
+	 * {@link Lz4#maxLength(int)} bytes long.
+	 * @return the length of the compressed block, or -1 if it is not
+	 * compressed or compressing it does not make it smaller.
+	 * @since 0.9
 	 */
-	void deleteTable (String tableName) throws IOException {
+	private int compress (Compression compression, ByteBuffer block,
+		byte[] packed) {
+
+		int rawLength = block.limit();
+		int length = -1;
+
+		if (compression == Compression.LZ4) {
+			length = Lz4.compress(block.array(), rawLength, packed);
+		} else if (compression == Compression.DEFLATE) {
+
+			Deflater deflater = new Deflater();
+			deflater.setInput(block.array(), 0, rawLength);
+			deflater.finish();
+			length = deflater.deflate(packed);
+
+			if (!deflater.finished()) {
+				length = -1;
+			}
+
+			deflater.end();
 
-		File tableFile = new File(dataDir + tableName + ".ser");
+		}
+
+		return length < rawLength ? length : -1;
+
+	}
+
+	/**
+	 * Decompresses a block read from file.
+	 *
+	 * @param compression the compression the block was written with.
+	 * @param packed the compressed block.
+	 * @param length the length of the compressed block.
+	 * @param raw the array to decompress into.
+	 * @param rawLength the length of the block once decompressed.
+	 * @param tableName the name of the table.
+	 * @since 0.9
+	 */
+	private void decompress (Compression compression, byte[] packed,
+		int length, byte[] raw, int rawLength, String tableName)
+		throws IOException {
+
+		if (compression == Compression.LZ4) {
+			Lz4.decompress(packed, 0, length, raw, rawLength);
+			return;
+		}
+
+		Inflater inflater = new Inflater();
+		inflater.setInput(packed, 0, length);
 
 		try {
-			tableFile.delete();
-		} catch (SecurityException e) {
-			throw new IOException("File could not be deleted.");
+			if (inflater.inflate(raw, 0, rawLength) != rawLength ||
+				!inflater.finished()) {
+				throw new IOException(
+					"Compressed block is invalid: " + tableName);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException(
+				"Compressed block is invalid: " + tableName, e);
+		} finally {
+			inflater.end();
 		}
 
 	}
 
 	/**
-	 * Get the names of all the tables stored in files.
-	 * 
-	 * @return the table names as Strings in an array.
-	 * @since 0.5
+	 * Gets the compression identified by a byte in a table file.
+	 *
+	 * @param id the byte identifying the compression.
+	 * @param tableName the name of the table.
+	 * @return the compression.
+	 * @since 0.9
 	 */
-	String[] listTables () throws IOException {
+	private Compression compression (byte id, String tableName)
+		throws IOException {
 
-		File dataDirectory = new File(dataDir);
-		String[] tables = dataDirectory.list();
+		for (Compression compression : Compression.values()) {
+			if (compression.id == id) {
+				return compression;
+			}
+		}
+
+		throw new IOException("Unknown compression " + id + ": " + tableName);
+
+	}
 
-		for (int i = tables.length - 1; i >= 0; i--) {
-			String table = tables[i];
-			if (table.contains(".")) {
-				tables[i] = table.substring(0, table.lastIndexOf('.'));
+	/**
+	 * Gets the column type identified by a byte in a table file.
+	 *
+	 * @param id the byte identifying the type.
+	 * @param tableName the name of the table.
+	 * @return the type.
+	 * @since 0.9
+	 */
+	private Type type (byte id, String tableName) throws IOException {
+
+		for (Type type : Type.values()) {
+			if (type.id == id) {
+				return type;
 			}
 		}
 
-		return tables;
+		throw new IOException("Unknown column type " + id + ": " + tableName);
 
 	}
 
-	// ----- Constructor ----- //
+	/**
+	 * Writes an encoded block, preceded by its row count, length, compression
+	 * and decompressed length, and followed by its checksum.
+	 *
+	 * @param channel the channel being written to.
+	 * @param out the output buffer for the channel.
+	 * @param block the encoded block, compressed or not.
+	 * @param compression the compression of the block.
+	 * @param rawLength the length of the block before compression.
+	 * @param noRows the number of rows in the block.
+	 * @since 0.9
+	 */
+	private void writeBlock (FileChannel channel, ByteBuffer out,
+		ByteBuffer block, Compression compression, int rawLength, int noRows)
+		throws IOException {
+
+		CRC32 crc = new CRC32();
+		crc.update(block.array(), 0, block.limit());
+
+		ensure(channel, out, 13);
+		out.putInt(noRows);
+		out.putInt(block.limit());
+		out.put(compression.id);
+		out.putInt(rawLength);
+
+		if (block.limit() <= out.remaining()) {
+			out.put(block);
+		} else {
+			flush(channel, out);
+			while (block.hasRemaining()) {
+				channel.write(block);
+			}
+		}
+
+		ensure(channel, out, 4);
+		out.putInt((int) crc.getValue());
 
-	DataFile (String dataDirectory) {
-		this.dataDir = dataDirectory;
 	}
 
-	// ----- Main ----- //
+	/**
+	 * Writes a length-prefixed UTF-8 string to the output buffer.
+	 *
+	 * @param channel the channel being written to.
+	 * @param out the output buffer for the channel.
+	 * @param value the string to be written.
+	 * @since 0.9
+	 */
+	private void putString (FileChannel channel, ByteBuffer out, String value)
+		throws IOException {
 
-	public static void main(String[] args) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		ensure(channel, out, 4);
+		out.putInt(bytes.length);
 
-		DataFile file = new DataFile("bin/data/");
+		ByteBuffer source = ByteBuffer.wrap(bytes);
+
+		while (source.hasRemaining()) {
+			ensure(channel, out, 1);
+			int chunk = Math.min(out.remaining(), source.remaining());
+			ByteBuffer slice = source.slice();
+			slice.limit(chunk);
+			out.put(slice);
+			source.position(source.position() + chunk);
+		}
+
+	}
+
+	/**
+	 * Makes room in the output buffer, writing it to the channel if needed.
+	 *
+	 * @param channel the channel being written to.
+	 * @param out the output buffer for the channel.
+	 * @param bytes the number of bytes needed.
+	 * @since 0.9
+	 */
+	private void ensure (FileChannel channel, ByteBuffer out, int bytes)
+		throws IOException {
+
+		if (out.remaining() < bytes) {
+			flush(channel, out);
+		}
+
+	}
+
+	/**
+	 * Writes everything held in the output buffer to the channel.
+	 *
+	 * @param channel the channel being written to.
+	 * @param out the output buffer for the channel.
+	 * @since 0.9
+	 */
+	private void flush (FileChannel channel, ByteBuffer out)
+		throws IOException {
+
+		out.flip();
+
+		while (out.hasRemaining()) {
+			channel.write(out);
+		}
+
+		out.clear();
+
+	}
+
+	/**
+	 * Reads a table from file. Tables still held in the legacy serialized
+	 * format are converted as they are read.
+	 *
+	 * @param tableName the name of the file containing the Table object.
+	 * @return the Table object that has been read in.
+	 * @since 0.3
+	 */
+	Table readTable (String tableName)
+		throws IOException, ClassNotFoundException {
+		return readTable(tableName, false);
+	}
+
+	/**
+	 * Reads a table from file, optionally holding its values outside the
+	 * heap.
+	 *
+	 * @param tableName the name of the file containing the Table object.
+	 * @param offHeap whether the table's values are held outside the heap.
+	 * @return the Table object that has been read in.
+	 * @since 0.9
+	 */
+	Table readTable (String tableName, boolean offHeap)
+		throws IOException, ClassNotFoundException {
+
+		Path path = tablePath(tableName, EXTENSION);
+
+		if (!Files.exists(path) &&
+			Files.exists(tablePath(tableName, LEGACY_EXTENSION))) {
+			return readLegacyTable(tableName, offHeap);
+		}
+
+		try (FileChannel channel = FileChannel.open(path,
+			StandardOpenOption.READ)) {
+
+			ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+			in.flip();
+
+			Header header = readHeader(channel, in, tableName);
+			int noCols = header.columns.length;
+
+			ArrayList<Column> data = new ArrayList<Column>(noCols);
+
+			for (int i = 0; i < noCols; i++) {
+				if (header.dictionaries[i] != null) {
+					data.add(new DictionaryColumn(header.dictionaries[i]));
+				} else if (header.types[i] != Type.STRING) {
+					data.add(TypedColumn.of(header.types[i]));
+				} else {
+					data.add(offHeap ? new OffHeapColumn() :
+						new StringColumn());
+				}
+			}
+
+			BlockBuffer block = new BlockBuffer();
+			int noRows;
+
+			while ((noRows = readBlock(channel, in, header, block,
+				tableName)) > 0) {
+				decodeBlock(block.data, noRows, data, tableName);
+			}
+
+			Table table = new Table(header.columns, data);
+			table.sequence = header.sequence;
+			table.compression = header.compression;
+			createIndexes(table, header, tableName);
+			table.markSaved();
+
+			return table;
+
+		}
+
+	}
+
+	/**
+	 * Reads the next block of rows from a table file, checking its checksum
+	 * and decompressing it if needed.
+	 *
+	 * @param channel the channel being read from.
+	 * @param in the input buffer for the channel.
+	 * @param header the header of the file.
+	 * @param block the buffers to read the block into.
+	 * @param tableName the name of the table.
+	 * @return the number of rows in the block, or 0 at the end of the file.
+	 * @since 0.9
+	 */
+	private int readBlock (FileChannel channel, ByteBuffer in, Header header,
+		BlockBuffer block, String tableName) throws IOException {
+
+		fill(channel, in, 4);
+		int noRows = in.getInt();
+
+		if (noRows == 0) {
+			return 0;
+		}
+
+		fill(channel, in, 4);
+		int length = in.getInt();
+		Compression compression = Compression.NONE;
+		int rawLength = length;
+
+		if (header.version >= 3) {
+			fill(channel, in, 5);
+			compression = compression(in.get(), tableName);
+			rawLength = in.getInt();
+		}
+
+		if (block.payload.length < length) {
+			block.payload = new byte[length];
+		}
+
+		read(channel, in, block.payload, length);
+		fill(channel, in, 4);
+
+		CRC32 crc = new CRC32();
+		crc.update(block.payload, 0, length);
+
+		if (in.getInt() != (int) crc.getValue()) {
+			throw new IOException(
+				"Checksum mismatch in table file: " + tableName);
+		}
+
+		if (compression == Compression.NONE) {
+			block.data = block.payload;
+		} else {
+
+			if (block.raw.length < rawLength) {
+				block.raw = new byte[rawLength];
+			}
+
+			decompress(compression, block.payload, length, block.raw,
+				rawLength, tableName);
+			block.data = block.raw;
 
-		try {
-			file.testDataFile();
-			System.out.println("DataFile tests complete.\n");
-		} catch (Exception e) {
-			e.printStackTrace();
 		}
 
+		return noRows;
+
 	}
-	
+
+	/**
+	 * Opens a cursor that reads a table straight from its file, one block at
+	 * a time, without reading the whole table into memory. Tables in the
+	 * legacy format have no blocks, and are read in first.
+	 *
+	 * @param tableName the name of the table.
+	 * @param selected the indices of the columns to be read.
+	 * @return the cursor, positioned before the first row.
+	 * @since 0.9
+	 */
+	Cursor openCursor (String tableName, int[] selected)
+		throws IOException, ClassNotFoundException {
+
+		Path path = tablePath(tableName, EXTENSION);
+
+		if (!Files.exists(path) &&
+			Files.exists(tablePath(tableName, LEGACY_EXTENSION))) {
+			return readLegacyTable(tableName, false).cursor(selected);
+		}
+
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		try {
+
+			ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+			in.flip();
+
+			Header header = readHeader(channel, in, tableName);
+
+			for (int column : selected) {
+				if (column < 0 || column >= header.columns.length) {
+					throw new IOException("No such column.");
+				}
+			}
+
+			return new BlockCursor(channel, in, header, selected, tableName);
+
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+
+	}
+
+	/**
+	 * Maps a table file into memory instead of reading it. Only the position
+	 * of each value is read onto the heap, and values are decoded from the
+	 * mapped file when they are used. Columns held as dictionaries, and typed
+	 * columns, are read onto the heap, as they are already small. Tables in
+	 * the legacy format, tables that are compressed, or too large to be
+	 * mapped in one piece, are read in as normal.
+	 *
+	 * @param tableName the name of the table.
+	 * @return the Table object backed by the mapped file.
+	 * @since 0.9
+	 */
+	Table mapTable (String tableName)
+		throws IOException, ClassNotFoundException {
+
+		Path path = tablePath(tableName, EXTENSION);
+
+		if (!Files.exists(path) || Files.size(path) > Integer.MAX_VALUE) {
+			return readTable(tableName);
+		}
+
+		MappedByteBuffer buffer;
+
+		try (FileChannel channel = FileChannel.open(path,
+			StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+				channel.size());
+		}
+
+		try {
+
+			Header header = readHeader(null, buffer, tableName);
+			int noCols = header.columns.length;
+
+			if (header.compression != Compression.NONE) {
+				return readTable(tableName);
+			}
+
+			int[][] offsets = new int[noCols][BLOCK_ROWS];
+			DictionaryColumn[] codes = new DictionaryColumn[noCols];
+			TypedColumn[] typed = new TypedColumn[noCols];
+			int size = 0;
+			int noRows;
+
+			for (int i = 0; i < noCols; i++) {
+				if (header.dictionaries[i] != null) {
+					codes[i] = new DictionaryColumn(header.dictionaries[i]);
+				} else if (header.types[i] != Type.STRING) {
+					typed[i] = TypedColumn.of(header.types[i]);
+				}
+			}
+
+			while ((noRows = buffer.getInt()) != 0) {
+
+				int length = buffer.getInt();
+
+				if (header.version >= 3 &&
+					compression(buffer.get(), tableName) != Compression.NONE) {
+					throw new IOException(
+						"Compressed block in uncompressed table: " + tableName);
+				} else if (header.version >= 3) {
+					buffer.getInt();
+				}
+
+				int start = buffer.position();
+
+				ByteBuffer block = buffer.duplicate();
+				block.limit(start + length);
+				CRC32 crc = new CRC32();
+				crc.update(block);
+
+				if (buffer.getInt(start + length) != (int) crc.getValue()) {
+					throw new IOException(
+						"Checksum mismatch in table file: " + tableName);
+				}
+
+				if (offsets[0].length < size + noRows) {
+					for (int i = 0; i < noCols; i++) {
+						offsets[i] = Arrays.copyOf(offsets[i],
+							Math.max(offsets[i].length * 2, size + noRows));
+					}
+				}
+
+				int position = start;
+
+				for (int i = 0; i < noCols; i++) {
+
+					if (typed[i] != null) {
+						ByteBuffer values = buffer.duplicate();
+						values.position(position);
+						typed[i].decode(values, noRows);
+						position = values.position();
+						continue;
+					}
+
+					for (int row = size; row < size + noRows; row++) {
+
+						if (codes[i] == null) {
+							offsets[i][row] = position;
+							position += 4 +
+								Math.max(buffer.getInt(position), 0);
+						} else if (codes[i].addCode(buffer.getInt(position))) {
+							position += 4;
+						} else {
+							throw new IOException(
+								"Invalid dictionary code in table file: " +
+								tableName);
+						}
+
+					}
+				}
+
+				size += noRows;
+				buffer.position(start + length + 4);
+
+			}
+
+			ArrayList<Column> data = new ArrayList<Column>(noCols);
+
+			for (int i = 0; i < noCols; i++) {
+				if (codes[i] != null) {
+					data.add(codes[i]);
+				} else if (typed[i] != null) {
+					data.add(typed[i]);
+				} else {
+					data.add(new MappedColumn(buffer, offsets[i], size));
+				}
+			}
+
+			Table table = new Table(header.columns, data);
+			table.sequence = header.sequence;
+			createIndexes(table, header, tableName);
+			table.markSaved();
+
+			return table;
+
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new EOFException("Table file ended unexpectedly.");
+		}
+
+	}
+
+	/**
+	 * Reads only the header of a table file, i.e. its column catalog, without
+	 * reading any rows.
+	 *
+	 * @param tableName the name of the table.
+	 * @return the contents of the header, or null if the table is held in
+	 * the legacy format, which has no separate header.
+	 * @since 0.9
+	 */
+	Header readHeader (String tableName) throws IOException {
+
+		Path path = tablePath(tableName, EXTENSION);
+
+		if (!Files.exists(path) &&
+			Files.exists(tablePath(tableName, LEGACY_EXTENSION))) {
+			return null;
+		}
+
+		try (FileChannel channel = FileChannel.open(path,
+			StandardOpenOption.READ)) {
+
+			ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+			in.flip();
+
+			return readHeader(channel, in, tableName);
+
+		}
+
+	}
+
+	/**
+	 * Reads the header at the start of a table file. Files written in version
+	 * 1 of the format have no sequence number, files written before version 3
+	 * are not compressed, files written before version 4 have no
+	 * dictionaries, files written before version 5 have no types, files
+	 * written before version 6 have no indexes, and files written in version
+	 * 6 have only hash indexes.
+	 *
+	 * @param channel the channel being read from, or null if the whole file
+	 * is already in the buffer.
+	 * @param in the input buffer for the channel.
+	 * @param tableName the name of the table.
+	 * @return the contents of the header.
+	 * @since 0.9
+	 */
+	private Header readHeader (FileChannel channel, ByteBuffer in,
+		String tableName) throws IOException {
+
+		fill(channel, in, 6);
+
+		if (in.getInt() != MAGIC) {
+			throw new IOException("Not a table file: " + tableName);
+		}
+
+		Header header = new Header();
+		header.version = in.getShort();
+
+		if (header.version < 1 || header.version > VERSION) {
+			throw new IOException(
+				"Unsupported table file version " + header.version + ": " +
+				tableName);
+		}
+
+		if (header.version >= 2) {
+			fill(channel, in, 8);
+			header.sequence = in.getLong();
+		}
+
+		if (header.version >= 3) {
+			fill(channel, in, 1);
+			header.compression = compression(in.get(), tableName);
+		}
+
+		fill(channel, in, 4);
+		header.columns = new String[in.getInt()];
+
+		for (int i = 0; i < header.columns.length; i++) {
+			header.columns[i] = getString(channel, in);
+		}
+
+		header.dictionaries = new String[header.columns.length][];
+		header.types = new Type[header.columns.length];
+		Arrays.fill(header.types, Type.STRING);
+
+		for (int i = 0; i < header.columns.length && header.version >= 4;
+			i++) {
+
+			fill(channel, in, 1);
+			byte encoding = in.get();
+
+			if (encoding == DICTIONARY) {
+
+				fill(channel, in, 4);
+				header.dictionaries[i] = new String[in.getInt()];
+
+				for (int code = 0; code < header.dictionaries[i].length;
+					code++) {
+					header.dictionaries[i][code] = getString(channel, in);
+				}
+
+			} else if (encoding == TYPED) {
+				fill(channel, in, 1);
+				header.types[i] = type(in.get(), tableName);
+			} else if (encoding != PLAIN) {
+				throw new IOException("Unknown column encoding " + encoding +
+					": " + tableName);
+			}
+
+		}
+
+		header.indexes = new String[0];
+		header.ordered = new boolean[0];
+
+		if (header.version >= 6) {
+
+			fill(channel, in, 4);
+			header.indexes = new String[in.getInt()];
+			header.ordered = new boolean[header.indexes.length];
+
+			for (int i = 0; i < header.indexes.length; i++) {
+
+				header.indexes[i] = getString(channel, in);
+
+				if (header.version >= 7) {
+					fill(channel, in, 1);
+					header.ordered[i] = in.get() == ORDERED_INDEX;
+				}
+
+			}
+
+		}
+
+		return header;
+
+	}
+
+	/**
+	 * Rebuilds the indexes named in the header of a table file.
+	 *
+	 * @param table the table read from the file.
+	 * @param header the header of the file.
+	 * @param tableName the name of the table.
+	 * @since 0.9
+	 */
+	private static void createIndexes (Table table, Header header,
+		String tableName) throws IOException {
+
+		for (int i = 0; i < header.indexes.length; i++) {
+			try {
+				table.createIndex(header.indexes[i], header.ordered[i]);
+			} catch (Exception e) {
+				throw new IOException("Invalid index on '" +
+					header.indexes[i] + "': " + tableName);
+			}
+		}
+
+	}
+
+	/**
+	 * Decodes the values of a block of rows and adds them to the columns.
+	 *
+	 * @param payload the encoded block.
+	 * @param noRows the number of rows in the block.
+	 * @param data the columns being read into.
+	 * @param tableName the name of the table.
+	 * @since 0.9
+	 */
+	private void decodeBlock (byte[] payload, int noRows,
+		ArrayList<Column> data, String tableName) throws IOException {
+
+		ByteBuffer block = ByteBuffer.wrap(payload);
+
+		for (Column column : data) {
+
+			if (column instanceof DictionaryColumn) {
+
+				for (int i = 0; i < noRows; i++) {
+					if (!((DictionaryColumn) column).addCode(block.getInt())) {
+						throw new IOException(
+							"Invalid dictionary code in table file: " +
+							tableName);
+					}
+				}
+
+				continue;
+
+			} else if (column instanceof TypedColumn) {
+				((TypedColumn) column).decode(block, noRows);
+				continue;
+			}
+
+			for (int i = 0; i < noRows; i++) {
+
+				int length = block.getInt();
+
+				if (length < 0) {
+					column.add(null);
+				} else {
+					int start = block.position();
+					column.add(new String(payload, start, length,
+						StandardCharsets.UTF_8));
+					block.position(start + length);
+				}
+
+			}
+
+		}
+
+	}
+
+	/**
+	 * Reads a length-prefixed UTF-8 string from the input buffer.
+	 *
+	 * @param channel the channel being read from.
+	 * @param in the input buffer for the channel.
+	 * @return the string that was read.
+	 * @since 0.9
+	 */
+	private String getString (FileChannel channel, ByteBuffer in)
+		throws IOException {
+
+		fill(channel, in, 4);
+		byte[] bytes = new byte[in.getInt()];
+		read(channel, in, bytes, bytes.length);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+
+	}
+
+	/**
+	 * Makes sure the input buffer holds at least a given number of bytes,
+	 * reading more from the channel if needed.
+	 *
+	 * @param channel the channel being read from, or null if the whole file
+	 * is already in the buffer.
+	 * @param in the input buffer for the channel.
+	 * @param bytes the number of bytes needed.
+	 * @since 0.9
+	 */
+	private void fill (FileChannel channel, ByteBuffer in, int bytes)
+		throws IOException {
+
+		if (in.remaining() >= bytes) {
+			return;
+		} else if (channel == null) {
+			throw new EOFException("Table file ended unexpectedly.");
+		}
+
+		in.compact();
+
+		while (in.position() < bytes) {
+			if (channel.read(in) < 0) {
+				throw new EOFException("Table file ended unexpectedly.");
+			}
+		}
+
+		in.flip();
+
+	}
+
+	/**
+	 * Reads a number of bytes into an array, through the input buffer.
+	 *
+	 * @param channel the channel being read from.
+	 * @param in the input buffer for the channel.
+	 * @param bytes the array being read into.
+	 * @param length the number of bytes to read.
+	 * @since 0.9
+	 */
+	private void read (FileChannel channel, ByteBuffer in, byte[] bytes,
+		int length) throws IOException {
+
+		int done = 0;
+
+		while (done < length) {
+
+			if (!in.hasRemaining()) {
+				fill(channel, in, 1);
+			}
+
+			int chunk = Math.min(in.remaining(), length - done);
+			in.get(bytes, done, chunk);
+			done += chunk;
+
+		}
+
+	}
+
+	/**
+	 * Reads a table written by Java serialization in versions before 0.9,
+	 * mapping the serialized classes onto stand-ins with the same layout.
+	 *
+	 * @param tableName the name of the table.
+	 * @param offHeap whether the table's values are held outside the heap.
+	 * @return the Table object that has been read in.
+	 * @since 0.9
+	 */
+	private Table readLegacyTable (String tableName, boolean offHeap)
+		throws IOException, ClassNotFoundException {
+
+		byte[] bytes = Files.readAllBytes(
+			tablePath(tableName, LEGACY_EXTENSION));
+
+		try (ObjectInputStream objectIn = new LegacyInputStream(
+			new ByteArrayInputStream(bytes))) {
+
+			LegacyTable legacy = (LegacyTable) objectIn.readObject();
+			Table table = new Table(legacy.columns.toArray(
+				new String[legacy.columns.size()]), offHeap);
+
+			for (LegacyRecord record : legacy.rows) {
+				table.addRow(record.values.toArray(
+					new String[record.values.size()]));
+			}
+
+			return table;
+
+		} catch (IOException | ClassNotFoundException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException("Legacy table file is invalid: " +
+				tableName, e);
+		}
+
+	}
+
+	/**
+	 * Removes a table file from disk.
+	 *
+	 * @param tableName the name of the file containing the Table object.
+	 * @since 0.6
+	 */
+	void deleteTable (String tableName) throws IOException {
+
+		File tableFile = new File(dataDir + tableName + EXTENSION);
+		File legacyFile = new File(dataDir + tableName + LEGACY_EXTENSION);
+
+		try {
+			tableFile.delete();
+			legacyFile.delete();
+		} catch (SecurityException e) {
+			throw new IOException("File could not be deleted.");
+		}
+
+	}
+
+	/**
+	 * Forces the data directory to disk, so that the files renamed into it
+	 * or deleted from it since it was last synced stay that way after a
+	 * crash. Some platforms cannot open a directory to sync it, and there
+	 * the changes are left to the file system.
+	 *
+	 * @since 0.9
+	 */
+	void sync () throws IOException {
+
+		FileChannel directory;
+
+		try {
+			directory = FileChannel.open(Paths.get(dataDir),
+				StandardOpenOption.READ);
+		} catch (IOException e) {
+			return;
+		}
+
+		try (FileChannel channel = directory) {
+			channel.force(true);
+		}
+
+	}
+
+	/**
+	 * Get the names of all the tables stored in files.
+	 *
+	 * @return the table names as Strings in an array.
+	 * @since 0.5
+	 */
+	String[] listTables () throws IOException {
+
+		File dataDirectory = new File(dataDir);
+		String[] files = dataDirectory.list();
+
+		if (files == null) {
+			throw new IOException("Data directory could not be read.");
+		}
+
+		LinkedHashSet<String> tables = new LinkedHashSet<String>();
+
+		for (String file : files) {
+			if (file.endsWith(EXTENSION)) {
+				tables.add(file.substring(0, file.lastIndexOf('.')));
+			} else if (file.endsWith(LEGACY_EXTENSION)) {
+				tables.add(file.substring(0, file.lastIndexOf('.')));
+			}
+		}
+
+		return tables.toArray(new String[tables.size()]);
+
+	}
+
+	// ----- Header ----- //
+
+	/**
+	 * The contents of the header at the start of a table file.
+	 *
+	 * @since 0.9
+	 */
+	static class Header {
+		short version;
+		long sequence;
+		Compression compression = Compression.NONE;
+		String[] columns;
+		String[][] dictionaries;
+		Type[] types;
+		String[] indexes;
+		boolean[] ordered;
+	}
+
+	// ----- Block Cursor ----- //
+
+	/**
+	 * The buffers a block is read into, kept between blocks so they can be
+	 * reused.
+	 *
+	 * @since 0.9
+	 */
+	private static class BlockBuffer {
+		byte[] payload = new byte[BUFFER_SIZE];
+		byte[] raw = new byte[0];
+		byte[] data;
+	}
+
+	/**
+	 * A cursor that reads a table from its file, holding one block of rows
+	 * at a time. Only the selected columns of each block are decoded.
+	 *
+	 * @since 0.9
+	 */
+	private class BlockCursor extends Cursor {
+
+		private FileChannel channel;
+		private ByteBuffer in;
+		private Header header;
+		private BlockBuffer block;
+		private int[] selected;
+		private boolean[] wanted;
+		private String[][] values;
+		private String tableName;
+		private int noRows;
+		private int row;
+
+		@Override
+		public boolean hasNext () {
+
+			if (row < noRows) {
+				return true;
+			} else if (!channel.isOpen()) {
+				return false;
+			}
+
+			try {
+
+				noRows = readBlock(channel, in, header, block, tableName);
+				row = 0;
+
+				if (noRows == 0) {
+					channel.close();
+					return false;
+				}
+
+				decode();
+
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+
+			return true;
+
+		}
+
+		/**
+		 * Decodes the selected columns of the current block, and skips over
+		 * the rest.
+		 *
+		 * @since 0.9
+		 */
+		private void decode () {
+
+			ByteBuffer data = ByteBuffer.wrap(block.data);
+
+			for (int col = 0; col < values.length; col++) {
+
+				if (wanted[col] && (values[col] == null ||
+					values[col].length < noRows)) {
+					values[col] = new String[noRows];
+				}
+
+				String[] dictionary = header.dictionaries[col];
+
+				if (header.types[col] != Type.STRING) {
+
+					TypedColumn typed = TypedColumn.of(header.types[col]);
+					typed.decode(data, noRows);
+
+					for (int i = 0; i < noRows && wanted[col]; i++) {
+						values[col][i] = typed.get(i);
+					}
+
+					continue;
+
+				}
+
+				for (int i = 0; i < noRows && dictionary != null; i++) {
+					int code = data.getInt();
+					if (wanted[col]) {
+						values[col][i] = code == DictionaryColumn.NULL ?
+							null : dictionary[code];
+					}
+				}
+
+				for (int i = 0; i < noRows && dictionary == null; i++) {
+
+					int length = data.getInt();
+					int start = data.position();
+
+					if (wanted[col]) {
+						values[col][i] = length < 0 ? null : new String(
+							block.data, start, length, StandardCharsets.UTF_8);
+					}
+
+					data.position(start + Math.max(length, 0));
+
+				}
+
+			}
+
+		}
+
+		@Override
+		public String[] next () {
+
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			String[] values = new String[selected.length];
+
+			for (int i = 0; i < selected.length; i++) {
+				values[i] = this.values[selected[i]][row];
+			}
+
+			row++;
+
+			return values;
+
+		}
+
+		@Override
+		public void close () throws IOException {
+			noRows = 0;
+			channel.close();
+		}
+
+		BlockCursor (FileChannel channel, ByteBuffer in, Header header,
+			int[] selected, String tableName) {
+
+			this.channel = channel;
+			this.in = in;
+			this.header = header;
+			this.block = new BlockBuffer();
+			this.selected = selected;
+			this.wanted = new boolean[header.columns.length];
+			this.values = new String[header.columns.length][];
+			this.tableName = tableName;
+			this.noRows = 0;
+			this.row = 0;
+
+			for (int column : selected) {
+				wanted[column] = true;
+			}
+
+		}
+
+	}
+
+	// ----- Legacy Format ----- //
+
+	/**
+	 * Reads objects written by versions before 0.9, replacing the descriptors
+	 * of the serialized classes with those of their stand-ins.
+	 *
+	 * @since 0.9
+	 */
+	private static class LegacyInputStream extends ObjectInputStream {
+
+		LegacyInputStream (InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected ObjectStreamClass readClassDescriptor ()
+			throws IOException, ClassNotFoundException {
+
+			ObjectStreamClass desc = super.readClassDescriptor();
+
+			switch (desc.getName()) {
+				case "db.Table":
+					return ObjectStreamClass.lookup(LegacyTable.class);
+				case "db.Record":
+					return ObjectStreamClass.lookup(LegacyRecord.class);
+				case "db.Printer":
+					return ObjectStreamClass.lookup(LegacyPrinter.class);
+				default:
+					return desc;
+			}
+
+		}
+
+	}
+
+	/**
+	 * Matches the serialized layout of Table before 0.9.
+	 *
+	 * @since 0.9
+	 */
+	private static class LegacyTable implements java.io.Serializable {
+		private static final long serialVersionUID = 4493048606778524913L;
+		private ArrayList<String> columns;
+		private LinkedList<LegacyRecord> rows;
+		private LegacyPrinter print;
+	}
+
+	/**
+	 * Matches the serialized layout of Record before 0.9.
+	 *
+	 * @since 0.9
+	 */
+	private static class LegacyRecord implements java.io.Serializable {
+		private static final long serialVersionUID = -1867637775035511213L;
+		private ArrayList<String> values;
+	}
+
+	/**
+	 * Matches the serialized layout of Printer before 0.9.
+	 *
+	 * @since 0.9
+	 */
+	private static class LegacyPrinter implements java.io.Serializable {
+		private static final long serialVersionUID = -8972533255199803283L;
+		private LegacyTable table;
+	}
+
+	// ----- Constructor ----- //
+
+	DataFile (String dataDirectory) {
+		this.dataDir = dataDirectory;
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		DataFile file = new DataFile("bin/data/");
+
+		try {
+			file.testDataFile();
+			System.out.println("DataFile tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
 }
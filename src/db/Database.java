@@ -1,7 +1,19 @@
 package db;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.io.IOException;
 import java.util.Arrays;
 import java.io.File;
@@ -18,6 +30,12 @@ public class Database {
 
 	private Map<String, Table> tables;
 	private String dataDir;
+	private Options options;
+	private LogFile log;
+	private Set<String> dropped;
+	private LinkedHashSet<String> resident;
+	private Map<String, Integer> pinned;
+	private long catalogSequence;
 	public Query query;
 	public Schema schema;
 
@@ -46,12 +64,14 @@ public class Database {
 		assert tables.containsKey("testTableTwo") : "Table not added correctly";
 
 		writeTables();
-		File testFileOne = new File(dataDir + "testTableOne.ser");
-		File testFileTwo = new File(dataDir + "testTableTwo.ser"); 
+		File testFileOne = new File(dataDir + "testTableOne.tbl");
+		File testFileTwo = new File(dataDir + "testTableTwo.tbl");
 		assert testFileOne.exists() && testFileTwo.exists():
 			"Data file not written correctly.";
 
 		tables.clear();
+		resident.clear();
+		schema = new Schema();
 		buildTables();
 		assert tables.containsKey("testTableOne") &&
 			tables.containsKey("testTableTwo") : "Tables not built correctly";
@@ -59,61 +79,583 @@ public class Database {
 		assert Arrays.equals(columnsOne, tableOne.getColumns()) : "Table not " +
 			"built correctly.";
 
+		Options mappedOptions = new Options();
+		mappedOptions.mapped = true;
+		Database mapped = new Database(dataDir, mappedOptions);
+		assert Arrays.equals(columnsTwo,
+			mapped.getTable("testTableTwo").getColumns()) :
+			"Tables not mapped correctly.";
+
+		Options lazyOptions = new Options();
+		lazyOptions.lazy = true;
+		lazyOptions.residentTables = 1;
+		Database lazy = new Database(dataDir, lazyOptions);
+		assert lazy.tables.containsKey("testTableOne") &&
+			lazy.tables.get("testTableOne") == null : "Table loaded eagerly.";
+		assert Arrays.equals(lazy.schema.table("testTableOne"), columnsOne) :
+			"Catalog not read for lazy table.";
+		try (Cursor cursor = lazy.query.scan("testTableOne", columnsOne)) {
+			assert !cursor.hasNext() && lazy.tables.get("testTableOne") == null :
+				"Table loaded to be scanned.";
+		}
+		assert Arrays.equals(lazy.getTable("testTableOne").getColumns(),
+			columnsOne) : "Lazy table not loaded on use.";
+		lazy.getTable("testTableTwo");
+		assert lazy.tables.get("testTableOne") == null &&
+			lazy.tables.get("testTableTwo") != null :
+			"Least recently used table not unloaded.";
+		lazy.query.insert("testTableTwo", new String[] {"a", "b", "c"});
+		lazy.getTable("testTableOne");
+		assert lazy.tables.get("testTableTwo") != null :
+			"Table with unsaved changes unloaded.";
+		Database pinning = new Database(dataDir, lazyOptions);
+		Table pinnedTable = pinning.pin("testTableOne");
+		pinning.getTable("testTableTwo");
+		assert pinning.tables.get("testTableOne") == pinnedTable :
+			"Pinned table unloaded.";
+		pinning.unpin("testTableOne");
+		pinning.getTable("testTableTwo");
+		assert pinning.tables.get("testTableOne") == null :
+			"Unpinned table kept loaded.";
+
+		File badFile = new File(dataDir + "badTable.tbl");
+		java.nio.file.Files.write(badFile.toPath(), new byte[] {1, 2, 3, 4});
+		try {
+			new Database(dataDir);
+			assert false : "Bad table file should not be loaded.";
+		} catch (Exception e) {
+			assert e.getMessage().startsWith("Could not load tables: " +
+				"badTable (") : "Failed table not reported clearly.";
+		}
+		badFile.delete();
+
+		assert commit().tables == 0 : "Unchanged tables written.";
+		query.insert("testTableTwo", new String[] {"one", "two", "three"});
+		CommitStats stats = commit();
+		assert stats.tables == 1 && stats.bytes > 0 :
+			"Changed table not written alone.";
+
 		dropTable("testTableOne");
 		assert !tables.containsKey("testTableOne") : "Table not dropped.";
 
+		Options offHeapOptions = new Options();
+		offHeapOptions.offHeap = true;
+		Database offHeap = new Database(dataDir, offHeapOptions);
+		assert offHeap.getTable("testTableTwo").column(0)
+			instanceof OffHeapColumn : "Table not read off the heap.";
+		offHeap.createTable("offHeapTable", columnsOne);
+		offHeap.query.insert("offHeapTable", new String[] {"a", "b", "c"});
+		assert Arrays.equals(offHeap.query.get("offHeapTable", "a"),
+			new String[] {"a", "b", "c"}) : "Off-heap row not read.";
+		offHeap.dropTable("offHeapTable");
+
 		String[] columnsThree = {"colSeven", "colEight", "colNine"};
 		createTable("testTableThree", columnsThree);
-		commit();
-		File testFileThree = new File(dataDir + "testTableThree.ser");
+		assert commit().tables == 1 : "Created table not written.";
+		File testFileThree = new File(dataDir + "testTableThree.tbl");
 		assert testFileThree.exists() : "Table not committed correctly.";
 		assert !testFileOne.exists() : "Dropped table not deleted on disk.";
 
+		compress("testTableThree", Compression.LZ4);
+		assert commit().tables == 1 : "Compressed table not written.";
+		assert new DataFile(dataDir).readHeader("testTableThree")
+			.compression == Compression.LZ4 : "Compression not saved.";
+
 		testFileOne.delete();
 		testFileTwo.delete();
 		testFileThree.delete();
 
+		String logDir = dataDir + "log/";
+		new File(logDir).mkdirs();
+		Options logOptions = new Options();
+		logOptions.log = true;
+
+		Database logged = new Database(logDir, logOptions);
+		logged.createTable("testTableFour", columnsOne);
+		logged.query.insert("testTableFour", new String[] {"one", "two", "3"});
+		logged.query.insert("testTableFour", new String[] {"four", "5", "6"});
+		logged.createTable("typedTable", new String[] {"id", "amount"},
+			new Type[] {Type.INT, Type.DOUBLE});
+		logged.query.add("typedTable", "paid", "false", Type.BOOLEAN);
+		logged.query.createIndex("testTableFour", "colThree");
+		logged.query.createIndex("testTableFour", "colOne", true);
+		logged.query.encode("testTableFour", "colTwo");
+		logged.compress("testTableFour", Compression.DEFLATE);
+		logged.commit();
+		assert !new File(logDir + "testTableFour.tbl").exists() :
+			"Table written before checkpoint.";
+		logged.query.update("testTableFour", "four", "colThree", "60");
+		try {
+			logged.query.insert("testTableFour", new String[] {"four", "5",
+				"6"});
+			assert false : "Duplicate key should be rejected.";
+		} catch (Exception e) {
+			if (!e.getMessage().startsWith("Primary key must be unique")) {
+				throw e;
+			}
+		}
+		try {
+			logged.query.delete("testTableFour", "missing");
+			assert false : "Missing row should not be deleted.";
+		} catch (Exception e) {
+			if (!e.getMessage().equals("Row does not exist.")) {
+				throw e;
+			}
+		}
+		logged.commit();
+		logged.query.delete("testTableFour", "one");
+		logged.close();
+
+		logged = new Database(logDir, logOptions);
+		Table replayed = logged.getTable("testTableFour");
+		assert replayed.noRecords() == 2 : "Log not replayed correctly.";
+		assert Arrays.equals(logged.schema.types("typedTable"), new Type[] {
+			Type.INT, Type.DOUBLE, Type.BOOLEAN}) : "Types not replayed.";
+		assert Arrays.equals(replayed.indexNames(), new String[] {"colThree",
+			"colOne"}) && replayed.lookup(2, "60").length == 1 &&
+			replayed.isOrdered("colOne") : "Indexes not replayed.";
+		assert replayed.column(1) instanceof DictionaryColumn :
+			"Encoding not replayed.";
+		assert replayed.compression == Compression.DEFLATE :
+			"Compression not replayed.";
+		logged.dropTable("typedTable");
+		logged.query.delete("testTableFour", "one");
+		logged.query.rename("testTableFour", "colTwo", "renamed");
+		logged.checkpoint();
+		assert new File(logDir + "testTableFour.tbl").exists() :
+			"Table not written on checkpoint.";
+		logged.query.insert("testTableFour", new String[] {"seven", "8", "9"});
+		logged.commit();
+		logged.close();
+
+		logged = new Database(logDir, logOptions);
+		replayed = logged.getTable("testTableFour");
+		assert replayed.noRecords() == 2 : "Checkpoint not replayed correctly.";
+		assert replayed.getColumns()[1].equals("renamed") :
+			"Checkpointed change not kept.";
+		assert Arrays.equals(logged.schema.indexes("testTableFour"),
+			new String[] {"colThree", "colOne"}) &&
+			replayed.isOrdered("colOne") : "Indexes not kept on checkpoint.";
+		assert logged.schema.isOrdered("testTableFour", "colOne") &&
+			!logged.schema.isOrdered("testTableFour", "colThree") :
+			"Ordered index not recorded in schema.";
+		logged.query.insert("testTableFour", new String[] {"ten", "11", "12"});
+		logged.commit();
+		logged.writeTables();
+		logged.close();
+
+		logged = new Database(logDir, logOptions);
+		assert logged.getTable("testTableFour").noRecords() == 3 :
+			"Changes already in table file replayed again.";
+		logged.dropTable("testTableFour");
+		logged.checkpoint();
+		logged.close();
+
+		for (File file : new File(logDir).listFiles()) {
+			file.delete();
+		}
+
 	}
 
 	/**
-	 * Creates all tables as objects in memory from the table data files.
+	 * Creates all tables as objects in memory from the table data files, and
+	 * adds them to the schema. If the database was opened lazily, only the
+	 * column catalog of each table is read, and the tables themselves are
+	 * loaded when first used. Files are read in parallel, one per task.
 	 * 
 	 * @since 0.5
 	 */
 	private void buildTables () throws Exception {
 
 		DataFile dataFile = new DataFile(dataDir);
-		String[] tableNames = dataFile.listTables();
+		List<String> tableNames;
+
+		try {
+			tableNames = Arrays.asList(dataFile.listTables());
+		} catch (IOException e) {
+			throw new Exception("Problem with database directory.", e);
+		}
+
+		List<String> toLoad = tableNames;
+
+		if (options.lazy) {
+
+			Map<String, DataFile.Header> headers = eachTable(tableNames,
+				name -> dataFile.readHeader(name), "Could not read tables:");
+			toLoad = new ArrayList<>();
+
+			for (String tableName : tableNames) {
+
+				DataFile.Header header = headers.get(tableName);
+
+				if (header != null) {
+					tables.put(tableName, null);
+					schema.createTable(tableName, header.columns,
+						header.types);
+					for (int i = 0; i < header.indexes.length; i++) {
+						schema.addIndex(tableName, header.indexes[i],
+							header.ordered[i]);
+					}
+					catalogSequence = Math.max(catalogSequence,
+						header.sequence);
+				} else {
+					toLoad.add(tableName);
+				}
+
+			}
 
-		for (String tableName : tableNames) {
-			Table table = dataFile.readTable(tableName);
-			tables.put(tableName, table);
 		}
 
+		Map<String, Table> loaded = eachTable(toLoad,
+			name -> readTable(dataFile, name), "Could not load tables:");
+
+		for (Map.Entry<String, Table> table : loaded.entrySet()) {
+			addLoaded(table.getKey(), table.getValue());
+			schema.createTable(table.getKey(), table.getValue().getColumns(),
+				table.getValue().types());
+			for (String index : table.getValue().indexNames()) {
+				schema.addIndex(table.getKey(), index,
+					table.getValue().isOrdered(index));
+			}
+		}
+
+	}
+
+	/**
+	 * Reads a single table from file, or maps it if the database was opened
+	 * with mapped tables.
+	 * 
+	 * @param dataFile the DataFile for the data directory.
+	 * @param tableName the name of the table.
+	 * @return the table that was read.
+	 * @since 0.9
+	 */
+	private Table readTable (DataFile dataFile, String tableName)
+		throws Exception {
+		return options.mapped ? dataFile.mapTable(tableName) :
+			dataFile.readTable(tableName, options.offHeap);
+	}
+
+	/**
+	 * Adds a table that has been read from file to the tables in memory.
+	 * 
+	 * @param tableName the name of the table.
+	 * @param table the table that was read.
+	 * @since 0.9
+	 */
+	private void addLoaded (String tableName, Table table) {
+		tables.put(tableName, table);
+		resident.add(tableName);
+		catalogSequence = Math.max(catalogSequence, table.sequence);
 	}
 
 	/**
-	 * Writes all the tables held in memory back to file, and deletes tables
-	 * that do not exist any more.
+	 * Runs a task for each of a set of tables, spread across up to the
+	 * configured number of threads. Every task is run even if some fail, and
+	 * the failures are then reported together, naming each table.
 	 * 
+	 * @param tableNames the names of the tables.
+	 * @param task the task to run for each table.
+	 * @param failure the start of the message reporting any failures.
+	 * @return the result of each task, by table name.
+	 * @since 0.9
+	 */
+	private <T> Map<String, T> eachTable (Collection<String> tableNames,
+		TableTask<T> task, String failure) throws Exception {
+
+		Map<String, T> results = new LinkedHashMap<>();
+		Map<String, Throwable> errors = new LinkedHashMap<>();
+		int threads = Math.min(options.parallelism, tableNames.size());
+
+		if (threads <= 1) {
+			for (String tableName : tableNames) {
+				try {
+					results.put(tableName, task.run(tableName));
+				} catch (Exception e) {
+					errors.put(tableName, e);
+				}
+			}
+		} else {
+
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			Map<String, Future<T>> futures = new LinkedHashMap<>();
+
+			try {
+				for (String tableName : tableNames) {
+					futures.put(tableName,
+						pool.submit(() -> task.run(tableName)));
+				}
+				for (Map.Entry<String, Future<T>> future : futures.entrySet()) {
+					try {
+						results.put(future.getKey(), future.getValue().get());
+					} catch (ExecutionException e) {
+						errors.put(future.getKey(), e.getCause());
+					}
+				}
+			} finally {
+				pool.shutdown();
+			}
+
+		}
+
+		if (!errors.isEmpty()) {
+
+			StringBuilder message = new StringBuilder(failure);
+
+			for (Map.Entry<String, Throwable> error : errors.entrySet()) {
+				message.append(" ").append(error.getKey()).append(" (")
+					.append(error.getValue().getMessage()).append(");");
+			}
+
+			Exception exception = new Exception(message.toString());
+
+			for (Throwable error : errors.values()) {
+				exception.addSuppressed(error);
+			}
+
+			throw exception;
+
+		}
+
+		return results;
+
+	}
+
+	/**
+	 * Unloads the least recently used tables while more are held in memory
+	 * than allowed, or while too much of the heap is in use. Only tables with
+	 * no unsaved changes are unloaded, as they can be read again from file,
+	 * and tables pinned by a running operation are kept.
+	 * 
+	 * @param inUse the name of a table that must stay loaded, may be null.
+	 * @since 0.9
+	 */
+	private void unloadTables (String inUse) {
+
+		Runtime runtime = Runtime.getRuntime();
+		Iterator<String> leastRecent = resident.iterator();
+
+		while (leastRecent.hasNext()) {
+
+			boolean tooMany = options.residentTables > 0 &&
+				resident.size() > options.residentTables;
+			boolean tooLarge = options.memoryThreshold > 0 &&
+				runtime.totalMemory() - runtime.freeMemory() >
+				options.memoryThreshold * runtime.maxMemory();
+
+			if (!tooMany && !tooLarge) {
+				return;
+			}
+
+			String name = leastRecent.next();
+
+			if (!name.equals(inUse) && !pinned.containsKey(name) &&
+				!tables.get(name).isDirty()) {
+				tables.put(name, null);
+				leastRecent.remove();
+			}
+
+		}
+
+	}
+
+	/**
+	 * Applies the committed changes recorded in the write-ahead log. Changes
+	 * already included in a table file, because they were checkpointed before
+	 * the log was emptied, are skipped.
+	 *
+	 * @param logFile the log being replayed.
+	 * @since 0.9
+	 */
+	private void replay (LogFile logFile) throws Exception {
+
+		for (LogFile.Entry entry : logFile.read()) {
+
+			Table table = tables.containsKey(entry.table) ?
+				getTable(entry.table) : null;
+
+			if (table != null && table.sequence >= entry.sequence) {
+				continue;
+			}
+
+			String[] args = entry.args;
+
+			try {
+				switch (entry.op) {
+					case LogFile.CREATE_TABLE:
+						if (table == null) {
+							int noCols = args.length / 2;
+							Type[] types = new Type[noCols];
+							for (int i = 0; i < noCols; i++) {
+								types[i] = Type.valueOf(args[noCols + i]);
+							}
+							createTable(entry.table,
+								Arrays.copyOf(args, noCols), types);
+						}
+						break;
+					case LogFile.DROP_TABLE:
+						if (table != null) {
+							dropTable(entry.table);
+						}
+						break;
+					case LogFile.INSERT:
+						query.insert(entry.table, args);
+						break;
+					case LogFile.DELETE:
+						query.delete(entry.table, args[0]);
+						break;
+					case LogFile.UPDATE:
+						Map<String, String> assignments =
+							new LinkedHashMap<String, String>();
+						for (int i = 1; i + 1 < args.length; i += 2) {
+							assignments.put(args[i], args[i + 1]);
+						}
+						query.update(entry.table, args[0], assignments);
+						break;
+					case LogFile.ADD_COLUMN:
+						query.add(entry.table, args[0], args[1],
+							Type.valueOf(args[2]));
+						break;
+					case LogFile.DROP_COLUMN:
+						query.dropColumn(entry.table, args[0]);
+						break;
+					case LogFile.RENAME_COLUMN:
+						query.rename(entry.table, args[0], args[1]);
+						break;
+					case LogFile.CREATE_INDEX:
+						query.createIndex(entry.table, args[0],
+							args.length > 1 && Boolean.parseBoolean(args[1]));
+						break;
+					case LogFile.DROP_INDEX:
+						query.dropIndex(entry.table, args[0]);
+						break;
+					case LogFile.ENCODE_COLUMN:
+						query.encode(entry.table, args[0]);
+						break;
+					case LogFile.COMPRESS:
+						compress(entry.table, Compression.valueOf(args[0]));
+						break;
+				}
+			} catch (Exception e) {
+				throw new Exception("Could not replay log entry " +
+					entry.sequence + ": " + e.getMessage(), e);
+			}
+
+			table = tables.get(entry.table);
+
+			if (table != null) {
+				table.sequence = entry.sequence;
+			}
+
+		}
+
+	}
+
+	/**
+	 * Records a change in the write-ahead log, if there is one, and marks
+	 * the table as including it.
+	 *
+	 * @param op the operation being logged.
+	 * @param tableName the name of the table being changed.
+	 * @param args the arguments of the operation.
+	 * @since 0.9
+	 */
+	void logged (byte op, String tableName, String... args) throws Exception {
+
+		if (log == null) {
+			return;
+		}
+
+		long sequence = log.append(op, tableName, args);
+		Table table = tables.get(tableName);
+
+		if (table != null) {
+			table.sequence = sequence;
+		}
+
+	}
+
+	/**
+	 * Writes the tables that have changed since they were last read or
+	 * written back to file, and deletes tables that do not exist any more.
+	 * Each file is replaced in one step, so a failed write leaves the old
+	 * file in place. Tables are written in parallel, one per task. The
+	 * directory is synced once every table has been written and again
+	 * once dropped tables are deleted, so after a crash the files on disk
+	 * are either the old set, the new tables with the dropped ones still
+	 * there, or the new set, never a deletion without the writes before it.
+	 * 
+	 * @return the number of tables and bytes written.
 	 * @since 0.5
 	 */
-	private void writeTables () throws IOException {
+	private CommitStats writeTables () throws Exception {
 
 		DataFile dataFile = new DataFile(dataDir);
+		List<String> dirty = new ArrayList<>();
 
 		for (Map.Entry<String, Table> table : tables.entrySet()) {
-			dataFile.saveTable(table.getValue(), table.getKey());
+			if (table.getValue() != null && table.getValue().isDirty()) {
+				dirty.add(table.getKey());
+			}
 		}
 
-		String[] tableNames = dataFile.listTables();
+		Map<String, Long> written = eachTable(dirty, name ->
+			dataFile.saveTable(tables.get(name), name),
+			"Could not write tables:");
+		long bytes = 0;
 
-		for (String tableName : tableNames) {
-			if (!tables.containsKey(tableName)) {
-				dataFile.deleteTable(tableName);
+		for (long tableBytes : written.values()) {
+			bytes += tableBytes;
+		}
+
+		dataFile.sync();
+
+		if (!dropped.isEmpty()) {
+
+			for (String tableName : dropped) {
+				if (!tables.containsKey(tableName)) {
+					dataFile.deleteTable(tableName);
+				}
 			}
+
+			dataFile.sync();
+			dropped.clear();
+
 		}
 
+		return new CommitStats(written.size(), bytes);
+
+	}
+
+	/**
+	 * Gets a table object by name, and keeps it loaded until it is unpinned.
+	 * An operation that holds more than one table at once, such as a join,
+	 * pins each of them, so that loading one cannot unload another it is
+	 * still using. A table may be pinned more than once, and stays pinned
+	 * until it has been unpinned as many times.
+	 * 
+	 * @param name name of the table to be retrieved.
+	 * @return the table.
+	 * @since 0.9
+	 */
+	Table pin (String name) throws Exception {
+
+		Table table = getTable(name);
+		pinned.merge(name, 1, Integer::sum);
+
+		return table;
+
+	}
+
+	/**
+	 * Lets a table pinned by {@link #pin(String)} be unloaded again.
+	 * 
+	 * @param name name of the pinned table.
+	 * @since 0.9
+	 */
+	void unpin (String name) {
+		pinned.computeIfPresent(name, (key, count) -> count > 1 ? count - 1 :
+			null);
 	}
 
 	/**
@@ -124,12 +666,83 @@ public class Database {
 	 */
 	Table getTable (String name) throws Exception {
 
-		if (tables.containsKey(name)) {
-			return tables.get(name);
+		if (!tables.containsKey(name)) {
+			throw new Exception("Table does not exist.");
+		}
+
+		Table table = tables.get(name);
+
+		if (table == null) {
+			try {
+				table = readTable(new DataFile(dataDir), name);
+				addLoaded(name, table);
+			} catch (Exception e) {
+				throw new Exception("Table '" + name + "' could not be " +
+					"loaded: " + e.getMessage(), e);
+			}
 		} else {
+			resident.remove(name);
+			resident.add(name);
+		}
+
+		unloadTables(name);
+
+		return table;
+
+	}
+
+	/**
+	 * Opens a cursor over the rows of a table. A table that is not in memory
+	 * is read straight from its file, without being loaded.
+	 * 
+	 * @param name the name of the table.
+	 * @param selected the indices of the columns to be read.
+	 * @return the cursor, positioned before the first row.
+	 * @since 0.9
+	 */
+	Cursor cursor (String name, int[] selected) throws Exception {
+
+		if (!tables.containsKey(name)) {
 			throw new Exception("Table does not exist.");
 		}
 
+		Table table = tables.get(name);
+
+		if (table != null) {
+			return table.cursor(selected);
+		}
+
+		try {
+			return new DataFile(dataDir).openCursor(name, selected);
+		} catch (Exception e) {
+			throw new Exception("Table '" + name + "' could not be read: " +
+				e.getMessage(), e);
+		}
+
+	}
+
+	/**
+	 * Creates a sorter for an ordered selection, which writes any runs it
+	 * spills to the data directory.
+	 * 
+	 * @param order the order the rows are sorted in.
+	 * @param limit the most rows to return, from the start of the order.
+	 * @return the sorter, with no rows added.
+	 * @since 0.9
+	 */
+	Sorter sorter (Sorter.Order order, int limit) {
+		return new Sorter(order, limit, options.sortBudget, new File(dataDir));
+	}
+
+	/**
+	 * Gets the fewest rows a selection must read before it is scanned in
+	 * parallel.
+	 * 
+	 * @return the number of rows, or 0 if selections are never parallel.
+	 * @since 0.9
+	 */
+	int parallelThreshold () {
+		return options.parallelThreshold;
 	}
 
 	/**
@@ -141,19 +754,76 @@ public class Database {
 	 */
 	public void createTable (String name, String[] columns) throws Exception {
 
+		Type[] types = new Type[columns.length];
+		Arrays.fill(types, Type.STRING);
+
+		createTable(name, columns, types);
+
+	}
+
+	/**
+	 * Creates a table with typed columns and adds it to the list of table
+	 * objects in memory. Values written to the table are checked against
+	 * the types of their columns.
+	 * 
+	 * @param name the name of the table to be created.
+	 * @param columns an array of Strings containing the column names.
+	 * @param types the type of each column.
+	 * @since 0.9
+	 */
+	public void createTable (String name, String[] columns, Type[] types)
+		throws Exception {
+
+		if (types.length != columns.length) {
+			throw new Exception("Incorrect number of types.");
+		}
+
 		if (!tables.containsKey(name)) {
-			Table table = new Table(columns);
+			Table table = new Table(columns, types, options.offHeap);
+			table.compression = options.compression;
 			tables.put(name, table);
+			resident.add(name);
 		} else {
 			throw new Exception("Table already exists.");
 		}
 
-		schema.createTable(name, columns);
+		String[] args = Arrays.copyOf(columns, columns.length * 2);
+
+		for (int i = 0; i < types.length; i++) {
+			args[columns.length + i] = types[i].name();
+		}
+
+		schema.createTable(name, columns, types);
+		logged(LogFile.CREATE_TABLE, name, args);
 
 	}
 
 	/**
-	 * Drops a table from the list of tables, if it exists.
+	 * Sets how a table's file is compressed. The file is rewritten with the
+	 * new compression at the next commit, or the next checkpoint when there
+	 * is a write-ahead log, which records the change until then.
+	 * 
+	 * @param name the name of the table.
+	 * @param compression the compression to use for the table's file.
+	 * @since 0.9
+	 */
+	public void compress (String name, Compression compression)
+		throws Exception {
+
+		Table table = getTable(name);
+
+		if (table.compression != compression) {
+			table.compression = compression;
+			table.modified();
+			logged(LogFile.COMPRESS, name, compression.name());
+		}
+
+	}
+
+	/**
+	 * Drops a table from the list of tables, if it exists. Any memory its
+	 * values held outside the heap is handed back to be reused by other
+	 * tables, or left to the garbage collector.
 	 * 
 	 * @param name the name of the table to be removed.
 	 * @since 0.6
@@ -161,46 +831,175 @@ public class Database {
 	public void dropTable (String name) throws Exception {
 
 		if (tables.containsKey(name)) {
-			tables.remove(name);
+			Table table = tables.remove(name);
+			if (table != null) {
+				table.release();
+			}
+			resident.remove(name);
+			dropped.add(name);
 		} else {
 			throw new Exception("Table does not exist.");
 		}
 
 		schema.dropTable(name);
+		logged(LogFile.DROP_TABLE, name);
 
 	}
 
 	/**
 	 * Commits any changes the user has made to disk. This MUST be called at
-	 * the end of a session, otherwise some changes may not be added.
+	 * the end of a session, otherwise some changes may not be added. With a
+	 * write-ahead log, only the log is forced to disk, unless it has grown
+	 * large enough for a checkpoint. Otherwise only the tables that have
+	 * changed are written.
 	 * 
+	 * @return the number of tables and bytes written.
 	 * @since 0.6
 	 */
-	public void commit () throws Exception {
+	public CommitStats commit () throws Exception {
 
 		try {
-			writeTables();
-		} catch (IOException e) {
-			throw new Exception("Changes could not be committed.");
+			if (log == null) {
+				return writeTables();
+			}
+
+			long bytes = log.commit();
+
+			if (log.size() >= options.checkpointSize) {
+				CommitStats stats = writeCheckpoint();
+				return new CommitStats(stats.tables, stats.bytes + bytes);
+			}
+
+			return new CommitStats(0, bytes);
+		} catch (Exception e) {
+			throw new Exception("Changes could not be committed. " +
+				e.getMessage(), e);
+		}
+
+	}
+
+	/**
+	 * Commits any changes, then writes every changed table to file and
+	 * empties the write-ahead log.
+	 * 
+	 * @return the number of tables and bytes written to table files.
+	 * @since 0.9
+	 */
+	public CommitStats checkpoint () throws Exception {
+
+		try {
+			return writeCheckpoint();
+		} catch (Exception e) {
+			throw new Exception("Changes could not be committed. " +
+				e.getMessage(), e);
+		}
+
+	}
+
+	/**
+	 * Commits the log, writes the changed tables and empties the log.
+	 *
+	 * <p>The log is the only copy of a committed change until the table
+	 * holding it is durable, so the order matters: each table file is forced
+	 * to disk before it is renamed into place, the directory is synced after
+	 * the renames and deletions, and only then is the log truncated. A crash
+	 * at any point before the truncate replays the log over the tables.
+	 *
+	 * <p>Columns of the changed tables with few distinct values are stored as
+	 * dictionaries first, and existing dictionaries drop values no row holds
+	 * any more. This is only done here, rather than on every commit, since it
+	 * changes the schema version of a table and is not logged: the encoding
+	 * reaches disk with the table file, and replaying the log over an older
+	 * file only loses the encoding, never a value.
+	 * 
+	 * @return the number of tables and bytes written to table files.
+	 * @since 0.9
+	 */
+	private CommitStats writeCheckpoint () throws Exception {
+
+		if (log != null) {
+			log.commit();
+		}
+
+		for (Table table : tables.values()) {
+			if (table != null && table.isDirty()) {
+				table.encodeColumns();
+			}
+		}
+
+		CommitStats stats = writeTables();
+
+		if (log != null) {
+			log.truncate();
+		}
+
+		return stats;
+
+	}
+
+	/**
+	 * Closes the write-ahead log, if there is one. Changes that have not been
+	 * committed are lost.
+	 * 
+	 * @since 0.9
+	 */
+	public void close () throws Exception {
+
+		if (log != null) {
+			log.close();
+			log = null;
 		}
 
 	}
 
+	// ----- Table Task ----- //
+
+	/**
+	 * A task run for each of a set of tables.
+	 *
+	 * @since 0.9
+	 */
+	private interface TableTask<T> {
+		T run (String tableName) throws Exception;
+	}
+
 	// ----- Constructor ----- //
 
 	public Database (String location) throws Exception {
+		this(location, new Options());
+	}
+
+	/**
+	 * Class constructor, opens a database with the given settings.
+	 *
+	 * @param location the directory holding the table files.
+	 * @param options the settings to open the database with.
+	 * @since 0.9
+	 */
+	public Database (String location, Options options) throws Exception {
 
 		this.tables = new HashMap<>();
 		this.dataDir = location;
+		this.options = options;
+		this.dropped = new HashSet<>();
+		this.resident = new LinkedHashSet<>();
+		this.pinned = new HashMap<>();
+		this.catalogSequence = 0;
+		this.query = new Query(this);
+		this.schema = new Schema();
+
+		buildTables();
+
+		if (options.log) {
+
+			LogFile logFile = new LogFile(dataDir);
+			replay(logFile);
+			logFile.advance(catalogSequence);
+			this.log = logFile;
 
-		try {
-			buildTables();
-		} catch (Exception e) {
-			throw new Exception("Problem with database directory.");
 		}
 
-		this.query = new Query(this);
-		this.schema = new Schema();
+		unloadTables(null);
 
 	}
 
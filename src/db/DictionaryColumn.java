@@ -0,0 +1,391 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * Holds the values of a column with few distinct values as a dictionary of
+ * those values and a code for each row, i.e. the position of its value in
+ * the dictionary. Rows with the same value share a single string, and two
+ * rows hold the same value exactly when they hold the same code.
+ *
+ * <p>Setting a row to a new value adds it to the dictionary, and the old
+ * value is kept even if no row holds it any more. Compacting the column
+ * drops such values, so codes may change whenever the column is compacted
+ * or pruned.
+ *
+ * @since 0.9
+ */
+
+class DictionaryColumn extends Column {
+
+	// ----- Class Constants ----- //
+
+	/**
+	 * The code of a null value.
+	 */
+	static final int NULL = -1;
+
+	// ----- Instance Variables ----- //
+
+	private ArrayList<String> dictionary;
+	private HashMap<String, Integer> codes;
+	private int[] rows;
+	private int size;
+	private int generation;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Tests the methods in the DictionaryColumn class, must be run with -ea.
+	 *
+	 * @since 0.9
+	 */
+	private void testDictionaryColumn () throws Exception {
+
+		String[] statuses = {"active", "inactive", "pending"};
+
+		for (int i = 0; i < 100; i++) {
+			add(statuses[i % 3]);
+		}
+		add(null);
+		assert size() == 101 && cardinality() == 3 :
+			"Values not added correctly.";
+		assert get(4).equals("inactive") && get(100) == null :
+			"Value not retrieved correctly.";
+		assert code(1) == code(4) && code(1) == codeOf("inactive") &&
+			code(100) == NULL : "Codes not assigned correctly.";
+		assert codeOf("missing") == NULL : "Missing value given a code.";
+
+		set(4, "closed");
+		assert get(4).equals("closed") && cardinality() == 4 :
+			"Value not set correctly.";
+
+		BitSet deleted = new BitSet();
+		deleted.set(0);
+		deleted.set(4);
+		compact(deleted);
+		assert size() == 99 : "Rows not removed by compaction.";
+		assert get(0).equals("inactive") && get(2).equals("active") :
+			"Rows not kept in order by compaction.";
+		assert cardinality() == 3 && codeOf("closed") == NULL &&
+			get(98) == null : "Dictionary not pruned by compaction.";
+
+		DictionaryColumn small = new DictionaryColumn();
+		small.add("a");
+		small.add("b");
+		small.set(0, "c");
+		small.add("d");
+		BitSet last = new BitSet();
+		last.set(2);
+		assert small.prune(last) && small.cardinality() == 2 &&
+			small.get(0).equals("c") && small.get(1).equals("b") &&
+			small.get(2) == null && !small.prune(last) :
+			"Dictionary not pruned.";
+
+		StringColumn strings = new StringColumn();
+		strings.add("one");
+		strings.add(null);
+		strings.add("one");
+		DictionaryColumn copy = new DictionaryColumn(strings);
+		assert copy.size() == 3 && copy.cardinality() == 1 &&
+			copy.get(2).equals("one") && copy.get(1) == null :
+			"Column not encoded correctly.";
+
+	}
+
+	/**
+	 * Gets the code for a value, adding it to the dictionary if it is new.
+	 *
+	 * @param value the value, may be null.
+	 * @return the code of the value.
+	 * @since 0.9
+	 */
+	private int encode (String value) {
+
+		if (value == null) {
+			return NULL;
+		}
+
+		Integer code = codes.get(value);
+
+		if (code == null) {
+			code = dictionary.size();
+			dictionary.add(value);
+			codes.put(value, code);
+			generation++;
+		}
+
+		return code;
+
+	}
+
+	/**
+	 * Gets the code held in a row.
+	 *
+	 * @param row the position of the row.
+	 * @return the code, or {@link #NULL} for a null value.
+	 * @since 0.9
+	 */
+	int code (int row) {
+		return rows[row];
+	}
+
+	/**
+	 * Gets the code of a value, without adding it to the dictionary.
+	 *
+	 * @param value the value, may be null.
+	 * @return the code, or {@link #NULL} if the value is null or is not in
+	 * the dictionary.
+	 * @since 0.9
+	 */
+	int codeOf (String value) {
+
+		Integer code = value == null ? null : codes.get(value);
+
+		return code == null ? NULL : code;
+
+	}
+
+	/**
+	 * Adds a row holding a code that is already in the dictionary, as read
+	 * from file.
+	 *
+	 * @param code the code of the row's value.
+	 * @return false if the code is not in the dictionary.
+	 * @since 0.9
+	 */
+	boolean addCode (int code) {
+
+		if (code < NULL || code >= dictionary.size()) {
+			return false;
+		}
+
+		if (size == rows.length) {
+			rows = Arrays.copyOf(rows, size + (size >> 1) + 1);
+		}
+
+		rows[size++] = code;
+
+		return true;
+
+	}
+
+	/**
+	 * Gets the generation of the dictionary, which changes whenever a value
+	 * is added to it or the codes are renumbered. Codes found for values
+	 * are only valid while it stays the same.
+	 *
+	 * @return the generation number.
+	 * @since 0.9
+	 */
+	int generation () {
+		return generation;
+	}
+
+	/**
+	 * Gets the distinct values in the column, in the order of their codes.
+	 *
+	 * @return an array of the values.
+	 * @since 0.9
+	 */
+	String[] dictionary () {
+		return dictionary.toArray(new String[dictionary.size()]);
+	}
+
+	/**
+	 * Gets the number of distinct values in the dictionary.
+	 *
+	 * @return the number of values.
+	 * @since 0.9
+	 */
+	int cardinality () {
+		return dictionary.size();
+	}
+
+	/**
+	 * Gets the value a code stands for.
+	 *
+	 * @param code the code, or {@link #NULL}.
+	 * @return the value, or null for {@link #NULL}.
+	 * @since 0.9
+	 */
+	String decode (int code) {
+		return code == NULL ? null : dictionary.get(code);
+	}
+
+	@Override
+	String get (int row) {
+		return decode(rows[row]);
+	}
+
+	@Override
+	void set (int row, String value) {
+		rows[row] = encode(value);
+	}
+
+	@Override
+	void add (String value) {
+
+		if (size == rows.length) {
+			rows = Arrays.copyOf(rows, size + (size >> 1) + 1);
+		}
+
+		rows[size++] = encode(value);
+
+	}
+
+	/**
+	 * Drops the values that no live row holds any more from the dictionary,
+	 * and renumbers the codes of the rest, keeping their order. Deleted rows
+	 * are left holding null.
+	 *
+	 * @param deleted the rows that have been deleted.
+	 * @return true if any value was dropped.
+	 * @since 0.9
+	 */
+	boolean prune (BitSet deleted) {
+
+		int[] renumbered = new int[dictionary.size()];
+		Arrays.fill(renumbered, NULL);
+
+		for (int row = 0; row < size; row++) {
+			if (deleted.get(row)) {
+				rows[row] = NULL;
+			} else if (rows[row] != NULL) {
+				renumbered[rows[row]] = 0;
+			}
+		}
+
+		ArrayList<String> kept = new ArrayList<String>();
+
+		for (int code = 0; code < renumbered.length; code++) {
+			if (renumbered[code] != NULL) {
+				renumbered[code] = kept.size();
+				kept.add(dictionary.get(code));
+			}
+		}
+
+		if (kept.size() == dictionary.size()) {
+			return false;
+		}
+
+		for (int row = 0; row < size; row++) {
+			if (rows[row] != NULL) {
+				rows[row] = renumbered[rows[row]];
+			}
+		}
+
+		dictionary = kept;
+		codes.clear();
+		generation++;
+
+		for (int code = 0; code < kept.size(); code++) {
+			codes.put(kept.get(code), code);
+		}
+
+		return true;
+
+	}
+
+	@Override
+	void compact (BitSet deleted) {
+
+		int next = 0;
+
+		for (int row = 0; row < size; row++) {
+			if (!deleted.get(row)) {
+				rows[next++] = rows[row];
+			}
+		}
+
+		size = next;
+		prune(new BitSet());
+
+	}
+
+	@Override
+	Column copy (int noRows, BitSet deleted) {
+
+		DictionaryColumn copy = new DictionaryColumn(dictionary());
+		copy.rows = new int[Math.max(noRows, 16)];
+
+		for (int row = 0; row < noRows; row++) {
+			copy.rows[copy.size++] = deleted.get(row) ? NULL : rows[row];
+		}
+
+		return copy;
+
+	}
+
+	@Override
+	int size () {
+		return size;
+	}
+
+	// ----- Constructor ----- //
+
+	/**
+	 * Class constructor, creates an empty column.
+	 *
+	 * @since 0.9
+	 */
+	DictionaryColumn () {
+		this(new String[0]);
+	}
+
+	/**
+	 * Class constructor, creates an empty column with a dictionary that is
+	 * already known, such as one read from file.
+	 *
+	 * @param dictionary the distinct values, in the order of their codes.
+	 * @since 0.9
+	 */
+	DictionaryColumn (String[] dictionary) {
+
+		this.dictionary = new ArrayList<String>(Arrays.asList(dictionary));
+		this.codes = new HashMap<String, Integer>();
+		this.rows = new int[16];
+		this.size = 0;
+
+		for (int code = 0; code < dictionary.length; code++) {
+			codes.put(dictionary[code], code);
+		}
+
+	}
+
+	/**
+	 * Class constructor, encodes the values of another column.
+	 *
+	 * @param column the column to be encoded.
+	 * @since 0.9
+	 */
+	DictionaryColumn (Column column) {
+
+		this();
+		this.rows = new int[Math.max(column.size(), 16)];
+
+		for (int row = 0; row < column.size(); row++) {
+			rows[size++] = encode(column.get(row));
+		}
+
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		DictionaryColumn column = new DictionaryColumn();
+
+		try {
+			column.testDictionaryColumn();
+			System.out.println("DictionaryColumn tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}
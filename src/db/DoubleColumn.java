@@ -0,0 +1,69 @@
+package db;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Holds the values of a DOUBLE column in a double array.
+ *
+ * @since 0.9
+ */
+
+class DoubleColumn extends TypedColumn {
+
+	// ----- Instance Variables ----- //
+
+	private double[] cells;
+
+	// ----- Instance Methods ----- //
+
+	@Override
+	long getLong (int row) {
+		return (long) cells[row];
+	}
+
+	@Override
+	double getDouble (int row) {
+		return cells[row];
+	}
+
+	@Override
+	protected void store (int row, String value) {
+		cells[row] = Double.parseDouble(value);
+	}
+
+	@Override
+	protected String format (int row) {
+		return Double.toString(cells[row]);
+	}
+
+	@Override
+	protected void move (int from, int to) {
+		cells[to] = cells[from];
+	}
+
+	@Override
+	protected void ensure (int capacity) {
+		if (cells.length < capacity) {
+			cells = Arrays.copyOf(cells, grow(cells.length, capacity));
+		}
+	}
+
+	@Override
+	protected void write (ByteBuffer out, int row) {
+		out.putDouble(cells[row]);
+	}
+
+	@Override
+	protected void read (ByteBuffer in, int row) {
+		cells[row] = in.getDouble();
+	}
+
+	// ----- Constructor ----- //
+
+	DoubleColumn () {
+		super(Type.DOUBLE);
+		this.cells = new double[16];
+	}
+
+}
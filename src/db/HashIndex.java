@@ -0,0 +1,144 @@
+package db;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Maps the values of a column to the slots of the rows holding them, so that
+ * rows can be found by value without reading the whole table. Each value
+ * keeps the slots of its rows in a small growable array, in no particular
+ * order. Null values are indexed like any other.
+ *
+ * @since 0.9
+ */
+
+class HashIndex extends Index {
+
+	// ----- Class Constants ----- //
+
+	private static final int[] NONE = new int[0];
+
+	// ----- Instance Variables ----- //
+
+	private HashMap<String, int[]> entries;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Tests the methods in the HashIndex class, must be run with -ea.
+	 *
+	 * @since 0.9
+	 */
+	private void testHashIndex () throws Exception {
+
+		for (int i = 0; i < 100; i++) {
+			add(i % 2 == 0 ? "even" : "odd", i);
+		}
+		add(null, 100);
+
+		assert get("even").length == 50 && get("odd").length == 50 :
+			"Slots not added correctly.";
+		assert Arrays.equals(get(null), new int[] {100}) :
+			"Null value not indexed.";
+		assert get("missing").length == 0 : "Missing value found.";
+		assert size() == 3 : "Values not counted correctly.";
+
+		remove("even", 42);
+		int[] even = get("even");
+		Arrays.sort(even);
+		assert even.length == 49 && Arrays.binarySearch(even, 42) < 0 :
+			"Slot not removed correctly.";
+
+		remove(null, 100);
+		assert size() == 2 : "Empty value not removed.";
+
+		clear();
+		assert size() == 0 && get("odd").length == 0 : "Index not cleared.";
+
+	}
+
+	@Override
+	void add (String value, int slot) {
+
+		int[] slots = entries.get(value);
+
+		if (slots == null) {
+			slots = new int[3];
+		} else if (slots[0] == slots.length - 1) {
+			slots = Arrays.copyOf(slots, slots.length * 2);
+		}
+
+		slots[++slots[0]] = slot;
+		entries.put(value, slots);
+
+	}
+
+	@Override
+	void remove (String value, int slot) {
+
+		int[] slots = entries.get(value);
+
+		if (slots == null) {
+			return;
+		}
+
+		for (int i = 1; i <= slots[0]; i++) {
+			if (slots[i] == slot) {
+				slots[i] = slots[slots[0]--];
+				break;
+			}
+		}
+
+		if (slots[0] == 0) {
+			entries.remove(value);
+		}
+
+	}
+
+	@Override
+	int[] get (String value) {
+
+		int[] slots = entries.get(value);
+
+		return slots == null ? NONE : Arrays.copyOfRange(slots, 1,
+			slots[0] + 1);
+
+	}
+
+	/**
+	 * Gets the number of distinct values in the index.
+	 *
+	 * @return the number of values.
+	 * @since 0.9
+	 */
+	int size () {
+		return entries.size();
+	}
+
+	@Override
+	void clear () {
+		entries.clear();
+	}
+
+	// ----- Constructor ----- //
+
+	HashIndex () {
+		this.entries = new HashMap<String, int[]>();
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		HashIndex index = new HashIndex();
+
+		try {
+			index.testHashIndex();
+			System.out.println("HashIndex tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}
@@ -0,0 +1,50 @@
+package db;
+
+/**
+ * Finds the rows of a table by the values they hold in one column, without a
+ * scan. Each entry pairs a value with the slot of a row holding it, and a
+ * value may be held by any number of rows. Subclasses decide how the entries
+ * are organised.
+ *
+ * @since 0.9
+ */
+
+abstract class Index {
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Adds the slot of a row to the entries for its value.
+	 *
+	 * @param value the value held by the row.
+	 * @param slot the slot of the row.
+	 * @since 0.9
+	 */
+	abstract void add (String value, int slot);
+
+	/**
+	 * Removes the slot of a row from the entries for its value.
+	 *
+	 * @param value the value held by the row.
+	 * @param slot the slot of the row.
+	 * @since 0.9
+	 */
+	abstract void remove (String value, int slot);
+
+	/**
+	 * Gets the slots of the rows holding a value.
+	 *
+	 * @param value the value being looked for.
+	 * @return an array of the slots, empty if no row holds the value.
+	 * @since 0.9
+	 */
+	abstract int[] get (String value);
+
+	/**
+	 * Removes every entry from the index.
+	 *
+	 * @since 0.9
+	 */
+	abstract void clear ();
+
+}
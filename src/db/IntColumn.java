@@ -0,0 +1,69 @@
+package db;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Holds the values of an INT column in an int array.
+ *
+ * @since 0.9
+ */
+
+class IntColumn extends TypedColumn {
+
+	// ----- Instance Variables ----- //
+
+	private int[] cells;
+
+	// ----- Instance Methods ----- //
+
+	@Override
+	long getLong (int row) {
+		return cells[row];
+	}
+
+	@Override
+	double getDouble (int row) {
+		return cells[row];
+	}
+
+	@Override
+	protected void store (int row, String value) {
+		cells[row] = Integer.parseInt(value);
+	}
+
+	@Override
+	protected String format (int row) {
+		return Integer.toString(cells[row]);
+	}
+
+	@Override
+	protected void move (int from, int to) {
+		cells[to] = cells[from];
+	}
+
+	@Override
+	protected void ensure (int capacity) {
+		if (cells.length < capacity) {
+			cells = Arrays.copyOf(cells, grow(cells.length, capacity));
+		}
+	}
+
+	@Override
+	protected void write (ByteBuffer out, int row) {
+		out.putInt(cells[row]);
+	}
+
+	@Override
+	protected void read (ByteBuffer in, int row) {
+		cells[row] = in.getInt();
+	}
+
+	// ----- Constructor ----- //
+
+	IntColumn () {
+		super(Type.INT);
+		this.cells = new int[16];
+	}
+
+}
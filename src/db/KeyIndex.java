@@ -0,0 +1,271 @@
+package db;
+
+/**
+ * Maps the primary keys of a table to the slots holding their rows. Uses an
+ * open-addressing hash table with linear probing, so lookups, inserts and
+ * removals take constant time without allocating an entry per key.
+ *
+ * @since 0.9
+ */
+
+class KeyIndex {
+
+	// ----- Class Constants ----- //
+
+	private static final int MIN_CAPACITY = 16;
+
+	// ----- Instance Variables ----- //
+
+	private String[] keys;
+	private int[] slots;
+	private int size;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Tests the methods in the KeyIndex class, must be run with -ea.
+	 *
+	 * @since 0.9
+	 */
+	private void testKeyIndex () throws Exception {
+
+		assert put("one", 0) : "Key not added correctly.";
+		assert put("two", 1) : "Key not added correctly.";
+		assert !put("one", 5) : "Duplicate key should be rejected.";
+		assert get("one") == 0 && get("two") == 1 :
+			"Keys not retrieved correctly.";
+		assert get("three") == -1 : "Missing key should not be found.";
+
+		for (int i = 2; i < 1000; i++) {
+			put("key" + i, i);
+		}
+		assert size() == 1000 : "Keys not counted correctly.";
+		assert get("key999") == 999 : "Index not resized correctly.";
+
+		assert remove("one") == 0 : "Key not removed correctly.";
+		assert get("one") == -1 : "Key not removed correctly.";
+		assert remove("one") == -1 : "Key removed twice.";
+
+		for (int i = 2; i < 1000; i += 2) {
+			remove("key" + i);
+		}
+		for (int i = 3; i < 1000; i += 2) {
+			assert get("key" + i) == i : "Probe chain broken by removal.";
+		}
+		assert size() == 500 : "Keys not counted correctly after removal.";
+
+		set("two", 7);
+		assert get("two") == 7 : "Slot not updated correctly.";
+
+		clear();
+		assert size() == 0 && get("two") == -1 : "Index not cleared.";
+
+	}
+
+	/**
+	 * Finds the position in the hash table where a key is, or would be,
+	 * stored.
+	 *
+	 * @param key the key being looked up.
+	 * @return the position of the key, or of the empty bucket ending its
+	 * probe sequence.
+	 * @since 0.9
+	 */
+	private int probe (String key) {
+
+		int mask = keys.length - 1;
+		int i = home(key, mask);
+
+		while (keys[i] != null && !keys[i].equals(key)) {
+			i = (i + 1) & mask;
+		}
+
+		return i;
+
+	}
+
+	/**
+	 * Gets the bucket a key hashes to, before probing.
+	 *
+	 * @param key the key being hashed.
+	 * @param mask the table size minus one.
+	 * @return the home bucket of the key.
+	 * @since 0.9
+	 */
+	private static int home (String key, int mask) {
+		int h = key.hashCode();
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	/**
+	 * Doubles the size of the hash table and reinserts every key.
+	 *
+	 * @since 0.9
+	 */
+	private void grow () {
+
+		String[] oldKeys = keys;
+		int[] oldSlots = slots;
+
+		keys = new String[oldKeys.length * 2];
+		slots = new int[oldKeys.length * 2];
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				int bucket = probe(oldKeys[i]);
+				keys[bucket] = oldKeys[i];
+				slots[bucket] = oldSlots[i];
+			}
+		}
+
+	}
+
+	/**
+	 * Gets the slot of the row with a given key.
+	 *
+	 * @param key the primary key.
+	 * @return the slot of the row, or -1 if the key is not present.
+	 * @since 0.9
+	 */
+	int get (String key) {
+
+		int bucket = probe(key);
+		return keys[bucket] == null ? -1 : slots[bucket];
+
+	}
+
+	/**
+	 * Adds a key to the index, unless it is already present.
+	 *
+	 * @param key the primary key.
+	 * @param slot the slot of the row holding the key.
+	 * @return true if the key was added, false if it was already present.
+	 * @since 0.9
+	 */
+	boolean put (String key, int slot) {
+
+		int bucket = probe(key);
+
+		if (keys[bucket] != null) {
+			return false;
+		}
+
+		keys[bucket] = key;
+		slots[bucket] = slot;
+		size++;
+
+		if (size * 4 > keys.length * 3) {
+			grow();
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Points an existing key at a different slot.
+	 *
+	 * @param key the primary key.
+	 * @param slot the new slot of the row holding the key.
+	 * @since 0.9
+	 */
+	void set (String key, int slot) {
+
+		int bucket = probe(key);
+
+		if (keys[bucket] != null) {
+			slots[bucket] = slot;
+		}
+
+	}
+
+	/**
+	 * Removes a key from the index. Shifts any later keys in the same probe
+	 * sequence back, so no tombstones are left behind.
+	 *
+	 * @param key the primary key.
+	 * @return the slot the key pointed at, or -1 if it was not present.
+	 * @since 0.9
+	 */
+	int remove (String key) {
+
+		int mask = keys.length - 1;
+		int gap = probe(key);
+
+		if (keys[gap] == null) {
+			return -1;
+		}
+
+		int slot = slots[gap];
+		int i = gap;
+
+		while (true) {
+
+			i = (i + 1) & mask;
+
+			if (keys[i] == null) {
+				break;
+			}
+
+			int h = home(keys[i], mask);
+			boolean movable = gap <= i ? (h <= gap || h > i) :
+				(h <= gap && h > i);
+
+			if (movable) {
+				keys[gap] = keys[i];
+				slots[gap] = slots[i];
+				gap = i;
+			}
+
+		}
+
+		keys[gap] = null;
+		size--;
+
+		return slot;
+
+	}
+
+	/**
+	 * Gets the number of keys in the index.
+	 *
+	 * @return the integer number of keys.
+	 * @since 0.9
+	 */
+	int size () {
+		return size;
+	}
+
+	/**
+	 * Removes all keys from the index.
+	 *
+	 * @since 0.9
+	 */
+	void clear () {
+		this.keys = new String[MIN_CAPACITY];
+		this.slots = new int[MIN_CAPACITY];
+		this.size = 0;
+	}
+
+	// ----- Constructor ----- //
+
+	KeyIndex () {
+		clear();
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		KeyIndex index = new KeyIndex();
+
+		try {
+			index.testKeyIndex();
+			System.out.println("KeyIndex tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}
@@ -0,0 +1,483 @@
+package db;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Handles the write-ahead log, an append-only file recording every change
+ * made to the database. Changes are appended as they are made, and a commit
+ * marker is written and forced to disk when the database is committed. Only
+ * changes followed by a commit marker are replayed when the database is
+ * opened.
+ *
+ * <p>Each entry is written as its length, followed by its sequence number,
+ * operation, table name and arguments, and a CRC32 checksum. An entry that
+ * was only partly written is detected by its checksum and discarded.
+ *
+ * @since 0.9
+ */
+
+class LogFile {
+
+	// ----- Class Constants ----- //
+
+	static final byte CREATE_TABLE = 1;
+	static final byte DROP_TABLE = 2;
+	static final byte INSERT = 3;
+	static final byte DELETE = 4;
+	static final byte ADD_COLUMN = 5;
+	static final byte DROP_COLUMN = 6;
+	static final byte RENAME_COLUMN = 7;
+	static final byte COMMIT = 8;
+	static final byte CREATE_INDEX = 9;
+	static final byte DROP_INDEX = 10;
+	static final byte UPDATE = 11;
+	static final byte ENCODE_COLUMN = 12;
+	static final byte COMPRESS = 13;
+
+	private static final String FILE_NAME = "database.log";
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	// ----- Instance Variables ----- //
+
+	private FileChannel channel;
+	private ByteBuffer out;
+	private long sequence;
+	private long uncommitted;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Tests the methods in the LogFile class, must be run with -ea.
+	 *
+	 * @since 0.9
+	 */
+	private void testLogFile (String dataDir) throws Exception {
+
+		truncate();
+
+		long first = append(CREATE_TABLE, "testTable",
+			new String[] {"colOne", "colTwo"});
+		append(INSERT, "testTable", new String[] {"one", null});
+		assert commit() > 0 : "Committed bytes not counted.";
+		append(DELETE, "testTable", new String[] {"one"});
+
+		ArrayList<Entry> entries = read();
+		assert entries.size() == 2 : "Uncommitted entry should not be read.";
+		assert entries.get(0).sequence == first &&
+			entries.get(0).op == CREATE_TABLE : "Entry not read correctly.";
+		assert Arrays.equals(entries.get(1).args, new String[] {"one", null}) :
+			"Entry arguments not read correctly.";
+
+		close();
+		long written = new File(dataDir + FILE_NAME).length();
+		LogFile reopened = new LogFile(dataDir);
+		assert reopened.read().size() == 2 : "Log not reopened correctly.";
+		assert reopened.size() < written : "Uncommitted tail not removed.";
+
+		reopened.append(INSERT, "testTable", new String[] {"two", "three"});
+		reopened.commit();
+		assert reopened.read().size() == 3 : "Entry not appended after reopen.";
+
+		char[] large = new char[BUFFER_SIZE * 2];
+		Arrays.fill(large, 'x');
+		reopened.append(INSERT, "testTable", new String[] {
+			new String(large), "y"});
+		for (int i = 0; i < 5000; i++) {
+			reopened.append(DELETE, "testTable", new String[] {"row" + i});
+		}
+		reopened.commit();
+		entries = reopened.read();
+		assert entries.size() == 5004 &&
+			entries.get(3).args[0].length() == large.length &&
+			entries.get(5003).args[0].equals("row4999") :
+			"Entries not read across buffer boundaries.";
+
+		reopened.truncate();
+		assert reopened.size() == 0 && reopened.read().isEmpty() :
+			"Log not truncated.";
+		reopened.close();
+
+	}
+
+	/**
+	 * Appends an entry to the log. The entry is buffered, and only reaches
+	 * the disk for certain once the log is committed.
+	 *
+	 * @param op the operation being logged.
+	 * @param table the name of the table being changed.
+	 * @param args the arguments of the operation.
+	 * @return the sequence number given to the entry.
+	 * @since 0.9
+	 */
+	long append (byte op, String table, String[] args) throws IOException {
+
+		ArrayList<byte[]> strings = new ArrayList<byte[]>(args.length + 1);
+		int length = 8 + 1 + 4;
+
+		strings.add(encode(table));
+
+		for (String arg : args) {
+			strings.add(encode(arg));
+		}
+
+		for (byte[] string : strings) {
+			length += 4 + (string == null ? 0 : string.length);
+		}
+
+		ByteBuffer entry = ByteBuffer.allocate(4 + length + 4);
+		long entrySequence = ++sequence;
+
+		entry.putInt(length);
+		entry.putLong(entrySequence);
+		entry.put(op);
+		entry.putInt(args.length);
+
+		for (byte[] string : strings) {
+			if (string == null) {
+				entry.putInt(-1);
+			} else {
+				entry.putInt(string.length);
+				entry.put(string);
+			}
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(entry.array(), 4, length);
+		entry.putInt((int) crc.getValue());
+		entry.flip();
+		uncommitted += entry.remaining();
+
+		if (entry.remaining() > out.remaining()) {
+			flush();
+		}
+
+		if (entry.remaining() > out.remaining()) {
+			while (entry.hasRemaining()) {
+				channel.write(entry);
+			}
+		} else {
+			out.put(entry);
+		}
+
+		return entrySequence;
+
+	}
+
+	/**
+	 * Writes a commit marker, and forces every entry up to and including it
+	 * to disk.
+	 *
+	 * @return the number of bytes committed, including the marker.
+	 * @since 0.9
+	 */
+	long commit () throws IOException {
+
+		append(COMMIT, "", new String[0]);
+		flush();
+		channel.force(false);
+
+		long committed = uncommitted;
+		uncommitted = 0;
+
+		return committed;
+
+	}
+
+	/**
+	 * Reads the committed entries in the log, in the order they were
+	 * written. Commit markers themselves are not returned.
+	 *
+	 * @return a list of the committed entries.
+	 * @since 0.9
+	 */
+	ArrayList<Entry> read () throws IOException {
+
+		flush();
+		ArrayList<Entry> entries = new ArrayList<Entry>();
+		scan(entries);
+
+		return entries;
+
+	}
+
+	/**
+	 * Reads through the log, collecting the committed entries, and stops at
+	 * the end of the file or at the first entry that is incomplete. The log
+	 * is read through a buffer of BUFFER_SIZE bytes, which only grows to
+	 * hold an entry larger than itself, so a large log is never held in
+	 * memory at once.
+	 *
+	 * @param entries a list to add the committed entries to.
+	 * @return the position just after the last commit marker.
+	 * @since 0.9
+	 */
+	private long scan (ArrayList<Entry> entries) throws IOException {
+
+		long end = channel.position();
+		long size = channel.size();
+		ByteBuffer data = ByteBuffer.allocate(BUFFER_SIZE);
+		ArrayList<Entry> pending = new ArrayList<Entry>();
+		long offset = 0;
+		long committed = 0;
+
+		data.flip();
+		channel.position(0);
+
+		try {
+			while ((data = fill(data, 4)) != null) {
+
+				int length = data.getInt(data.position());
+
+				if (length < 13 || length + 8L > size - offset ||
+					(data = fill(data, length + 8)) == null) {
+					break;
+				}
+
+				int start = data.position();
+				CRC32 crc = new CRC32();
+				crc.update(data.array(), start + 4, length);
+
+				if (data.getInt(start + 4 + length) != (int) crc.getValue()) {
+					break;
+				}
+
+				Entry entry = new Entry();
+				data.position(start + 4);
+				entry.sequence = data.getLong();
+				entry.op = data.get();
+				entry.args = new String[data.getInt()];
+				entry.table = decode(data);
+
+				for (int i = 0; i < entry.args.length; i++) {
+					entry.args[i] = decode(data);
+				}
+
+				data.position(start + 4 + length + 4);
+				offset += length + 8;
+				sequence = Math.max(sequence, entry.sequence);
+
+				if (entry.op == COMMIT) {
+					entries.addAll(pending);
+					pending.clear();
+					committed = offset;
+				} else {
+					pending.add(entry);
+				}
+
+			}
+		} finally {
+			channel.position(end);
+		}
+
+		return committed;
+
+	}
+
+	/**
+	 * Makes sure a number of bytes are waiting to be read from a buffer,
+	 * reading more of the log into it if not. The buffer is replaced by a
+	 * larger one if it cannot hold that many bytes.
+	 *
+	 * @param in the buffer being read from.
+	 * @param bytes the number of bytes needed.
+	 * @return the buffer holding the bytes, or null if the log ends first.
+	 * @since 0.9
+	 */
+	private ByteBuffer fill (ByteBuffer in, int bytes) throws IOException {
+
+		if (in.remaining() >= bytes) {
+			return in;
+		} else if (bytes > in.capacity()) {
+			ByteBuffer larger = ByteBuffer.allocate(bytes);
+			larger.put(in);
+			larger.flip();
+			in = larger;
+		}
+
+		in.compact();
+
+		while (in.position() < bytes) {
+			if (channel.read(in) < 0) {
+				return null;
+			}
+		}
+
+		in.flip();
+
+		return in;
+
+	}
+
+	/**
+	 * Encodes a string as UTF-8.
+	 *
+	 * @param value the string to be encoded, may be null.
+	 * @return the encoded bytes, or null for a null string.
+	 * @since 0.9
+	 */
+	private static byte[] encode (String value) {
+		return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Decodes a length-prefixed UTF-8 string.
+	 *
+	 * @param data the buffer holding the string.
+	 * @return the decoded string, or null if a null string was written.
+	 * @since 0.9
+	 */
+	private static String decode (ByteBuffer data) {
+
+		int length = data.getInt();
+
+		if (length < 0) {
+			return null;
+		}
+
+		String value = new String(data.array(), data.position(), length,
+			StandardCharsets.UTF_8);
+		data.position(data.position() + length);
+
+		return value;
+
+	}
+
+	/**
+	 * Writes any buffered entries to the file, without forcing them to disk.
+	 *
+	 * @since 0.9
+	 */
+	private void flush () throws IOException {
+
+		out.flip();
+
+		while (out.hasRemaining()) {
+			channel.write(out);
+		}
+
+		out.clear();
+
+	}
+
+	/**
+	 * Empties the log, once every change in it has been written to the table
+	 * files.
+	 *
+	 * @since 0.9
+	 */
+	void truncate () throws IOException {
+
+		out.clear();
+		uncommitted = 0;
+		channel.truncate(0);
+		channel.force(true);
+
+	}
+
+	/**
+	 * Gets the size of the log, including entries not yet written out.
+	 *
+	 * @return the size of the log in bytes.
+	 * @since 0.9
+	 */
+	long size () throws IOException {
+		return channel.size() + out.position();
+	}
+
+	/**
+	 * Gets the sequence number of the last entry in the log.
+	 *
+	 * @return the sequence number.
+	 * @since 0.9
+	 */
+	long sequence () {
+		return sequence;
+	}
+
+	/**
+	 * Makes sure new entries are numbered after a given sequence number, such
+	 * as one already recorded in a table file.
+	 *
+	 * @param seen the sequence number to continue from.
+	 * @since 0.9
+	 */
+	void advance (long seen) {
+		sequence = Math.max(sequence, seen);
+	}
+
+	/**
+	 * Closes the log file.
+	 *
+	 * @since 0.9
+	 */
+	void close () throws IOException {
+		flush();
+		channel.close();
+	}
+
+	// ----- Entry ----- //
+
+	/**
+	 * A single change read back from the log.
+	 *
+	 * @since 0.9
+	 */
+	static class Entry {
+		long sequence;
+		byte op;
+		String table;
+		String[] args;
+	}
+
+	// ----- Constructor ----- //
+
+	/**
+	 * Class constructor, opens the log in a data directory. Anything after
+	 * the last commit marker is left over from a session that did not
+	 * commit, and is removed.
+	 *
+	 * @param dataDir the directory holding the database files.
+	 * @since 0.9
+	 */
+	LogFile (String dataDir) throws IOException {
+
+		this.channel = FileChannel.open(Paths.get(dataDir + FILE_NAME),
+			StandardOpenOption.CREATE, StandardOpenOption.READ,
+			StandardOpenOption.WRITE);
+		this.out = ByteBuffer.allocate(BUFFER_SIZE);
+		this.sequence = 0;
+		this.uncommitted = 0;
+
+		long committed = scan(new ArrayList<Entry>());
+		channel.truncate(committed);
+		channel.position(committed);
+
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		String dataDir = "bin/data/";
+
+		try {
+			LogFile log = new LogFile(dataDir);
+			log.testLogFile(dataDir);
+			new File(dataDir + FILE_NAME).delete();
+			System.out.println("LogFile tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}
@@ -0,0 +1,80 @@
+package db;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Holds the values of a LONG or TIMESTAMP column in a long array. Timestamps
+ * are held as milliseconds since the epoch.
+ *
+ * @since 0.9
+ */
+
+class LongColumn extends TypedColumn {
+
+	// ----- Instance Variables ----- //
+
+	private long[] cells;
+
+	// ----- Instance Methods ----- //
+
+	@Override
+	long getLong (int row) {
+		return cells[row];
+	}
+
+	@Override
+	double getDouble (int row) {
+		return cells[row];
+	}
+
+	@Override
+	protected void store (int row, String value) {
+		cells[row] = type == Type.TIMESTAMP ? Type.parseTimestamp(value) :
+			Long.parseLong(value);
+	}
+
+	@Override
+	protected String format (int row) {
+		return type == Type.TIMESTAMP ?
+			Instant.ofEpochMilli(cells[row]).toString() :
+			Long.toString(cells[row]);
+	}
+
+	@Override
+	protected void move (int from, int to) {
+		cells[to] = cells[from];
+	}
+
+	@Override
+	protected void ensure (int capacity) {
+		if (cells.length < capacity) {
+			cells = Arrays.copyOf(cells, grow(cells.length, capacity));
+		}
+	}
+
+	@Override
+	protected void write (ByteBuffer out, int row) {
+		out.putLong(cells[row]);
+	}
+
+	@Override
+	protected void read (ByteBuffer in, int row) {
+		cells[row] = in.getLong();
+	}
+
+	// ----- Constructor ----- //
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param type either LONG or TIMESTAMP.
+	 * @since 0.9
+	 */
+	LongColumn (Type type) {
+		super(type);
+		this.cells = new long[16];
+	}
+
+}
@@ -0,0 +1,314 @@
+package db;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compresses and decompresses data in the LZ4 block format. Repeated runs of
+ * bytes are replaced by references to an earlier copy, found through a hash
+ * table of the four bytes at each position. Only single blocks are handled,
+ * without the LZ4 frame format around them.
+ *
+ * @since 0.9
+ */
+
+class Lz4 {
+
+	// ----- Class Constants ----- //
+
+	private static final int MIN_MATCH = 4;
+	private static final int HASH_BITS = 16;
+	private static final int MAX_OFFSET = 65535;
+	private static final int LAST_LITERALS = 5;
+	private static final int MATCH_LIMIT = 12;
+
+	// ----- Class Methods ----- //
+
+	/**
+	 * Tests the methods in the Lz4 class, must be run with -ea.
+	 *
+	 * @since 0.9
+	 */
+	private static void testLz4 () throws Exception {
+
+		StringBuilder text = new StringBuilder();
+
+		for (int i = 0; i < 1000; i++) {
+			text.append("row").append(i).append(",London,active;");
+		}
+
+		byte[] repeated = text.toString().getBytes(StandardCharsets.UTF_8);
+		byte[] random = new byte[5000];
+		new Random(42).nextBytes(random);
+
+		for (byte[] data : new byte[][] {repeated, random, new byte[0],
+			"short".getBytes(StandardCharsets.UTF_8), new byte[300]}) {
+
+			byte[] packed = new byte[maxLength(data.length)];
+			int length = compress(data, data.length, packed);
+			byte[] unpacked = new byte[data.length];
+			decompress(packed, 0, length, unpacked, data.length);
+
+			assert Arrays.equals(data, unpacked) :
+				"Data not decompressed correctly.";
+
+		}
+
+		byte[] packed = new byte[maxLength(repeated.length)];
+		int length = compress(repeated, repeated.length, packed);
+		assert length < repeated.length / 4 : "Repeated data not compressed.";
+
+		try {
+			decompress(packed, 0, length - 1, new byte[repeated.length],
+				repeated.length);
+			assert false : "Truncated data should not be decompressed.";
+		} catch (IOException e) {
+		}
+
+	}
+
+	/**
+	 * Gets the most bytes that data of a given length can take up once
+	 * compressed, which is slightly more than the data itself.
+	 *
+	 * @param length the length of the data.
+	 * @return the size of buffer needed for the compressed data.
+	 * @since 0.9
+	 */
+	static int maxLength (int length) {
+		return length + length / 255 + 16;
+	}
+
+	/**
+	 * Compresses data into an LZ4 block.
+	 *
+	 * @param source the data to be compressed.
+	 * @param length the number of bytes of data.
+	 * @param dest the array to compress into, at least
+	 * {@link #maxLength(int)} bytes long.
+	 * @return the length of the compressed data.
+	 * @since 0.9
+	 */
+	static int compress (byte[] source, int length, byte[] dest) {
+
+		int[] positions = new int[1 << HASH_BITS];
+		Arrays.fill(positions, -1);
+
+		int limit = length - MATCH_LIMIT;
+		int matchEnd = length - LAST_LITERALS;
+		int anchor = 0;
+		int pos = 0;
+		int out = 0;
+
+		while (pos < limit) {
+
+			int sequence = readInt(source, pos);
+			int hash = (sequence * -1640531535) >>> (32 - HASH_BITS);
+			int ref = positions[hash];
+			positions[hash] = pos;
+
+			if (ref < 0 || pos - ref > MAX_OFFSET ||
+				readInt(source, ref) != sequence) {
+				pos++;
+				continue;
+			}
+
+			int end = pos + MIN_MATCH;
+
+			while (end < matchEnd && source[end] == source[end - pos + ref]) {
+				end++;
+			}
+
+			while (pos > anchor && ref > 0 &&
+				source[pos - 1] == source[ref - 1]) {
+				pos--;
+				ref--;
+			}
+
+			int token = out;
+			out = writeLiterals(source, anchor, pos - anchor, dest, out);
+			dest[out++] = (byte) (pos - ref);
+			dest[out++] = (byte) ((pos - ref) >>> 8);
+
+			int matchLength = end - pos - MIN_MATCH;
+
+			if (matchLength >= 15) {
+				dest[token] |= 0x0F;
+				out = writeLength(dest, out, matchLength - 15);
+			} else {
+				dest[token] |= matchLength;
+			}
+
+			anchor = pos = end;
+
+		}
+
+		return writeLiterals(source, anchor, length - anchor, dest, out);
+
+	}
+
+	/**
+	 * Writes the token and literal bytes that start a sequence. The match
+	 * half of the token is left empty, to be filled in by the caller.
+	 *
+	 * @param source the data being compressed.
+	 * @param start the position of the first literal byte.
+	 * @param literals the number of literal bytes.
+	 * @param dest the array being compressed into.
+	 * @param out the position to write at.
+	 * @return the position after the literal bytes.
+	 * @since 0.9
+	 */
+	private static int writeLiterals (byte[] source, int start, int literals,
+		byte[] dest, int out) {
+
+		int token = out++;
+
+		if (literals >= 15) {
+			dest[token] = (byte) 0xF0;
+			out = writeLength(dest, out, literals - 15);
+		} else {
+			dest[token] = (byte) (literals << 4);
+		}
+
+		System.arraycopy(source, start, dest, out, literals);
+
+		return out + literals;
+
+	}
+
+	/**
+	 * Writes the part of a length that does not fit in a token, as a run of
+	 * 255s followed by the remainder.
+	 *
+	 * @param dest the array being compressed into.
+	 * @param out the position to write at.
+	 * @param length the length left to write.
+	 * @return the position after the length.
+	 * @since 0.9
+	 */
+	private static int writeLength (byte[] dest, int out, int length) {
+
+		while (length >= 255) {
+			dest[out++] = (byte) 255;
+			length -= 255;
+		}
+
+		dest[out++] = (byte) length;
+
+		return out;
+
+	}
+
+	/**
+	 * Reads four bytes as an int, for comparing and hashing.
+	 *
+	 * @param data the array to read from.
+	 * @param pos the position of the first byte.
+	 * @return the bytes as an int.
+	 * @since 0.9
+	 */
+	private static int readInt (byte[] data, int pos) {
+		return (data[pos] & 0xFF) | (data[pos + 1] & 0xFF) << 8 |
+			(data[pos + 2] & 0xFF) << 16 | (data[pos + 3] & 0xFF) << 24;
+	}
+
+	/**
+	 * Decompresses an LZ4 block.
+	 *
+	 * @param source the array holding the compressed data.
+	 * @param offset the position of the compressed data.
+	 * @param length the length of the compressed data.
+	 * @param dest the array to decompress into.
+	 * @param rawLength the length of the data once decompressed.
+	 * @since 0.9
+	 */
+	static void decompress (byte[] source, int offset, int length,
+		byte[] dest, int rawLength) throws IOException {
+
+		int in = offset;
+		int end = offset + length;
+		int out = 0;
+
+		try {
+
+			while (in < end) {
+
+				int token = source[in++] & 0xFF;
+				int literals = token >>> 4;
+
+				if (literals == 15) {
+					int next;
+					do {
+						next = source[in++] & 0xFF;
+						literals += next;
+					} while (next == 255);
+				}
+
+				if (in + literals > end || out + literals > rawLength) {
+					throw new IOException("Compressed block is invalid.");
+				}
+
+				System.arraycopy(source, in, dest, out, literals);
+				in += literals;
+				out += literals;
+
+				if (in >= end) {
+					break;
+				} else if (in + 2 > end) {
+					throw new IOException("Compressed block is invalid.");
+				}
+
+				int distance = (source[in] & 0xFF) |
+					(source[in + 1] & 0xFF) << 8;
+				int matchLength = token & 0x0F;
+				in += 2;
+
+				if (matchLength == 15) {
+					int next;
+					do {
+						next = source[in++] & 0xFF;
+						matchLength += next;
+					} while (next == 255);
+				}
+
+				matchLength += MIN_MATCH;
+				int from = out - distance;
+
+				if (distance == 0 || from < 0 ||
+					out + matchLength > rawLength) {
+					throw new IOException("Compressed block is invalid.");
+				}
+
+				for (int i = 0; i < matchLength; i++) {
+					dest[out++] = dest[from++];
+				}
+
+			}
+
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Compressed block is invalid.");
+		}
+
+		if (out != rawLength) {
+			throw new IOException("Compressed block is invalid.");
+		}
+
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		try {
+			testLz4();
+			System.out.println("Lz4 tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}
@@ -0,0 +1,171 @@
+package db;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * Holds the values of a column in place in a table file that has been mapped
+ * into memory. Only the position of each value is kept on the heap, and
+ * strings are decoded each time they are read. The first change to the
+ * column copies its values onto the heap, after which the file is no longer
+ * used.
+ *
+ * @since 0.9
+ */
+
+class MappedColumn extends Column {
+
+	// ----- Instance Variables ----- //
+
+	private ByteBuffer buffer;
+	private int[] offsets;
+	private int size;
+	private StringColumn copy;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Tests the methods in the MappedColumn class, must be run with -ea.
+	 *
+	 * @since 0.9
+	 */
+	private void testMappedColumn () throws Exception {
+
+		assert size() == 3 : "Rows not counted correctly.";
+		assert get(0).equals("one") && get(2).equals("three") :
+			"Values not decoded correctly.";
+		assert get(1) == null : "Null value not decoded correctly.";
+
+		set(1, "two");
+		assert copy != null && buffer == null : "Column not copied on change.";
+		assert get(1).equals("two") && get(2).equals("three") :
+			"Values not copied correctly.";
+
+		add("four");
+		assert size() == 4 && get(3).equals("four") :
+			"Value not added correctly.";
+
+	}
+
+	/**
+	 * Copies the values of the column onto the heap, so that they can be
+	 * changed.
+	 *
+	 * @return the copied column.
+	 * @since 0.9
+	 */
+	private StringColumn writable () {
+
+		if (copy == null) {
+
+			StringColumn column = new StringColumn(size);
+
+			for (int row = 0; row < size; row++) {
+				column.add(get(row));
+			}
+
+			copy = column;
+			buffer = null;
+			offsets = null;
+
+		}
+
+		return copy;
+
+	}
+
+	@Override
+	String get (int row) {
+
+		if (copy != null) {
+			return copy.get(row);
+		}
+
+		int offset = offsets[row];
+		int length = buffer.getInt(offset);
+
+		if (length < 0) {
+			return null;
+		}
+
+		byte[] bytes = new byte[length];
+		ByteBuffer cell = buffer.duplicate();
+		cell.position(offset + 4);
+		cell.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+
+	}
+
+	@Override
+	void set (int row, String value) {
+		writable().set(row, value);
+	}
+
+	@Override
+	void add (String value) {
+		writable().add(value);
+	}
+
+	@Override
+	void compact (BitSet deleted) {
+		writable().compact(deleted);
+	}
+
+	@Override
+	Column copy (int noRows, BitSet deleted) {
+
+		StringColumn copy = new StringColumn(noRows);
+
+		for (int row = 0; row < noRows; row++) {
+			copy.add(deleted.get(row) ? null : get(row));
+		}
+
+		return copy;
+
+	}
+
+	@Override
+	int size () {
+		return copy != null ? copy.size() : size;
+	}
+
+	// ----- Constructor ----- //
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param buffer the mapped file holding the values.
+	 * @param offsets the position in the buffer of each value's length prefix.
+	 * @param size the number of rows in the column.
+	 * @since 0.9
+	 */
+	MappedColumn (ByteBuffer buffer, int[] offsets, int size) {
+		this.buffer = buffer;
+		this.offsets = offsets;
+		this.size = size;
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		ByteBuffer buffer = ByteBuffer.allocate(32);
+		buffer.putInt(3).put("one".getBytes(StandardCharsets.UTF_8));
+		buffer.putInt(-1);
+		buffer.putInt(5).put("three".getBytes(StandardCharsets.UTF_8));
+
+		MappedColumn column = new MappedColumn(buffer, new int[] {0, 7, 11},
+			3);
+
+		try {
+			column.testMappedColumn();
+			System.out.println("MappedColumn tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}
@@ -0,0 +1,363 @@
+package db;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Holds the values of a column outside the heap, as length-prefixed UTF-8 in
+ * direct buffers allocated in large slabs. Only the position of each value
+ * is kept on the heap, and strings are decoded each time they are read, so
+ * the values are never seen by the garbage collector. A changed value is
+ * written again at the end of the last slab, and the space it took before is
+ * reclaimed when the column is next compacted.
+ *
+ * <p>Direct buffers cannot be freed on demand, only once the garbage
+ * collector finds them unreachable. So slabs the column no longer needs, as
+ * it is compacted or released, are kept in a pool shared by every column and
+ * reused before any new slab is allocated. The pool holds at most
+ * {@link #POOL_SIZE} slabs, and any beyond that are left to the collector.
+ *
+ * @since 0.9
+ */
+
+class OffHeapColumn extends Column {
+
+	// ----- Class Constants ----- //
+
+	private static final int SLAB_SIZE = 1 << 20;
+	private static final int POOL_SIZE = 64;
+	private static final ArrayDeque<ByteBuffer> pool =
+		new ArrayDeque<ByteBuffer>();
+
+	// ----- Instance Variables ----- //
+
+	private ArrayList<ByteBuffer> slabs;
+	private long[] addresses;
+	private int size;
+	private long stored;
+	private long garbage;
+	private long placeholder;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Tests the methods in the OffHeapColumn class, must be run with -ea.
+	 *
+	 * @since 0.9
+	 */
+	private void testOffHeapColumn () throws Exception {
+
+		for (int i = 0; i < 100; i++) {
+			add("val\u00e9" + i);
+		}
+		add(null);
+		assert size() == 101 : "Values not added correctly.";
+		assert get(42).equals("val\u00e942") && get(100) == null :
+			"Value not retrieved correctly.";
+		assert slabs.get(0).isDirect() : "Values not stored off the heap.";
+
+		set(42, "changed");
+		assert get(42).equals("changed") : "Value not set correctly.";
+
+		BitSet deleted = new BitSet();
+		deleted.set(0);
+		deleted.set(42);
+		compact(deleted);
+		assert size() == 99 : "Rows not removed by compaction.";
+		assert get(0).equals("val\u00e91") && get(41).equals("val\u00e943") &&
+			get(98) == null : "Rows not kept in order by compaction.";
+
+		char[] large = new char[SLAB_SIZE + 10];
+		Arrays.fill(large, 'x');
+		add(new String(large));
+		assert get(99).length() == large.length : "Large value not stored.";
+
+		OffHeapColumn filled = new OffHeapColumn("default", 3);
+		assert filled.size() == 3 && filled.get(2).equals("default") :
+			"Placeholder values not set correctly.";
+		filled.set(0, "one");
+		assert filled.get(0).equals("one") && filled.get(1).equals("default") :
+			"Placeholder value not changed correctly.";
+		filled.compact(new BitSet());
+		filled.set(2, "three");
+		assert filled.garbage == 0 && filled.get(1).equals("default") :
+			"Shared placeholder counted as garbage.";
+
+		ByteBuffer first = slabs.get(0);
+		release();
+		assert size() == 0 && slabs.isEmpty() : "Memory not released.";
+		OffHeapColumn reused = new OffHeapColumn();
+		reused.add("reused");
+		assert reused.slabs.get(0) == first && reused.get(0).equals("reused") :
+			"Released slab not reused.";
+
+	}
+
+	/**
+	 * Writes a value at the end of the last slab, starting a new slab if it
+	 * does not fit.
+	 *
+	 * @param value the value to be written, may be null.
+	 * @return the address of the value, or -1 for a null value.
+	 * @since 0.9
+	 */
+	private long write (String value) {
+
+		if (value == null) {
+			return -1;
+		}
+
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		int length = 4 + bytes.length;
+		ByteBuffer slab = slabs.isEmpty() ? null : slabs.get(slabs.size() - 1);
+
+		if (slab == null || slab.remaining() < length) {
+			slab = length <= SLAB_SIZE ? takeSlab() :
+				ByteBuffer.allocateDirect(length);
+			slabs.add(slab);
+		}
+
+		long address = (long) (slabs.size() - 1) << 32 | slab.position();
+		slab.putInt(bytes.length);
+		slab.put(bytes);
+		stored += length;
+
+		return address;
+
+	}
+
+	/**
+	 * Takes an empty slab from the pool, or allocates one if the pool is
+	 * empty.
+	 *
+	 * @return the slab, with nothing written to it.
+	 * @since 0.9
+	 */
+	private static ByteBuffer takeSlab () {
+
+		synchronized (pool) {
+
+			ByteBuffer slab = pool.pollLast();
+
+			if (slab != null) {
+				slab.clear();
+				return slab;
+			}
+
+		}
+
+		return ByteBuffer.allocateDirect(SLAB_SIZE);
+
+	}
+
+	/**
+	 * Hands slabs that are no longer used back to the pool, as far as it has
+	 * room for them. Slabs larger than usual, made for a single large value,
+	 * are left to the garbage collector.
+	 *
+	 * @param unused the slabs, which must not be read afterwards.
+	 * @since 0.9
+	 */
+	private static void poolSlabs (ArrayList<ByteBuffer> unused) {
+
+		synchronized (pool) {
+			for (ByteBuffer slab : unused) {
+				if (slab.capacity() == SLAB_SIZE && pool.size() < POOL_SIZE) {
+					pool.addLast(slab);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Gets the number of bytes a value takes up in its slab.
+	 *
+	 * @param address the address of the value.
+	 * @return the number of bytes, or 0 for a null value.
+	 * @since 0.9
+	 */
+	private int length (long address) {
+		return address < 0 ? 0 :
+			4 + slabs.get((int) (address >>> 32)).getInt((int) address);
+	}
+
+	/**
+	 * Writes the values of the rows that are kept into new slabs, leaving
+	 * out space no longer used. Rows that share the placeholder still share
+	 * a single copy of it afterwards.
+	 *
+	 * @param deleted the positions of the rows to be removed, may be null.
+	 * @since 0.9
+	 */
+	private void rewrite (BitSet deleted) {
+
+		OffHeapColumn copy = new OffHeapColumn();
+		copy.addresses = new long[Math.max(size, 16)];
+
+		for (int row = 0; row < size; row++) {
+
+			if (deleted != null && deleted.get(row)) {
+				continue;
+			}
+
+			long address = addresses[row];
+
+			if (address >= 0 && address == placeholder) {
+				if (copy.placeholder < 0) {
+					copy.placeholder = copy.write(get(row));
+				}
+				copy.addresses[copy.size++] = copy.placeholder;
+			} else {
+				copy.addresses[copy.size++] = copy.write(get(row));
+			}
+
+		}
+
+		poolSlabs(slabs);
+		slabs = copy.slabs;
+		addresses = copy.addresses;
+		size = copy.size;
+		stored = copy.stored;
+		garbage = 0;
+		placeholder = copy.placeholder;
+
+	}
+
+	@Override
+	String get (int row) {
+
+		long address = addresses[row];
+
+		if (address < 0) {
+			return null;
+		}
+
+		ByteBuffer slab = slabs.get((int) (address >>> 32)).duplicate();
+		int offset = (int) address;
+		byte[] bytes = new byte[slab.getInt(offset)];
+
+		slab.position(offset + 4);
+		slab.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+
+	}
+
+	@Override
+	void set (int row, String value) {
+
+		if (addresses[row] != placeholder) {
+			garbage += length(addresses[row]);
+		}
+
+		addresses[row] = write(value);
+
+		if (garbage > SLAB_SIZE && garbage * 2 > stored) {
+			rewrite(null);
+		}
+
+	}
+
+	@Override
+	void add (String value) {
+
+		if (size == addresses.length) {
+			addresses = Arrays.copyOf(addresses, size + (size >> 1) + 1);
+		}
+
+		addresses[size++] = write(value);
+
+	}
+
+	@Override
+	void compact (BitSet deleted) {
+		rewrite(deleted);
+	}
+
+	@Override
+	Column copy (int noRows, BitSet deleted) {
+
+		OffHeapColumn copy = new OffHeapColumn();
+
+		for (int row = 0; row < noRows; row++) {
+			copy.add(deleted.get(row) ? null : get(row));
+		}
+
+		return copy;
+
+	}
+
+	@Override
+	int size () {
+		return size;
+	}
+
+	@Override
+	void release () {
+		poolSlabs(slabs);
+		slabs.clear();
+		addresses = new long[0];
+		size = 0;
+		stored = 0;
+		garbage = 0;
+		placeholder = -1;
+	}
+
+	// ----- Constructor ----- //
+
+	/**
+	 * Class constructor, creates an empty column.
+	 *
+	 * @since 0.9
+	 */
+	OffHeapColumn () {
+		this.slabs = new ArrayList<ByteBuffer>();
+		this.addresses = new long[16];
+		this.size = 0;
+		this.stored = 0;
+		this.garbage = 0;
+		this.placeholder = -1;
+	}
+
+	/**
+	 * Class constructor, creates a column with every row holding the same
+	 * value. The value is only stored once, and rows that still share it
+	 * are not counted as garbage when they change.
+	 *
+	 * @param placeholder the value of every row.
+	 * @param rows the number of rows.
+	 * @since 0.9
+	 */
+	OffHeapColumn (String placeholder, int rows) {
+
+		this();
+		this.addresses = new long[Math.max(rows, 16)];
+		this.size = rows;
+
+		this.placeholder = rows == 0 ? -1 : write(placeholder);
+
+		Arrays.fill(addresses, 0, rows, this.placeholder);
+
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		OffHeapColumn column = new OffHeapColumn();
+
+		try {
+			column.testOffHeapColumn();
+			System.out.println("OffHeapColumn tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}
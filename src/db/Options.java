@@ -0,0 +1,109 @@
+package db;
+
+/**
+ * Holds the settings used when opening a database.
+ *
+ * @since 0.9
+ */
+
+public class Options {
+
+	// ----- Instance Variables ----- //
+
+	/**
+	 * Whether table files are mapped into memory rather than read in, so that
+	 * values are only decoded when they are used. Best suited to tables that
+	 * are read much more often than they are changed.
+	 */
+	public boolean mapped;
+
+	/**
+	 * Whether the values of tables are held outside the heap, in direct
+	 * buffers, so that large tables do not slow down garbage collection.
+	 * Values are then decoded each time they are read. Tables that are
+	 * mapped are left in their files instead.
+	 */
+	public boolean offHeap;
+
+	/**
+	 * Whether tables are only read from file the first time they are used.
+	 * Opening the database then only reads the column catalog of each table.
+	 */
+	public boolean lazy;
+
+	/**
+	 * The most tables held in memory at once, or 0 for no limit. Beyond this,
+	 * the least recently used tables without unsaved changes are unloaded,
+	 * to be read again when next used.
+	 */
+	public int residentTables;
+
+	/**
+	 * The fraction of the maximum heap size that may be in use before the
+	 * least recently used tables without unsaved changes are unloaded, or 0
+	 * for no limit.
+	 */
+	public double memoryThreshold;
+
+	/**
+	 * The most threads used to read or write table files at once, one table
+	 * per thread.
+	 */
+	public int parallelism;
+
+	/**
+	 * The compression used for the files of new tables. Existing tables keep
+	 * their own setting, which can be changed with
+	 * {@link Database#compress(String, Compression)}.
+	 */
+	public Compression compression;
+
+	/**
+	 * Whether changes are recorded in a write-ahead log. Committing then only
+	 * forces the log to disk, and the table files are rewritten at the next
+	 * checkpoint.
+	 */
+	public boolean log;
+
+	/**
+	 * The size in bytes the write-ahead log may reach before a commit also
+	 * checkpoints the database.
+	 */
+	public long checkpointSize;
+
+	/**
+	 * The most rows sorted in memory at once by an ordered selection. Beyond
+	 * this, sorted runs are written to temporary files in the data directory
+	 * and merged as the result is built.
+	 */
+	public int sortBudget;
+
+	/**
+	 * The fewest rows a selection must read before it is split into ranges
+	 * that are scanned in parallel, on the common fork/join pool, or 0 to
+	 * always scan on the calling thread.
+	 */
+	public int parallelThreshold;
+
+	// ----- Constructor ----- //
+
+	/**
+	 * Class constructor, creates the default settings.
+	 *
+	 * @since 0.9
+	 */
+	public Options () {
+		this.mapped = false;
+		this.offHeap = false;
+		this.lazy = false;
+		this.residentTables = 0;
+		this.memoryThreshold = 0;
+		this.parallelism = Runtime.getRuntime().availableProcessors();
+		this.compression = Compression.NONE;
+		this.log = false;
+		this.checkpointSize = 64L << 20;
+		this.sortBudget = 1 << 20;
+		this.parallelThreshold = 1 << 16;
+	}
+
+}
@@ -0,0 +1,643 @@
+package db;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the values of a column in order, as a B+tree, so that rows can be
+ * found by a range of values or by a prefix as well as by a single value.
+ * Entries are ordered by value, as compared by the column's type, and then
+ * by slot, so every entry is distinct even when values repeat. Entries are
+ * held in leaves, which are linked in order so that a range is read by
+ * finding its first entry and following the leaves from there.
+ *
+ * <p>For every type but STRING, each entry also holds its value decoded by
+ * {@link Type#sortKey(String)}, and entries are compared by that, so that a
+ * search decodes only the value it looks for rather than every value it
+ * passes.
+ *
+ * <p>A leaf left empty by removing entries is dropped from the tree, but
+ * leaves that only become sparse are not merged. The index is rebuilt
+ * whenever the table is compacted, which bounds the space left behind by
+ * removed entries.
+ *
+ * @since 0.9
+ */
+
+class OrderedIndex extends Index {
+
+	// ----- Class Constants ----- //
+
+	private static final int ORDER = 64;
+
+	// ----- Instance Variables ----- //
+
+	private Type type;
+	private boolean keyed;
+	private Node root;
+	private Leaf first;
+	private Node split;
+	private String splitValue;
+	private long splitKey;
+	private int splitSlot;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Tests the methods in the OrderedIndex class, must be run with -ea.
+	 *
+	 * @since 0.9
+	 */
+	private void testOrderedIndex () throws Exception {
+
+		for (int i = 0; i < 10000; i++) {
+			add(Integer.toString((i * 7919) % 1000), i);
+		}
+		add(null, 10000);
+
+		assert get("42").length == 10 : "Repeated values not kept.";
+		assert get("1000").length == 0 : "Missing value found.";
+		assert Arrays.equals(get(null), new int[] {10000}) :
+			"Null value not indexed.";
+
+		int[] range = range("998", null);
+		assert range.length == 20 && (range[0] * 7919) % 1000 == 998 &&
+			(range[19] * 7919) % 1000 == 999 : "Range not read in order.";
+		assert range("5", "14").length == 100 && range("9", "2").length == 0 :
+			"Range not bounded correctly.";
+		assert range(null, "0").length == 10 : "Null read as part of range.";
+		assert range("05", "5").length == 10 :
+			"Values not compared as numbers.";
+
+		for (int i = 0; i < 5000; i++) {
+			remove(Integer.toString((i * 7919) % 1000), i);
+		}
+		assert range(null, null).length == 5000 && get("42").length == 5 :
+			"Entries not removed correctly.";
+
+		clear();
+		assert range(null, null).length == 0 : "Index not cleared.";
+
+		for (int i = 0; i < 10000; i++) {
+			add(Integer.toString(i), i);
+		}
+		for (int i = 0; i < 9000; i++) {
+			remove(Integer.toString(i), i);
+		}
+		int leaves = 0;
+		for (Leaf leaf = first; leaf != null; leaf = leaf.next) {
+			leaves++;
+		}
+		assert leaves <= 1000 / (ORDER / 2) + 1 && first.values[0].equals(
+			"9000") && range("8000", "9009").length == 10 :
+			"Empty leaves not dropped.";
+		for (int i = 9000; i < 10000; i++) {
+			remove(Integer.toString(i), i);
+		}
+		assert root == first && first.size == 0 && first.next == null :
+			"Emptied tree not reset.";
+
+		OrderedIndex doubles = new OrderedIndex(Type.DOUBLE);
+		String[] numbers = {"10.0", "-1.5", "2.0", "0.5", "-20.0"};
+		for (int i = 0; i < numbers.length; i++) {
+			doubles.add(numbers[i], i);
+		}
+		assert Arrays.equals(doubles.range(null, null),
+			new int[] {4, 1, 3, 2, 0}) &&
+			Arrays.equals(doubles.range("-1.5", "2"), new int[] {1, 3, 2}) :
+			"Doubles not ordered by value.";
+		doubles.remove("-1.5", 1);
+		assert Arrays.equals(doubles.get("-1.5"), new int[0]) :
+			"Double not removed.";
+
+		OrderedIndex names = new OrderedIndex(Type.STRING);
+		String[] values = {"apple", "apricot", "banana", "ap", "a", "b"};
+		for (int i = 0; i < values.length; i++) {
+			names.add(values[i], i);
+		}
+		assert Arrays.equals(names.prefix("ap"), new int[] {3, 0, 1}) :
+			"Prefix not read correctly.";
+		assert Arrays.equals(names.prefix(""), new int[] {4, 3, 0, 1, 5, 2}) :
+			"Empty prefix should match every value.";
+
+	}
+
+	@Override
+	void add (String value, int slot) {
+
+		split = null;
+		insert(root, value, key(value), slot);
+
+		if (split != null) {
+
+			Inner newRoot = new Inner(keyed);
+			newRoot.insertAt(0, splitValue, splitKey, splitSlot);
+			newRoot.children[0] = root;
+			newRoot.children[1] = split;
+			root = newRoot;
+			split = null;
+
+		}
+
+	}
+
+	/**
+	 * Adds an entry below a node, splitting the node if it overflows. A new
+	 * right-hand sibling is left in split, with its first entry in
+	 * splitValue, splitKey and splitSlot, for the parent to take in.
+	 *
+	 * @param node the node to add the entry below.
+	 * @param value the value of the entry.
+	 * @param key the value decoded by {@link #key(String)}.
+	 * @param slot the slot of the entry.
+	 * @since 0.9
+	 */
+	private void insert (Node node, String value, long key, int slot) {
+
+		int pos = upperBound(node, value, key, slot);
+
+		if (node instanceof Leaf) {
+			node.insertAt(pos, value, key, slot);
+		} else {
+
+			Inner inner = (Inner) node;
+			insert(inner.children[pos], value, key, slot);
+
+			if (split == null) {
+				return;
+			}
+
+			inner.insertAt(pos, splitValue, splitKey, splitSlot);
+			System.arraycopy(inner.children, pos + 1, inner.children, pos + 2,
+				inner.size - pos - 1);
+			inner.children[pos + 1] = split;
+			split = null;
+
+		}
+
+		if (node.size > ORDER) {
+			splitNode(node);
+		}
+
+	}
+
+	/**
+	 * Splits a full node in two, leaving the right half in split.
+	 *
+	 * @param node the node to be split.
+	 * @since 0.9
+	 */
+	private void splitNode (Node node) {
+
+		int half = node.size / 2;
+
+		if (node instanceof Leaf) {
+
+			Leaf leaf = (Leaf) node;
+			Leaf right = new Leaf(keyed);
+			leaf.moveTo(right, half, leaf.size - half);
+			leaf.size = half;
+
+			right.next = leaf.next;
+			right.previous = leaf;
+			if (leaf.next != null) {
+				leaf.next.previous = right;
+			}
+			leaf.next = right;
+			splitValue = right.values[0];
+			splitKey = keyed ? right.keys[0] : 0;
+			splitSlot = right.slots[0];
+			split = right;
+
+		} else {
+
+			Inner inner = (Inner) node;
+			Inner right = new Inner(keyed);
+			inner.moveTo(right, half + 1, inner.size - half - 1);
+			System.arraycopy(inner.children, half + 1, right.children, 0,
+				right.size + 1);
+
+			splitValue = inner.values[half];
+			splitKey = keyed ? inner.keys[half] : 0;
+			splitSlot = inner.slots[half];
+			Arrays.fill(inner.values, half, inner.size, null);
+			Arrays.fill(inner.children, half + 1, inner.size + 1, null);
+			inner.size = half;
+			split = right;
+
+		}
+
+	}
+
+	@Override
+	void remove (String value, int slot) {
+
+		if (delete(root, value, key(value), slot)) {
+			clear();
+		}
+
+		while (root instanceof Inner && root.size == 0) {
+			root = ((Inner) root).children[0];
+		}
+
+	}
+
+	/**
+	 * Removes an entry from below a node. A leaf left empty is unlinked from
+	 * its neighbours, and a node left with no children is dropped by its
+	 * parent, along with the entry that separated it from its siblings.
+	 *
+	 * @param node the node to remove the entry from below.
+	 * @param value the value of the entry.
+	 * @param key the value decoded by {@link #key(String)}.
+	 * @param slot the slot of the entry.
+	 * @return true if the node is left empty and should be dropped.
+	 * @since 0.9
+	 */
+	private boolean delete (Node node, String value, long key, int slot) {
+
+		int pos = upperBound(node, value, key, slot);
+
+		if (node instanceof Inner) {
+
+			Inner inner = (Inner) node;
+
+			if (!delete(inner.children[pos], value, key, slot)) {
+				return false;
+			} else if (inner.size == 0) {
+				return true;
+			}
+
+			inner.removeAt(pos > 0 ? pos - 1 : 0);
+			System.arraycopy(inner.children, pos + 1, inner.children, pos,
+				inner.size + 1 - pos);
+			inner.children[inner.size + 1] = null;
+
+			return false;
+
+		}
+
+		pos--;
+
+		if (pos < 0 || node.slots[pos] != slot ||
+			compare(node, pos, value, key) != 0) {
+			return false;
+		}
+
+		node.removeAt(pos);
+
+		if (node.size > 0 || node == root) {
+			return false;
+		}
+
+		Leaf leaf = (Leaf) node;
+
+		if (leaf.previous == null) {
+			first = leaf.next;
+		} else {
+			leaf.previous.next = leaf.next;
+		}
+		if (leaf.next != null) {
+			leaf.next.previous = leaf.previous;
+		}
+
+		return true;
+
+	}
+
+	@Override
+	int[] get (String value) {
+
+		Slots found = new Slots();
+		long key = key(value);
+		Leaf leaf = seek(value, key, found);
+
+		for (int i = found.position; leaf != null; leaf = leaf.next, i = 0) {
+			for (; i < leaf.size; i++) {
+				if (compare(leaf, i, value, key) != 0) {
+					return found.toArray();
+				}
+				found.add(leaf.slots[i]);
+			}
+		}
+
+		return found.toArray();
+
+	}
+
+	/**
+	 * Gets the slots of the rows holding values within a range, in order of
+	 * value. Rows holding null are never part of a range.
+	 *
+	 * @param from the lowest value in the range, or null for no lower bound.
+	 * @param to the highest value in the range, or null for no upper bound.
+	 * @return an array of the slots, in order of value and then of slot.
+	 * @since 0.9
+	 */
+	int[] range (String from, String to) {
+
+		Slots found = new Slots();
+		Leaf leaf = seek(from, key(from), found);
+		long toKey = key(to);
+
+		for (int i = found.position; leaf != null; leaf = leaf.next, i = 0) {
+			for (; i < leaf.size; i++) {
+
+				if (leaf.values[i] == null) {
+					continue;
+				} else if (to != null && compare(leaf, i, to, toKey) > 0) {
+					return found.toArray();
+				}
+
+				found.add(leaf.slots[i]);
+
+			}
+		}
+
+		return found.toArray();
+
+	}
+
+	/**
+	 * Gets the slots of the rows holding values that start with a prefix, in
+	 * order of value. Values are only grouped by prefix when they are
+	 * ordered as text, so this is only meaningful for STRING columns.
+	 *
+	 * @param prefix the start of the values being looked for.
+	 * @return an array of the slots, in order of value and then of slot.
+	 * @since 0.9
+	 */
+	int[] prefix (String prefix) {
+
+		Slots found = new Slots();
+		Leaf leaf = seek(prefix, key(prefix), found);
+
+		for (int i = found.position; leaf != null; leaf = leaf.next, i = 0) {
+			for (; i < leaf.size; i++) {
+				if (!leaf.values[i].startsWith(prefix)) {
+					return found.toArray();
+				}
+				found.add(leaf.slots[i]);
+			}
+		}
+
+		return found.toArray();
+
+	}
+
+	/**
+	 * Finds the leaf holding the first entry with a value no less than the
+	 * one given, i.e. the first entry a scan from that value should read.
+	 * A null value finds the very first entry.
+	 *
+	 * @param value the value to start from.
+	 * @param key the value decoded by {@link #key(String)}.
+	 * @param found the collector for the scan, whose position is set to that
+	 * of the entry within the leaf.
+	 * @return the leaf holding the entry.
+	 * @since 0.9
+	 */
+	private Leaf seek (String value, long key, Slots found) {
+
+		if (value == null) {
+			found.position = 0;
+			return first;
+		}
+
+		Node node = root;
+
+		while (node instanceof Inner) {
+			node = ((Inner) node).children[upperBound(node, value, key,
+				Integer.MIN_VALUE)];
+		}
+
+		found.position = upperBound(node, value, key, Integer.MIN_VALUE);
+
+		return (Leaf) node;
+
+	}
+
+	/**
+	 * Finds the number of entries in a node that come before or equal to a
+	 * given entry. In an inner node this is the index of the child to
+	 * follow, and in a leaf the position to insert at.
+	 *
+	 * @param node the node being searched.
+	 * @param value the value of the entry.
+	 * @param key the value decoded by {@link #key(String)}.
+	 * @param slot the slot of the entry.
+	 * @return the number of entries no greater than the one given.
+	 * @since 0.9
+	 */
+	private int upperBound (Node node, String value, long key, int slot) {
+
+		int low = 0;
+		int high = node.size;
+
+		while (low < high) {
+
+			int mid = (low + high) >>> 1;
+			int order = compare(node, mid, value, key);
+
+			if (order == 0) {
+				order = Integer.compare(node.slots[mid], slot);
+			}
+
+			if (order <= 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+
+		}
+
+		return low;
+
+	}
+
+	/**
+	 * Compares the value of an entry in a node with a given value, as the
+	 * column's type orders them. Null comes before every other value.
+	 *
+	 * @param node the node holding the entry.
+	 * @param pos the position of the entry within the node.
+	 * @param value the value to compare the entry's with.
+	 * @param key the value decoded by {@link #key(String)}.
+	 * @return less than, equal to or greater than zero as the entry's value
+	 * is less than, equal to or greater than the one given.
+	 * @since 0.9
+	 */
+	private int compare (Node node, int pos, String value, long key) {
+
+		String held = node.values[pos];
+
+		if (held == null || value == null) {
+			return held == value ? 0 : held == null ? -1 : 1;
+		} else if (keyed) {
+			return Long.compare(node.keys[pos], key);
+		}
+
+		return held.compareTo(value);
+
+	}
+
+	/**
+	 * Decodes a value into the key entries are compared by, for every type
+	 * but STRING.
+	 *
+	 * @param value the value, which may be null.
+	 * @return the decoded value, or zero for null or a STRING column.
+	 * @since 0.9
+	 */
+	private long key (String value) {
+		return keyed && value != null ? type.sortKey(value) : 0;
+	}
+
+	@Override
+	void clear () {
+		first = new Leaf(keyed);
+		root = first;
+	}
+
+	// ----- Nodes ----- //
+
+	/**
+	 * A node of the tree, holding up to ORDER entries in order. A node may
+	 * briefly hold one more while it is being split.
+	 *
+	 * @since 0.9
+	 */
+	private static class Node {
+
+		String[] values = new String[ORDER + 1];
+		long[] keys;
+		int[] slots = new int[ORDER + 1];
+		int size;
+
+		Node (boolean keyed) {
+			keys = keyed ? new long[ORDER + 1] : null;
+		}
+
+		void insertAt (int pos, String value, long key, int slot) {
+			System.arraycopy(values, pos, values, pos + 1, size - pos);
+			System.arraycopy(slots, pos, slots, pos + 1, size - pos);
+			values[pos] = value;
+			slots[pos] = slot;
+			if (keys != null) {
+				System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+				keys[pos] = key;
+			}
+			size++;
+		}
+
+		void removeAt (int pos) {
+			System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+			System.arraycopy(slots, pos + 1, slots, pos, size - pos - 1);
+			if (keys != null) {
+				System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+			}
+			values[--size] = null;
+		}
+
+		void moveTo (Node other, int from, int count) {
+			System.arraycopy(values, from, other.values, 0, count);
+			System.arraycopy(slots, from, other.slots, 0, count);
+			if (keys != null) {
+				System.arraycopy(keys, from, other.keys, 0, count);
+			}
+			Arrays.fill(values, from, from + count, null);
+			other.size = count;
+		}
+
+	}
+
+	/**
+	 * A leaf of the tree, whose entries are those of the index. Leaves are
+	 * linked both ways so that an empty one can be unlinked.
+	 *
+	 * @since 0.9
+	 */
+	private static class Leaf extends Node {
+
+		Leaf next;
+		Leaf previous;
+
+		Leaf (boolean keyed) {
+			super(keyed);
+		}
+
+	}
+
+	/**
+	 * An inner node of the tree, whose entries separate its children. Every
+	 * entry below a child comes before the entry that follows the child, and
+	 * no earlier than the entry that precedes it.
+	 *
+	 * @since 0.9
+	 */
+	private static class Inner extends Node {
+
+		Node[] children = new Node[ORDER + 2];
+
+		Inner (boolean keyed) {
+			super(keyed);
+		}
+
+	}
+
+	/**
+	 * Collects the slots found by a scan.
+	 *
+	 * @since 0.9
+	 */
+	private static class Slots {
+
+		int[] slots = new int[16];
+		int size;
+		int position;
+
+		void add (int slot) {
+
+			if (size == slots.length) {
+				slots = Arrays.copyOf(slots, size * 2);
+			}
+
+			slots[size++] = slot;
+
+		}
+
+		int[] toArray () {
+			return Arrays.copyOf(slots, size);
+		}
+
+	}
+
+	// ----- Constructor ----- //
+
+	/**
+	 * Class constructor, creates an empty index for a column of a given type.
+	 *
+	 * @param columnType the type of the indexed column.
+	 * @since 0.9
+	 */
+	OrderedIndex (Type columnType) {
+		this.type = columnType;
+		this.keyed = columnType != Type.STRING;
+		clear();
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		OrderedIndex index = new OrderedIndex(Type.INT);
+
+		try {
+			index.testOrderedIndex();
+			System.out.println("OrderedIndex tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}
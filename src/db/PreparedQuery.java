@@ -0,0 +1,142 @@
+package db;
+
+/**
+ * A selection prepared once and run many times, for queries of the same
+ * shape that are run often. The positions of the selected columns are found,
+ * the condition checked against the table, and the index the rows are found
+ * through chosen when the query is prepared, rather than every time it is
+ * run. Each run only fetches the slots that index finds for its values, or
+ * scans the table if the condition has no index to use.
+ *
+ * <p>The work is redone only when it may be out of date, i.e. when the
+ * table's schema changes: a column is added, dropped, renamed or encoded, or
+ * an index is created or dropped. A query on a column that no longer exists
+ * then fails when it is run. Changes to the rows alone, including new values
+ * in a dictionary column, are picked up by the bound condition itself.
+ *
+ * @since 0.9
+ */
+
+public class PreparedQuery {
+
+	// ----- Instance Variables ----- //
+
+	private Query query;
+	private Database db;
+	private String tableName;
+	private String[] cols;
+	private Condition where;
+	private Table table;
+	private long schemaVersion;
+	private int[] selected;
+	private Condition bound;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Runs the query, returning every row meeting the condition, in table
+	 * order.
+	 *
+	 * @return a ResultTable containing the results of the query.
+	 * @since 0.9
+	 */
+	public ResultTable select () throws Exception {
+
+		Table selectTable = resolve();
+
+		return query.selectRows(selectTable, cols, selected, bound);
+
+	}
+
+	/**
+	 * Runs the query, returning a page of the rows meeting the condition, in
+	 * table order, i.e. with OFFSET and LIMIT.
+	 *
+	 * @param offset the number of matching rows to skip.
+	 * @param limit the most rows to return, at least one.
+	 * @return a ResultTable containing the page, whose
+	 * {@link ResultTable#nextKey()} continues after it.
+	 * @since 0.9
+	 */
+	public ResultTable select (int offset, int limit) throws Exception {
+
+		Table selectTable = resolve();
+
+		return query.page(selectTable, cols, selected, bound, 0, offset,
+			limit);
+
+	}
+
+	/**
+	 * Runs the query, returning a page of the rows meeting the condition,
+	 * starting after the row with a given primary key, in table order.
+	 *
+	 * @param afterKey the primary key of the row before the page, or null to
+	 * start from the first row.
+	 * @param limit the most rows to return, at least one.
+	 * @return a ResultTable containing the page, whose
+	 * {@link ResultTable#nextKey()} continues after it.
+	 * @since 0.9
+	 */
+	public ResultTable selectAfter (String afterKey, int limit)
+		throws Exception {
+
+		Table selectTable = resolve();
+
+		return query.page(selectTable, cols, selected, bound,
+			Query.slotAfter(selectTable, afterKey), 0, limit);
+
+	}
+
+	/**
+	 * Gets the table the query runs on, first finding the selected columns
+	 * and binding the condition again if its schema has changed. The table
+	 * may also have been unloaded and read back in since the query last ran,
+	 * in which case the same is done.
+	 *
+	 * @return the table.
+	 * @since 0.9
+	 */
+	private Table resolve () throws Exception {
+
+		Table current = db.getTable(tableName);
+
+		if (current != table || current.schemaVersion() != schemaVersion) {
+			int[] indices = query.columnIndices(current, cols);
+			bound = where == null ? null : where.bind(current);
+			selected = indices;
+			schemaVersion = current.schemaVersion();
+			table = current;
+		}
+
+		return current;
+
+	}
+
+	// ----- Constructor ----- //
+
+	/**
+	 * Class constructor, prepares a query on a table, checking that the
+	 * table and the selected columns exist and that the condition applies.
+	 *
+	 * @param query the query handler the prepared query runs through.
+	 * @param db the database holding the table.
+	 * @param tableName the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @param where the condition the rows must meet, or null for every row.
+	 * @since 0.9
+	 */
+	PreparedQuery (Query query, Database db, String tableName, String[] cols,
+		Condition where) throws Exception {
+
+		this.query = query;
+		this.db = db;
+		this.tableName = tableName;
+		this.cols = cols.clone();
+		this.where = where;
+
+		resolve();
+
+	}
+
+}
@@ -6,7 +6,7 @@ package db;
  * @since 0.4
  */
 
-public class Printer implements java.io.Serializable {
+public class Printer {
 
 	// ----- Instance Variables ----- //
 
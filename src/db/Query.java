@@ -3,6 +3,12 @@ package db;
 import java.util.LinkedList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 /**
  * Handles querying of the database.
@@ -12,6 +18,10 @@ import java.util.Arrays;
 
 public class Query {
 
+	// ----- Class Constants ----- //
+
+	private static final int BATCH_SIZE = 1024;
+
 	// ----- Instance Variables ----- //
 
 	private Database db;
@@ -29,7 +39,8 @@ public class Query {
 		db.createTable("testTable", columns);
 
 		String[] selectCols = {"colOne", "colThree"};
-		int[] indices = columnIndices(db.getTable("testTable"), selectCols);
+		int[] indices = columnIndices(db.getTable("testTable").getColumns(),
+			selectCols);
 		assert Arrays.equals(indices, new int[]{0, 2}) : 
 			"Column indices not obtained correctly.";
 
@@ -76,7 +87,72 @@ public class Query {
 		assert result.getRows()[0].length == 2 :
 			"Selection returns incorrect object.";
 
+		try (Cursor cursor = scan("testTable", subCols)) {
+			assert Arrays.equals(cursor.next(), firstRow) &&
+				cursor.hasNext() : "Rows not scanned correctly.";
+		}
+		try (Stream<String[]> rows = stream("testTable", subCols)) {
+			assert rows.filter(row -> row[1].equals("default")).count() == 3 :
+				"Rows not streamed correctly.";
+		}
+
+		encode("testTable", "colFour");
+		assert db.getTable("testTable").column(2) instanceof DictionaryColumn
+			: "Column not encoded as a dictionary.";
+		assert Arrays.equals(select("testTable", subCols).getRows()[0],
+			firstRow) : "Encoded column not selected correctly.";
+
+		createIndex("testTable", "colThree");
+		assert Arrays.equals(db.schema.indexes("testTable"),
+			new String[] {"colThree"}) : "Index not added to schema.";
+		ResultTable found = select("testTable", subCols, "colThree",
+			"valSix");
+		assert found.noRecords() == 1 && found.getRows()[0][0]
+			.equals("valFour") : "Rows not selected by index.";
+		assert found.stats().examined == 1 && found.stats().indexed :
+			"Index not used for selection.";
+		ResultTable where = select("testTable", subCols, Condition.or(
+			Condition.equal("firstCol", "valOne"), Condition.prefix("colThree",
+			"valN")));
+		assert Arrays.deepEquals(where.getRows(), new String[][] {
+			{"valOne", "default"}, {"valSeven", "default"}}) &&
+			where.stats().examined == 3 && where.stats().returned == 2 :
+			"Rows not selected by condition.";
+		ResultTable batched = selectBatched("testTable", subCols,
+			Condition.or(Condition.equal("firstCol", "valOne"),
+			Condition.prefix("colThree", "valN")));
+		assert Arrays.deepEquals(batched.getRows(), where.getRows()) &&
+			batched.stats().examined == 3 : "Rows not selected in batches.";
+		assert Arrays.deepEquals(selectBatched("testTable", subCols)
+			.getRows(), select("testTable", subCols).getRows()) :
+			"Every row not selected in batches.";
+		dropIndex("testTable", "colThree");
+		assert Arrays.deepEquals(select("testTable", subCols, "colThree",
+			"valSix").getRows(), found.getRows()) :
+			"Rows not selected without an index.";
+
+		createIndex("testTable", "firstCol", true);
+		assert Arrays.deepEquals(selectRange("testTable", subCols, "firstCol",
+			"valF", "valS").getRows(), new String[][] {{"valFour", "default"},
+			{"valOne", "default"}}) : "Rows not selected by range.";
+		assert selectPrefix("testTable", subCols, "firstCol", "valS")
+			.getRows()[0][0].equals("valSeven") :
+			"Rows not selected by prefix.";
+		dropIndex("testTable", "firstCol");
+
+		String[] keyRow = {"valFour", "valSix", "default"};
+		assert Arrays.equals(get("testTable", "valFour"), keyRow) :
+			"Row not retrieved by primary key.";
+
 		db.query.delete("testTable", "valFour");
+		try {
+			get("testTable", "valFour");
+			assert false : "Deleted row should not be retrieved.";
+		} catch (Exception e) {
+			if (!e.getMessage().equals("Row does not exist.")) {
+				throw e;
+			}
+		}
 		result = db.getTable("testTable");
 		String[][] tableRows = result.getRows();
 		assert tableRows.length == 2 : "Row not deleted correctly.";
@@ -84,24 +160,275 @@ public class Query {
 		assert Arrays.equals(tableRows[1], secondRow) :
 			"Row not deleted correctly.";
 
+		String[] numbered = {"id", "group"};
+		db.createTable("numberTable", numbered, new Type[] {Type.INT,
+			Type.INT});
+		for (int i = 0; i < BATCH_SIZE * 3; i++) {
+			insert("numberTable", new String[] {"" + i, "" + i % 7});
+		}
+		for (int i = 0; i < BATCH_SIZE * 3; i += 5) {
+			delete("numberTable", "" + i);
+		}
+		Condition inGroup = Condition.between("group", "2", "3");
+		assert Arrays.deepEquals(selectBatched("numberTable", numbered,
+			inGroup).getRows(), select("numberTable", numbered, inGroup)
+			.getRows()) : "Batches not selected across their boundaries.";
+		try (Stream<String[]> rows = stream("numberTable", numbered)) {
+			ResultTable parallel = select("numberTable", numbered);
+			assert Arrays.deepEquals(parallel.getRows(), rows.toArray()) &&
+				parallel.stats().examined == parallel.noRecords() :
+				"Ranges not scanned in parallel in order.";
+		}
+		assert Arrays.deepEquals(select("numberTable", numbered,
+			(Condition) null).getRows(), select("numberTable", numbered)
+			.getRows()) : "Null condition not taken as every row.";
+		ResultTable view = select("numberTable", numbered, Condition.equal(
+			"group", "3"));
+		String[] shownRow = view.getRows()[0];
+		assert view.isView() && view.type(0) == Type.INT :
+			"Selection not returned as a view.";
+		update("numberTable", shownRow[0], "group", "4");
+		assert !view.isView() && Arrays.equals(view.getRows()[0],
+			shownRow) : "View not detached before its table changed.";
+		ResultTable copied = select("numberTable", numbered);
+		copied.deleteRow(0);
+		assert copied.isView() && copied.noRecords() ==
+			db.getTable("numberTable").noRecords() - 1 :
+			"Deleted row not hidden from view.";
+		copied.addRow(new String[] {"-5", "9"});
+		assert !copied.isView() && copied.getRows()[copied.noRecords() - 1][1]
+			.equals("9") && db.getTable("numberTable").getRecord("-5") ==
+			null : "View not copied on write.";
+		assert copied.type(0) == Type.INT && copied.type(1) == Type.INT :
+			"Column types not kept by detached view.";
+		try {
+			copied.addRow(new String[] {"-6", "y"});
+			assert false : "Invalid value should not be added to view.";
+		} catch (Exception e) {
+			if (!e.getMessage().startsWith("Invalid INT value")) {
+				throw e;
+			}
+		}
+		update("numberTable", shownRow[0], "group", "3");
+
+		Condition odd = Condition.in("group", "1", "3", "5");
+		ResultTable page = select("numberTable", numbered, odd, 50, 50);
+		String[][] all = select("numberTable", numbered, odd).getRows();
+		assert Arrays.deepEquals(page.getRows(), Arrays.copyOfRange(all, 50,
+			100)) && page.nextKey().equals(all[99][0]) :
+			"Page not selected by offset.";
+		assert page.stats().examined < 300 : "Scan not stopped at end of page.";
+		ResultTable next = selectAfter("numberTable", numbered, odd,
+			page.nextKey(), 50);
+		assert Arrays.deepEquals(next.getRows(), Arrays.copyOfRange(all, 100,
+			150)) : "Page not selected after key.";
+		ResultTable rest = selectAfter("numberTable", numbered, null,
+			all[all.length - 1][0], 1000);
+		assert select("numberTable", numbered, odd, all.length - 1, 10)
+			.nextKey() == null && rest.noRecords() < 1000 &&
+			rest.nextKey() == null : "Last page not recognised.";
+		for (int[] bounds : new int[][] {{0, 0}, {50, 0}, {-1, 10}}) {
+			try {
+				select("numberTable", numbered, odd, bounds[0], bounds[1]);
+				assert false : "Empty or negative page should not be selected.";
+			} catch (IllegalArgumentException e) {
+			}
+		}
+		db.getTable("numberTable").createIndex("group");
+		assert Arrays.deepEquals(selectAfter("numberTable", numbered, odd,
+			all[99][0], 50).getRows(), next.getRows()) :
+			"Page not selected through index.";
+		db.getTable("numberTable").dropIndex("group");
+
+		Map<String, String> assignments = new LinkedHashMap<String, String>();
+		assignments.put("group", "10");
+		assert update("numberTable", Condition.between("group", "5", null),
+			assignments) == 701 : "Rows not counted by update.";
+		assert select("numberTable", numbered, Condition.equal("group",
+			"10")).noRecords() == 701 : "Rows not updated by condition.";
+		Map<String, String> regroup = new LinkedHashMap<String, String>();
+		regroup.put("group", "12");
+		int every = select("numberTable", numbered).noRecords();
+		assert update("numberTable", (Condition) null, regroup) == every &&
+			select("numberTable", numbered, Condition.equal("group", "12"))
+			.noRecords() == every : "Null condition not taken as every row.";
+		db.getTable("numberTable").createIndex("group");
+		update("numberTable", "1", "group", "0011");
+		assert Arrays.equals(get("numberTable", "1"), new String[] {"1",
+			"11"}) : "Row not updated by key.";
+		assert select("numberTable", numbered, Condition.equal("group",
+			"11")).stats().returned == 1 : "Index not kept in step.";
+
+		update("numberTable", "1", "id", "-1");
+		assert get("numberTable", "-1")[1].equals("11") :
+			"Primary key not updated.";
+		try {
+			update("numberTable", "-1", "id", null);
+			assert false : "Primary key should not be set to null.";
+		} catch (Exception e) {
+			if (!e.getMessage().equals("Primary key must not be null.")) {
+				throw e;
+			}
+		}
+		for (int i = 0; i < 2; i++) {
+			try {
+				if (i == 0) {
+					get("numberTable", null);
+				} else {
+					delete("numberTable", null);
+				}
+				assert false : "Row should not be found by a null key.";
+			} catch (Exception e) {
+				if (!e.getMessage().equals("Row does not exist.")) {
+					throw e;
+				}
+			}
+		}
+		assignments.put("id", "2");
+		try {
+			update("numberTable", "-1", assignments);
+			assert false : "Primary key should be unique after update.";
+		} catch (Exception e) {
+			assert get("numberTable", "-1")[1].equals("11") :
+				"Row partly updated.";
+		}
+		try {
+			update("numberTable", Condition.equal("group", "11"),
+				assignments);
+			assert false : "Primary key should not be updated by condition.";
+		} catch (Exception e) {
+			if (!e.getMessage().startsWith("Primary key cannot")) {
+				throw e;
+			}
+		}
+		db.dropTable("numberTable");
+
+		db.createTable("people", new String[] {"id", "name"});
+		db.createTable("orders", new String[] {"order", "id", "amount"},
+			new Type[] {Type.INT, Type.STRING, Type.INT});
+		insert("people", new String[][] {{"p1", "Ann"}, {"p2", "Bob"},
+			{"p3", "Cy"}});
+		insert("orders", new String[][] {{"1", "p1", "10"}, {"2", "p3", "20"},
+			{"3", "p1", "30"}, {"4", "p9", "40"}});
+		String[] joined = {"name", "order", "orders.id"};
+		ResultTable inner = join("orders", "people", "id", "id", joined);
+		assert Arrays.deepEquals(inner.getRows(), new String[][] {
+			{"Ann", "1", "p1"}, {"Cy", "2", "p3"}, {"Ann", "3", "p1"}}) &&
+			inner.stats().indexed : "Rows not joined through primary key.";
+		ResultTable outer = join("people", "orders", "id", "id",
+			new String[] {"people.id", "amount"}, true);
+		assert Arrays.deepEquals(outer.getRows(), new String[][] {
+			{"p1", "10"}, {"p3", "20"}, {"p1", "30"}, {"p2", null}}) &&
+			outer.stats().indexed : "Rows not joined through index.";
+		insert("people", new String[] {"p4", "p1"});
+		ResultTable hashed = join("people", "orders", "name", "id", joined,
+			true);
+		assert hashed.noRecords() == 5 && hashed.stats().examined == 8 &&
+			!hashed.stats().indexed && Arrays.equals(hashed.getRows()[4],
+			new String[] {"p1", "3", "p1"}) :
+			"Rows not joined through hash table.";
+		assert join("orders", "people", "amount", "name", joined)
+			.noRecords() == 0 : "Values of different types joined.";
+		try {
+			join("people", "orders", "id", "id", new String[] {"id"});
+			assert false : "Ambiguous column should not be joined.";
+		} catch (Exception e) {
+			if (!e.getMessage().startsWith("Column is ambiguous")) {
+				throw e;
+			}
+		}
+		db.dropTable("people");
+		db.dropTable("orders");
+
+		String[] ranked = {"id", "score"};
+		db.createTable("rankTable", ranked, new Type[] {Type.INT, Type.INT});
+		for (int i = 0; i < 1000; i++) {
+			insert("rankTable", new String[] {"" + i, "" + (i * 7919) % 100});
+		}
+		String[][] sorted = select("rankTable", new String[] {"id"}, null,
+			new SortKey[] {SortKey.desc("score"), SortKey.asc("id")})
+			.getRows();
+		assert sorted.length == 1000 && sorted[0][0].equals("21") :
+			"Rows not sorted by hidden key.";
+		for (int i = 1; i < sorted.length; i++) {
+			int a = Integer.parseInt(sorted[i - 1][0]);
+			int b = Integer.parseInt(sorted[i][0]);
+			assert (a * 7919) % 100 > (b * 7919) % 100 || ((a * 7919) % 100 ==
+				(b * 7919) % 100 && a < b) : "Rows not merged in order.";
+		}
+		ResultTable first = select("rankTable", ranked, Condition.between(
+			"id", "500", null), new SortKey[] {SortKey.asc("score")}, 3);
+		assert Arrays.deepEquals(first.getRows(), new String[][] {
+			{"500", "0"}, {"600", "0"}, {"700", "0"}}) &&
+			first.stats().examined == 1000 : "First rows not selected.";
+		ResultTable totals = aggregate("rankTable", new String[] {"score"},
+			new Aggregate[] {Aggregate.count(), Aggregate.sum("id"),
+			Aggregate.avg("score")}, Condition.between("score", "98", null));
+		assert Arrays.deepEquals(totals.getRows(), new String[][] {
+			{"99", "10", "4710", "99.0"}, {"98", "10", "4920", "98.0"}}) &&
+			totals.stats().examined == 1000 : "Rows not aggregated.";
+		db.dropTable("rankTable");
+
+		db.createTable("cityTable", new String[] {"id", "zone", "city"});
+		for (int i = 0; i < 100; i++) {
+			insert("cityTable", new String[] {"c" + i, "" + i % 3,
+				i % 2 == 0 ? "Oslo" : "Rome"});
+		}
+		encode("cityTable", "city");
+		ResultTable towns = select("cityTable", new String[] {"id", "city"});
+		towns.addRow(new String[] {"c200", "Oslo"});
+		assert !towns.isView() && towns.column(1) instanceof DictionaryColumn
+			&& towns.cell(0, 1).equals("Oslo") :
+			"Encoding not kept by detached view.";
+		PreparedQuery inCity = prepare("cityTable", new String[] {"city",
+			"id"}, Condition.equal("city", "Lima"));
+		assert inCity.select().noRecords() == 0 : "Prepared query not run.";
+		insert("cityTable", new String[] {"c100", "0", "Lima"});
+		assert Arrays.deepEquals(inCity.select().getRows(), new String[][] {
+			{"Lima", "c100"}}) : "New dictionary value not matched.";
+		createIndex("cityTable", "city");
+		insert("cityTable", new String[] {"c101", "1", "Lima"});
+		ResultTable inLima = inCity.select();
+		assert inLima.noRecords() == 2 && inLima.stats().indexed &&
+			inLima.stats().examined == 2 : "Index not used once created.";
+		delete("cityTable", "c101");
+		dropColumn("cityTable", "zone");
+		assert Arrays.deepEquals(inCity.select(0, 1).getRows(),
+			new String[][] {{"Lima", "c100"}}) :
+			"Columns not found again after schema change.";
+		rename("cityTable", "city", "town");
+		try {
+			inCity.select();
+			assert false : "Renamed column should not be selected.";
+		} catch (Exception e) {
+			if (!e.getMessage().equals("No such column.")) {
+				throw e;
+			}
+		}
+		PreparedQuery everyTown = prepare("cityTable", new String[] {"town"},
+			null);
+		assert everyTown.selectAfter("c98", 5).noRecords() == 2 :
+			"Prepared page not selected after key.";
+		db.dropTable("cityTable");
+
 	}
 
 	/**
 	 * Gets the indices of columns to be selected.
 	 * 
-	 * @param table the Table object being queried.
+	 * @param tableColumns the names of the columns of the table being queried.
 	 * @param selectCols an array of names of the columns to be selected.
 	 * @return an integer array of indices.
 	 * @since 0.7
 	 */
-	private int[] columnIndices (Table table, String[] selectCols)
+	private int[] columnIndices (String[] tableColumns, String[] selectCols)
 		throws Exception {
 
 		int noCols = selectCols.length;
 		int[] indices = new int[noCols];
 
 		ArrayList<String> columns = new ArrayList<String>(
-			Arrays.asList(table.getColumns()));
+			Arrays.asList(tableColumns));
 
 		for (int i = 0; i < noCols; i++) {
 
@@ -120,29 +447,51 @@ public class Query {
 	}
 
 	/**
-	 * For each row in the table, selects only the columns specified. Populates
-	 * a result list with these reduced rows.
+	 * Finds the indices of the selected columns in a table, through the
+	 * table's map of column positions rather than a search of its names.
+	 * 
+	 * @param table the table being queried.
+	 * @param selectCols an array of names of the columns to be selected.
+	 * @return an integer array of indices.
+	 * @since 0.9
+	 */
+	int[] columnIndices (Table table, String[] selectCols)
+		throws Exception {
+
+		int[] indices = new int[selectCols.length];
+
+		for (int i = 0; i < selectCols.length; i++) {
+
+			indices[i] = table.columnIndex(selectCols[i]);
+
+			if (indices[i] == -1) {
+				throw new Exception("No such column.");
+			}
+
+		}
+
+		return indices;
+
+	}
+
+	/**
+	 * Reads each row from a cursor into a result list. Only the selected
+	 * columns are read, the others are never touched.
 	 * 
-	 * @param table the Table object being queried.
-	 * @param columns the integer indices of the columns to be selected.
+	 * @param cursor a cursor over the selected columns of the table.
 	 * @return a linked list of the resultant rows.
 	 * @since 0.7
 	 */
-	private LinkedList<String[]> resultRows (Table table, int[] columnIndices)
-		throws Exception {
+	private LinkedList<String[]> resultRows (Cursor cursor) throws Exception {
 
-		Record[] rows = table.getRecords();
 		LinkedList<String[]> result = new LinkedList<String[]>();
 
-		int noCols = columnIndices.length;
-
-		for (Record record : rows) {
-			String[] row = new String[noCols];
-			for (int i = 0; i < noCols; i++) {
-				int field = columnIndices[i];
-				row[i] = record.getValue(field);
+		try {
+			while (cursor.hasNext()) {
+				result.add(cursor.next());
 			}
-			result.add(row);
+		} finally {
+			cursor.close();
 		}
 
 		return result;
@@ -154,11 +503,12 @@ public class Query {
 	 * 
 	 * @param rows linked list of the result rows.
 	 * @param columns an array of names of the columns that were selected.
+	 * @param stats how much of the table was read to find the rows.
 	 * @return a Table object containing the result.
 	 * @since 0.7
 	 */
-	private ResultTable selection (LinkedList<String[]> rows, String[] cols)
-		throws Exception {
+	private ResultTable selection (LinkedList<String[]> rows, String[] cols,
+		ScanStats stats) throws Exception {
 
 		ResultTable table = new ResultTable(cols);
 
@@ -166,6 +516,8 @@ public class Query {
 			table.addRow(row);
 		}
 
+		table.stats = stats;
+
 		return table;
 
 	}
@@ -182,94 +534,1362 @@ public class Query {
 
 		Table selectTable = db.getTable(table);
 
-		int[] columnIndices = columnIndices(selectTable, cols);
-		LinkedList<String[]> result = resultRows(selectTable, columnIndices);
+		return selectRows(selectTable, cols, columnIndices(selectTable, cols),
+			null);
 
-		return selection(result, cols);
+	}
 
+	/**
+	 * Returns the rows of a table holding a given value in one column,
+	 * showing only specified columns. The rows are found through the
+	 * column's index if it has one.
+	 * 
+	 * @param table the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @param column the name of the column being matched.
+	 * @param value the value the column must hold.
+	 * @return a ResultTable containing the results of the query.
+	 * @since 0.9
+	 */
+	public ResultTable select (String table, String[] cols, String column,
+		String value) throws Exception {
+		return select(table, cols, Condition.equal(column, value));
 	}
 
 	/**
-	 * Adds a column to the specified table.
+	 * Returns the rows of a table meeting a condition, showing only specified
+	 * columns, in table order. Each row is tested as the table is read, and
+	 * only the selected columns of the rows that pass are copied. Where the
+	 * condition can be answered by the primary key or by an index, only the
+	 * rows found through it are tested. The result reports how many rows
+	 * were tested and how many returned.
 	 * 
-	 * @param tableName the name of the table being queried.
-	 * @param column the name of the column to be added.
-	 * @param value the default value to be placed in the added fields.
-	 * @since 0.7
+	 * @param table the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @param where the condition the rows must meet, or null for every row.
+	 * @return a ResultTable containing the results of the query.
+	 * @since 0.9
 	 */
-	public void add (String tableName, String column, String value)
+	public ResultTable select (String table, String[] cols, Condition where)
 		throws Exception {
-		db.getTable(tableName).addColumn(column, value);
-		db.schema.addColumn(tableName, column);
+
+		Table selectTable = db.getTable(table);
+
+		return selectRows(selectTable, cols, columnIndices(selectTable, cols),
+			where == null ? null : where.bind(selectTable));
+
 	}
 
 	/**
-	 * Drops a column from the specified table.
+	 * Returns a page of the rows of a table meeting a condition, in table
+	 * order, i.e. a selection with OFFSET and LIMIT. The table is only read
+	 * as far as the end of the page, and one row beyond it to tell whether
+	 * any rows remain. Like other selections, the page is a view of the
+	 * table.
 	 * 
-	 * @param tableName the name of the table being queried.
-	 * @param column the name of the column to be dropped.
-	 * @since 0.7
+	 * @param table the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @param where the condition the rows must meet, or null for every row.
+	 * @param offset the number of matching rows to skip.
+	 * @param limit the most rows to return, at least one.
+	 * @return a ResultTable containing the page, whose
+	 * {@link ResultTable#nextKey()} continues after it.
+	 * @since 0.9
 	 */
-	public void dropColumn (String tableName, String column)
-		throws Exception {
-		db.getTable(tableName).deleteColumn(column);
-		db.schema.dropColumn(tableName, column);
+	public ResultTable select (String table, String[] cols, Condition where,
+		int offset, int limit) throws Exception {
+
+		Table selectTable = db.getTable(table);
+
+		return page(selectTable, cols, columnIndices(selectTable, cols),
+			where == null ? null : where.bind(selectTable), 0, offset, limit);
+
 	}
 
 	/**
-	 * Renames a column in the specified table.
+	 * Returns a page of the rows of a table meeting a condition, starting
+	 * after the row with a given primary key, in table order. This is keyset
+	 * pagination: the key of the last row of one page continues to the next,
+	 * and the primary key index finds where to start without reading the
+	 * rows before it, so a page takes as long to read wherever it is in the
+	 * table. The row with the key must still exist.
 	 * 
-	 * @param tableName the name of the table being queried.
-	 * @param oldName the current name of the column.
-	 * @param newName the new name of the column.
-	 * @since 0.7
+	 * @param table the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @param where the condition the rows must meet, or null for every row.
+	 * @param afterKey the primary key of the row before the page, or null to
+	 * start from the first row.
+	 * @param limit the most rows to return, at least one.
+	 * @return a ResultTable containing the page, whose
+	 * {@link ResultTable#nextKey()} continues after it.
+	 * @since 0.9
 	 */
-	public void rename (String tableName, String oldName, String newName)
+	public ResultTable selectAfter (String table, String[] cols,
+		Condition where, String afterKey, int limit) throws Exception {
+
+		Table selectTable = db.getTable(table);
+
+		return page(selectTable, cols, columnIndices(selectTable, cols),
+			where == null ? null : where.bind(selectTable),
+			slotAfter(selectTable, afterKey), 0, limit);
+
+	}
+
+	/**
+	 * Finds the slot a keyset page starts from, i.e. the one after the row
+	 * with a given primary key. The row with the key must still exist.
+	 * 
+	 * @param selectTable the table being queried.
+	 * @param afterKey the primary key of the row before the page, or null to
+	 * start from the first row.
+	 * @return the slot to start reading from.
+	 * @since 0.9
+	 */
+	static int slotAfter (Table selectTable, String afterKey)
 		throws Exception {
-		db.getTable(tableName).renameColumn(oldName, newName);
-		db.schema.renameColumn(tableName, oldName, newName);
+
+		if (afterKey == null) {
+			return 0;
+		}
+
+		int slot = selectTable.findSlot(afterKey);
+
+		if (slot == -1) {
+			throw new Exception("Row does not exist.");
+		}
+
+		return slot + 1;
+
 	}
 
 	/**
-	 * Inserts a single row into a table.
+	 * Prepares a selection to be run many times, finding the selected columns
+	 * and checking the condition once rather than on every run. The prepared
+	 * query keeps track of changes to the table, and redoes this work only
+	 * when they would make it out of date.
 	 * 
-	 * @param tableName the name of the table being queried.
-	 * @param values an array of values to be inserted, must be the same length
-	 * as there are number of columns.
-	 * @since 0.7
+	 * @param table the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @param where the condition the rows must meet, or null for every row.
+	 * @return the prepared query.
+	 * @since 0.9
 	 */
-	public void insert (String tableName, String[] values) throws Exception {
-		db.getTable(tableName).addRow(values);
+	public PreparedQuery prepare (String table, String[] cols,
+		Condition where) throws Exception {
+		return new PreparedQuery(this, db, table, cols, where);
 	}
 
 	/**
-	 * Inserts a set of rows into a table.
+	 * Selects a page of the rows of a table meeting a condition, reading from
+	 * a given slot and stopping once the page is full. If a further matching
+	 * row exists, the primary key of the last row of the page is kept as the
+	 * key to continue after. An empty page would have no such key, and could
+	 * not be told apart from the end of the rows, so the limit must be at
+	 * least one.
 	 * 
-	 * @param tableName the name of the table being queried.
-	 * @param valSet an array in which each field contains an array of values
-	 * to be inserted. Each values array must be the same length
-	 * as there are number of columns.
-	 * @since 0.7
+	 * @param selectTable the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @param selected the indices of the selected columns.
+	 * @param bound the condition the rows must meet, bound to the table, or
+	 * null for every row.
+	 * @param start the slot to start reading from.
+	 * @param offset the number of matching rows to skip.
+	 * @param limit the most rows to return, at least one.
+	 * @return a ResultTable containing the page.
+	 * @since 0.9
 	 */
-	public void insert (String tableName, String[][] valSet) throws Exception {
+	ResultTable page (Table selectTable, String[] cols, int[] selected,
+		Condition bound, int start, int offset, int limit) throws Exception {
 
-		Table table = db.getTable(tableName);
+		if (offset < 0) {
+			throw new IllegalArgumentException("Offset cannot be negative.");
+		} else if (limit <= 0) {
+			throw new IllegalArgumentException("Limit must be positive.");
+		}
+
+		int[] candidates = bound == null ? null : bound.candidates();
+		int total = candidates == null ? selectTable.slots() :
+			candidates.length;
+		int first = start;
+
+		if (candidates != null) {
+			first = Arrays.binarySearch(candidates, start);
+			first = first < 0 ? -1 - first : first;
+		}
+
+		BitSet shown = new BitSet();
+		long wanted = (long) offset + limit;
+		long matched = 0;
+		long examined = 0;
+		int last = -1;
+		String nextKey = null;
+
+		for (int i = first; i < total; i++) {
+
+			int slot = candidates == null ? i : candidates[i];
+
+			if (!selectTable.isLive(slot)) {
+				continue;
+			}
+
+			examined++;
+
+			if (bound != null && !bound.test(slot)) {
+				continue;
+			} else if (matched == wanted) {
+				nextKey = last == -1 ? null : selectTable.cell(last, 0);
+				break;
+			} else if (matched++ >= offset) {
+				shown.set(slot);
+				last = slot;
+			}
 
-		for (String[] values : valSet) {
-			table.addRow(values);
 		}
 
+		ResultTable result = selectTable.view(cols, selected, shown);
+		result.stats = new ScanStats(examined, result.noRecords(),
+			candidates != null);
+		result.nextKey = nextKey;
+
+		return result;
+
 	}
 
 	/**
-	 * Deletes a row in the table by its primary key.
+	 * Selects the rows of a table meeting a condition, in table order. The
+	 * result is a view of the table, which shares its columns until either is
+	 * changed, so no values are copied. A scan of at least as many slots as
+	 * the parallel threshold is split into ranges, a few for each thread of
+	 * the common fork/join pool but none smaller than half the threshold. The
+	 * ranges are scanned in parallel, and the slots found in each make up the
+	 * rows of the view. Smaller scans run on the calling thread, and no scan
+	 * is needed at all to select every row.
 	 * 
-	 * @param tableName the name of the table being queried.
-	 * @param primaryKey the primary key of the row to be deleted.
-	 * @since 0.7
+	 * @param selectTable the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @param selected the indices of the selected columns.
+	 * @param bound the condition the rows must meet, bound to the table, or
+	 * null for every row.
+	 * @return a ResultTable containing the results of the query.
+	 * @since 0.9
 	 */
-	public void delete (String tableName, String primaryKey) throws Exception {
-		db.getTable(tableName).deleteRow(primaryKey);
+	ResultTable selectRows (Table selectTable, String[] cols, int[] selected,
+		Condition bound) throws Exception {
+
+		if (bound == null) {
+
+			ResultTable result = selectTable.view(cols, selected, null);
+			result.stats = new ScanStats(result.noRecords(),
+				result.noRecords(), false);
+
+			return result;
+
+		}
+
+		int[] candidates = bound.candidates();
+		int total = candidates == null ? selectTable.slots() :
+			candidates.length;
+		int threshold = db.parallelThreshold();
+		ArrayList<ScanTask> ranges;
+
+		if (threshold > 0 && total >= threshold) {
+
+			int parts = ForkJoinPool.getCommonPoolParallelism() * 4;
+			int grain = Math.max(total / parts, threshold / 2);
+			ranges = ForkJoinPool.commonPool().invoke(new ScanTask(selectTable,
+				bound, candidates, 0, total, grain));
+
+		} else {
+			ranges = new ScanTask(selectTable, bound, candidates, 0, total,
+				total).compute();
+		}
+
+		BitSet shown = new BitSet(selectTable.slots());
+		long examined = 0;
+
+		for (ScanTask range : ranges) {
+
+			for (int i = 0; i < range.noFound; i++) {
+				shown.set(range.found[i]);
+			}
+
+			examined += range.examined;
+
+		}
+
+		ResultTable result = selectTable.view(cols, selected, shown);
+		result.stats = new ScanStats(examined, result.noRecords(),
+			candidates != null);
+
+		return result;
+
+	}
+
+	/**
+	 * Returns the rows of a table meeting a condition, showing only specified
+	 * columns, in the order given by a list of sort keys.
+	 * 
+	 * @param table the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @param where the condition the rows must meet, or null for every row.
+	 * @param order the columns to sort by, from the most significant.
+	 * @return a ResultTable containing the results of the query.
+	 * @since 0.9
+	 */
+	public ResultTable select (String table, String[] cols, Condition where,
+		SortKey[] order) throws Exception {
+		return select(table, cols, where, order, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the first rows of a table meeting a condition, showing only
+	 * specified columns, in the order given by a list of sort keys. Values
+	 * are compared by what they stand for in their column's type, and the
+	 * sort keys need not be among the selected columns. Rows that compare as
+	 * equal are kept in table order.
+	 *
+	 * <p>Rows are sorted in memory up to the database's sort budget, beyond
+	 * which sorted runs are written to the data directory and merged. When
+	 * the limit is within the budget, only the first rows are kept, in a
+	 * bounded heap, and the rest are never sorted.
+	 * 
+	 * @param table the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @param where the condition the rows must meet, or null for every row.
+	 * @param order the columns to sort by, from the most significant.
+	 * @param limit the most rows to return.
+	 * @return a ResultTable containing the results of the query.
+	 * @since 0.9
+	 */
+	public ResultTable select (String table, String[] cols, Condition where,
+		SortKey[] order, int limit) throws Exception {
+
+		Table selectTable = db.getTable(table);
+		String[] sortCols = sortColumns(cols, order);
+		int[] selected = columnIndices(selectTable, sortCols);
+		Condition bound = where == null ? null : where.bind(selectTable);
+		int[] candidates = bound == null ? null : bound.candidates();
+
+		ResultTable result = new ResultTable(cols);
+		int total = candidates == null ? selectTable.slots() :
+			candidates.length;
+		long examined = 0;
+
+		try (Sorter sorter = db.sorter(ordering(selectTable, sortCols, order),
+			limit)) {
+
+			for (int i = 0; i < total; i++) {
+
+				int slot = candidates == null ? i : candidates[i];
+
+				if (!selectTable.isLive(slot)) {
+					continue;
+				}
+
+				examined++;
+
+				if (bound == null || bound.test(slot)) {
+
+					String[] row = new String[selected.length];
+
+					for (int col = 0; col < selected.length; col++) {
+						row[col] = selectTable.cell(slot, selected[col]);
+					}
+
+					sorter.add(row);
+
+				}
+
+			}
+
+			sorter.sort();
+
+			while (sorter.hasNext()) {
+
+				String[] row = sorter.next();
+
+				result.addRow(row.length == cols.length ? row :
+					Arrays.copyOf(row, cols.length));
+
+			}
+
+		}
+
+		result.stats = new ScanStats(examined, result.noRecords(),
+			candidates != null);
+
+		return result;
+
+	}
+
+	/**
+	 * Finds the columns to be read for an ordered selection, i.e. the selected
+	 * columns followed by any sort keys that are not among them.
+	 * 
+	 * @param cols an array of names of the columns to be selected.
+	 * @param order the columns to sort by.
+	 * @return an array of the names of the columns to be read.
+	 * @since 0.9
+	 */
+	private static String[] sortColumns (String[] cols, SortKey[] order) {
+
+		ArrayList<String> sortCols = new ArrayList<String>(
+			Arrays.asList(cols));
+
+		for (SortKey key : order) {
+			if (!sortCols.contains(key.column())) {
+				sortCols.add(key.column());
+			}
+		}
+
+		return sortCols.toArray(new String[sortCols.size()]);
+
+	}
+
+	/**
+	 * Builds the order of rows for an ordered selection, comparing the values
+	 * of each sort key by its column's type in turn.
+	 * 
+	 * @param table the table being queried.
+	 * @param sortCols the names of the columns being read.
+	 * @param order the columns to sort by.
+	 * @return the order of rows made of the columns being read.
+	 * @since 0.9
+	 */
+	private static Sorter.Order ordering (Table table, String[] sortCols,
+		SortKey[] order) {
+
+		List<String> readCols = Arrays.asList(sortCols);
+		int[] positions = new int[order.length];
+		Type[] types = new Type[order.length];
+		boolean[] descending = new boolean[order.length];
+
+		for (int i = 0; i < order.length; i++) {
+			positions[i] = readCols.indexOf(order[i].column());
+			types[i] = table.type(table.columnIndex(order[i].column()));
+			descending[i] = order[i].descending();
+		}
+
+		return new Sorter.Order(positions, types, descending);
+
+	}
+
+	/**
+	 * Returns array of results showing only specified columns, reading the
+	 * table in batches as {@link #selectBatched(String, String[], Condition)}
+	 * does.
+	 * 
+	 * @param table the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @return a ResultTable containing the results of the query.
+	 * @since 0.9
+	 */
+	public ResultTable selectBatched (String table, String[] cols)
+		throws Exception {
+		return selectBatched(table, cols, null);
+	}
+
+	/**
+	 * Returns the rows of a table meeting a condition, showing only specified
+	 * columns, in the same way as {@link #select(String, String[], Condition)}
+	 * but reading the table in batches of rows rather than one row at a
+	 * time. Each batch is a selection vector of slots, which the condition
+	 * narrows down, and the selected columns of the rows left are then copied
+	 * one column at a time. Tight loops over a column leave the rest of the
+	 * work to the JIT compiler.
+	 * 
+	 * @param table the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @param where the condition the rows must meet, or null for every row.
+	 * @return a ResultTable containing the results of the query.
+	 * @since 0.9
+	 */
+	public ResultTable selectBatched (String table, String[] cols,
+		Condition where) throws Exception {
+
+		Table selectTable = db.getTable(table);
+		int[] selected = columnIndices(selectTable, cols);
+		Condition bound = where == null ? null : where.bind(selectTable);
+		int[] candidates = bound == null ? null : bound.candidates();
+
+		Column[] source = new Column[selected.length];
+
+		for (int col = 0; col < selected.length; col++) {
+			source[col] = selectTable.column(selected[col]);
+		}
+
+		ResultTable result = new ResultTable(cols);
+		int[] vector = new int[BATCH_SIZE];
+		int total = candidates == null ? selectTable.slots() :
+			candidates.length;
+		long examined = 0;
+
+		for (int start = 0; start < total; start += BATCH_SIZE) {
+
+			int end = Math.min(start + BATCH_SIZE, total);
+			int count = 0;
+
+			for (int i = start; i < end; i++) {
+
+				int slot = candidates == null ? i : candidates[i];
+
+				if (selectTable.isLive(slot)) {
+					vector[count++] = slot;
+				}
+
+			}
+
+			examined += count;
+
+			if (bound != null) {
+				count = bound.filter(vector, count);
+			}
+
+			result.appendBatch(source, vector, count);
+
+		}
+
+		result.stats = new ScanStats(examined, result.noRecords(),
+			candidates != null);
+
+		return result;
+
+	}
+
+	/**
+	 * Returns the rows of a table holding values within a range in one
+	 * column, in order of value, showing only specified columns. The rows
+	 * are found through the column's ordered index if it has one. Rows
+	 * holding null are never part of a range.
+	 * 
+	 * @param table the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @param column the name of the column being matched.
+	 * @param from the lowest value in the range, or null for no lower bound.
+	 * @param to the highest value in the range, or null for no upper bound.
+	 * @return a ResultTable containing the results of the query.
+	 * @since 0.9
+	 */
+	public ResultTable selectRange (String table, String[] cols,
+		String column, String from, String to) throws Exception {
+
+		Table selectTable = db.getTable(table);
+
+		int[] found = selectTable.range(columnIndices(selectTable,
+			new String[] {column})[0], from, to);
+		LinkedList<String[]> result = resultRows(selectTable.cursor(
+			columnIndices(selectTable, cols), found));
+
+		return selection(result, cols, new ScanStats(found.length,
+			result.size(), selectTable.isOrdered(column)));
+
+	}
+
+	/**
+	 * Returns the rows of a table whose values in one STRING column start
+	 * with a prefix, in order of value, showing only specified columns. The
+	 * rows are found through the column's ordered index if it has one.
+	 * 
+	 * @param table the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @param column the name of the column being matched.
+	 * @param prefix the start of the values being looked for.
+	 * @return a ResultTable containing the results of the query.
+	 * @since 0.9
+	 */
+	public ResultTable selectPrefix (String table, String[] cols,
+		String column, String prefix) throws Exception {
+
+		Table selectTable = db.getTable(table);
+
+		int[] found = selectTable.prefix(columnIndices(selectTable,
+			new String[] {column})[0], prefix);
+		LinkedList<String[]> result = resultRows(selectTable.cursor(
+			columnIndices(selectTable, cols), found));
+
+		return selection(result, cols, new ScanStats(found.length,
+			result.size(), selectTable.isOrdered(column)));
+
+	}
+
+	/**
+	 * Joins the rows of two tables whose values are equal in a pair of
+	 * columns, keeping only the rows that have a match on both sides.
+	 * 
+	 * @param left the name of the left-hand table.
+	 * @param right the name of the right-hand table.
+	 * @param leftCol the name of the joined column in the left-hand table.
+	 * @param rightCol the name of the joined column in the right-hand table.
+	 * @param projection the columns to be selected, as described for
+	 * {@link #join(String, String, String, String, String[], boolean)}.
+	 * @return a ResultTable containing the joined rows.
+	 * @since 0.9
+	 */
+	public ResultTable join (String left, String right, String leftCol,
+		String rightCol, String[] projection) throws Exception {
+		return join(left, right, leftCol, rightCol, projection, false);
+	}
+
+	/**
+	 * Joins the rows of two tables whose values are equal in a pair of
+	 * columns. Rows of one table are looked up by the values of the other,
+	 * through the primary key or an index on the joined column if either
+	 * table has one, or through a hash table built from the smaller table if
+	 * not. Values are put in standard form for the type of the column they
+	 * are looked up in, and null never matches anything.
+	 *
+	 * <p>A column of the projection is named as in its table, or as the name
+	 * of its table and column separated by a dot where both tables have a
+	 * column of that name.
+	 * 
+	 * @param left the name of the left-hand table.
+	 * @param right the name of the right-hand table.
+	 * @param leftCol the name of the joined column in the left-hand table.
+	 * @param rightCol the name of the joined column in the right-hand table.
+	 * @param projection the columns to be selected, from either table.
+	 * @param outer whether rows of the left-hand table with no match are kept,
+	 * with null in the columns of the right-hand table.
+	 * @return a ResultTable containing the joined rows.
+	 * @since 0.9
+	 */
+	public ResultTable join (String left, String right, String leftCol,
+		String rightCol, String[] projection, boolean outer)
+		throws Exception {
+
+		Table leftTable = db.pin(left);
+
+		try {
+
+			Table rightTable = db.pin(right);
+
+			try {
+				return joinTables(left, leftTable, right, rightTable, leftCol,
+					rightCol, projection, outer);
+			} finally {
+				db.unpin(right);
+			}
+
+		} finally {
+			db.unpin(left);
+		}
+
+	}
+
+	/**
+	 * Joins two tables that have been pinned, so that neither is unloaded
+	 * while the join runs.
+	 * 
+	 * @param left the name of the left-hand table.
+	 * @param leftTable the left-hand table.
+	 * @param right the name of the right-hand table.
+	 * @param rightTable the right-hand table.
+	 * @param leftCol the name of the joined column in the left-hand table.
+	 * @param rightCol the name of the joined column in the right-hand table.
+	 * @param projection the columns to be selected, from either table.
+	 * @param outer whether rows of the left-hand table with no match are kept.
+	 * @return a ResultTable containing the joined rows.
+	 * @since 0.9
+	 */
+	private ResultTable joinTables (String left, Table leftTable,
+		String right, Table rightTable, String leftCol, String rightCol,
+		String[] projection, boolean outer) throws Exception {
+
+		int leftKey = columnIndices(leftTable,
+			new String[] {leftCol})[0];
+		int rightKey = columnIndices(rightTable,
+			new String[] {rightCol})[0];
+		int[] sources = joinColumns(left, leftTable, right, rightTable,
+			projection);
+
+		boolean indexed = leftTable.isIndexed(leftKey) ||
+			rightTable.isIndexed(rightKey);
+		boolean buildLeft = indexed ? !rightTable.isIndexed(rightKey) :
+			leftTable.noRecords() < rightTable.noRecords();
+
+		Table build = buildLeft ? leftTable : rightTable;
+		Table probe = buildLeft ? rightTable : leftTable;
+		int buildKey = buildLeft ? leftKey : rightKey;
+		int probeKey = buildLeft ? rightKey : leftKey;
+
+		HashIndex hash = indexed ? null : hashColumn(build, buildKey);
+		BitSet matched = outer && buildLeft ? new BitSet() : null;
+		LinkedList<String[]> result = new LinkedList<String[]>();
+		int examined = indexed ? 0 : build.noRecords();
+
+		for (int slot = 0; slot < probe.slots(); slot++) {
+
+			if (!probe.isLive(slot)) {
+				continue;
+			}
+
+			examined++;
+			int[] found = matches(build, buildKey, hash,
+				probe.cell(slot, probeKey));
+
+			for (int other : found) {
+				if (buildLeft) {
+					result.add(joinedRow(leftTable, other, rightTable, slot,
+						sources));
+				} else {
+					result.add(joinedRow(leftTable, slot, rightTable, other,
+						sources));
+				}
+			}
+
+			if (matched != null) {
+				for (int other : found) {
+					matched.set(other);
+				}
+			} else if (outer && found.length == 0) {
+				result.add(joinedRow(leftTable, slot, rightTable, -1, sources));
+			}
+
+		}
+
+		if (matched != null) {
+			for (int slot = 0; slot < leftTable.slots(); slot++) {
+				if (leftTable.isLive(slot) && !matched.get(slot)) {
+					result.add(joinedRow(leftTable, slot, rightTable, -1,
+						sources));
+				}
+			}
+		}
+
+		return selection(result, projection, new ScanStats(examined,
+			result.size(), indexed));
+
+	}
+
+	/**
+	 * Finds the columns of a join's projection. Columns of the left-hand
+	 * table are given by their index, and those of the right-hand table by
+	 * -1 minus their index.
+	 * 
+	 * @param left the name of the left-hand table.
+	 * @param leftTable the left-hand table.
+	 * @param right the name of the right-hand table.
+	 * @param rightTable the right-hand table.
+	 * @param projection the columns to be selected.
+	 * @return the indices of the columns.
+	 * @since 0.9
+	 */
+	private int[] joinColumns (String left, Table leftTable, String right,
+		Table rightTable, String[] projection) throws Exception {
+
+		int[] sources = new int[projection.length];
+
+		for (int i = 0; i < projection.length; i++) {
+
+			String name = projection[i];
+			int leftCol = leftTable.columnIndex(name);
+			int rightCol = rightTable.columnIndex(name);
+
+			if (leftCol >= 0 && rightCol >= 0) {
+				throw new Exception("Column is ambiguous: " + name);
+			} else if (leftCol < 0 && rightCol < 0) {
+
+				int dot = name.indexOf('.');
+				String table = dot < 0 ? null : name.substring(0, dot);
+				String column = name.substring(dot + 1);
+
+				if (left.equals(table)) {
+					leftCol = leftTable.columnIndex(column);
+				} else if (right.equals(table)) {
+					rightCol = rightTable.columnIndex(column);
+				}
+
+				if (leftCol < 0 && rightCol < 0) {
+					throw new Exception("No such column.");
+				}
+
+			}
+
+			sources[i] = leftCol >= 0 ? leftCol : -1 - rightCol;
+
+		}
+
+		return sources;
+
+	}
+
+	/**
+	 * Builds a hash table from the values of a column, for a join to look
+	 * rows up in. Null values are left out, as they never match.
+	 * 
+	 * @param table the table being built from.
+	 * @param column the index of the joined column.
+	 * @return the hash table, mapping values to slots.
+	 * @since 0.9
+	 */
+	private HashIndex hashColumn (Table table, int column) {
+
+		HashIndex hash = new HashIndex();
+
+		for (int slot = 0; slot < table.slots(); slot++) {
+
+			String value = table.isLive(slot) ? table.cell(slot, column) : null;
+
+			if (value != null) {
+				hash.add(value, slot);
+			}
+
+		}
+
+		return hash;
+
+	}
+
+	/**
+	 * Finds the rows of one side of a join matching a value from the other.
+	 * 
+	 * @param table the table being looked up in.
+	 * @param column the index of its joined column.
+	 * @param hash the hash table built from the column, or null if the table
+	 * is to be looked up through its own index.
+	 * @param value the value being looked for.
+	 * @return the slots of the matching rows.
+	 * @since 0.9
+	 */
+	private int[] matches (Table table, int column, HashIndex hash,
+		String value) {
+
+		if (value == null) {
+			return new int[0];
+		} else if (hash == null) {
+			return table.lookup(column, value);
+		}
+
+		try {
+			return hash.get(table.type(column).canonical(value));
+		} catch (Exception e) {
+			return new int[0];
+		}
+
+	}
+
+	/**
+	 * Builds a row of a join's result from a row of each table.
+	 * 
+	 * @param leftTable the left-hand table.
+	 * @param leftSlot the slot of the left-hand row.
+	 * @param rightTable the right-hand table.
+	 * @param rightSlot the slot of the right-hand row, or -1 if there is none.
+	 * @param sources the indices of the selected columns.
+	 * @return the values of the selected columns.
+	 * @since 0.9
+	 */
+	private String[] joinedRow (Table leftTable, int leftSlot,
+		Table rightTable, int rightSlot, int[] sources) {
+
+		String[] row = new String[sources.length];
+
+		for (int i = 0; i < sources.length; i++) {
+			if (sources[i] >= 0) {
+				row[i] = leftTable.cell(leftSlot, sources[i]);
+			} else if (rightSlot >= 0) {
+				row[i] = rightTable.cell(rightSlot, -1 - sources[i]);
+			}
+		}
+
+		return row;
+
+	}
+
+	/**
+	 * Computes aggregates over every row of a table, grouped by the values of
+	 * some of its columns.
+	 * 
+	 * @param table the name of the table being queried.
+	 * @param groupBy the names of the columns to group by, or an empty array
+	 * to aggregate the whole table as one group.
+	 * @param aggregates the aggregates to compute for each group.
+	 * @return a ResultTable containing a row for each group.
+	 * @since 0.9
+	 */
+	public ResultTable aggregate (String table, String[] groupBy,
+		Aggregate[] aggregates) throws Exception {
+		return aggregate(table, groupBy, aggregates, null);
+	}
+
+	/**
+	 * Computes aggregates over the rows of a table meeting a condition,
+	 * grouped by the values of some of its columns, i.e. a GROUP BY. Values
+	 * are read straight from the table as it is scanned, and large tables
+	 * are aggregated in parts on several threads at once. Each row of the
+	 * result holds the values of the columns grouped by, followed by those
+	 * of the aggregates, named as in {@link Aggregate#toString()}. Groups are
+	 * returned in the order their first rows appear in the table.
+	 * 
+	 * @param table the name of the table being queried.
+	 * @param groupBy the names of the columns to group by, or an empty array
+	 * to aggregate the rows as one group.
+	 * @param aggregates the aggregates to compute for each group.
+	 * @param where the condition the rows must meet, or null for every row.
+	 * @return a ResultTable containing a row for each group.
+	 * @since 0.9
+	 */
+	public ResultTable aggregate (String table, String[] groupBy,
+		Aggregate[] aggregates, Condition where) throws Exception {
+
+		Table aggregateTable = db.getTable(table);
+		int[] groupCols = columnIndices(aggregateTable, groupBy);
+		Condition bound = where == null ? null : where.bind(aggregateTable);
+
+		return new Aggregation(aggregateTable, bound, groupCols, aggregates)
+			.result(groupBy, db.parallelThreshold());
+
+	}
+
+	/**
+	 * Opens a cursor over the rows of a table, showing only specified
+	 * columns. Rows are read as the cursor moves, so a table that is not in
+	 * memory is never read in whole. The cursor must be closed once it is
+	 * finished with.
+	 * 
+	 * @param table the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @return a cursor over the rows of the table.
+	 * @since 0.9
+	 */
+	public Cursor scan (String table, String[] cols) throws Exception {
+		return db.cursor(table, columnIndices(db.schema.table(table), cols));
+	}
+
+	/**
+	 * Returns a stream of the rows of a table, showing only specified
+	 * columns, read in the same way as {@link #scan(String, String[])}. The
+	 * stream must be closed once it is finished with.
+	 * 
+	 * @param table the name of the table being queried.
+	 * @param cols an array of names of the columns to be selected.
+	 * @return a stream of the rows of the table.
+	 * @since 0.9
+	 */
+	public Stream<String[]> stream (String table, String[] cols)
+		throws Exception {
+		return scan(table, cols).stream();
+	}
+
+	/**
+	 * Gets a single row from a table by its primary key.
+	 * 
+	 * @param table the name of the table being queried.
+	 * @param primaryKey the primary key of the row to be retrieved.
+	 * @return an array of the values in the row.
+	 * @since 0.9
+	 */
+	public String[] get (String table, String primaryKey) throws Exception {
+
+		Record row = db.getTable(table).getRecord(primaryKey);
+
+		if (row == null) {
+			throw new Exception("Row does not exist.");
+		}
+
+		return row.getValues();
+
+	}
+
+	/**
+	 * Adds a column to the specified table.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param column the name of the column to be added.
+	 * @param value the default value to be placed in the added fields.
+	 * @since 0.7
+	 */
+	public void add (String tableName, String column, String value)
+		throws Exception {
+		add(tableName, column, value, Type.STRING);
+	}
+
+	/**
+	 * Adds a column of a given type to the specified table.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param column the name of the column to be added.
+	 * @param value the default value to be placed in the added fields, which
+	 * must be valid for the type.
+	 * @param type the type of the column.
+	 * @since 0.9
+	 */
+	public void add (String tableName, String column, String value,
+		Type type) throws Exception {
+		db.getTable(tableName).addColumn(column, value, type);
+		db.schema.addColumn(tableName, column, type);
+		db.logged(LogFile.ADD_COLUMN, tableName, column, value, type.name());
+	}
+
+	/**
+	 * Drops a column from the specified table.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param column the name of the column to be dropped.
+	 * @since 0.7
+	 */
+	public void dropColumn (String tableName, String column)
+		throws Exception {
+		db.getTable(tableName).deleteColumn(column);
+		db.schema.dropColumn(tableName, column);
+		db.logged(LogFile.DROP_COLUMN, tableName, column);
+	}
+
+	/**
+	 * Renames a column in the specified table.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param oldName the current name of the column.
+	 * @param newName the new name of the column.
+	 * @since 0.7
+	 */
+	public void rename (String tableName, String oldName, String newName)
+		throws Exception {
+		db.getTable(tableName).renameColumn(oldName, newName);
+		db.schema.renameColumn(tableName, oldName, newName);
+		db.logged(LogFile.RENAME_COLUMN, tableName, oldName, newName);
+	}
+
+	/**
+	 * Stores a column as a dictionary of its distinct values, as a hint for a
+	 * column known to hold few different values. Other such columns are
+	 * found when the table is committed.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param column the name of the column to be encoded.
+	 * @since 0.9
+	 */
+	public void encode (String tableName, String column) throws Exception {
+		Table table = db.getTable(tableName);
+		table.encodeColumn(columnIndices(table, new String[] {column})[0]);
+		table.modified();
+		db.logged(LogFile.ENCODE_COLUMN, tableName, column);
+	}
+
+	/**
+	 * Creates a hash index on a column, so that rows holding a given value
+	 * in it can be selected without reading the whole table.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param column the name of the column to be indexed.
+	 * @since 0.9
+	 */
+	public void createIndex (String tableName, String column)
+		throws Exception {
+		createIndex(tableName, column, false);
+	}
+
+	/**
+	 * Creates an index on a column, either a hash index or an ordered index.
+	 * An ordered index also serves range and prefix selections, and may be
+	 * created on the primary key.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param column the name of the column to be indexed.
+	 * @param ordered whether the index keeps the values in order.
+	 * @since 0.9
+	 */
+	public void createIndex (String tableName, String column, boolean ordered)
+		throws Exception {
+		db.getTable(tableName).createIndex(column, ordered);
+		db.schema.addIndex(tableName, column, ordered);
+		db.logged(LogFile.CREATE_INDEX, tableName, column,
+			Boolean.toString(ordered));
+	}
+
+	/**
+	 * Drops the index on a column.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param column the name of the indexed column.
+	 * @since 0.9
+	 */
+	public void dropIndex (String tableName, String column) throws Exception {
+		db.getTable(tableName).dropIndex(column);
+		db.schema.dropIndex(tableName, column);
+		db.logged(LogFile.DROP_INDEX, tableName, column);
+	}
+
+	/**
+	 * Inserts a single row into a table.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param values an array of values to be inserted, must be the same length
+	 * as there are number of columns.
+	 * @since 0.7
+	 */
+	public void insert (String tableName, String[] values) throws Exception {
+		Table table = db.getTable(tableName);
+		String[] checked = table.checkRow(values);
+		db.logged(LogFile.INSERT, tableName, values);
+		table.addChecked(checked);
+	}
+
+	/**
+	 * Inserts a set of rows into a table.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param valSet an array in which each field contains an array of values
+	 * to be inserted. Each values array must be the same length
+	 * as there are number of columns.
+	 * @since 0.7
+	 */
+	public void insert (String tableName, String[][] valSet) throws Exception {
+
+		Table table = db.getTable(tableName);
+
+		for (String[] values : valSet) {
+			String[] checked = table.checkRow(values);
+			db.logged(LogFile.INSERT, tableName, values);
+			table.addChecked(checked);
+		}
+
+	}
+
+	/**
+	 * Changes the value of a single field in a row, found by its primary key.
+	 * The row is changed in place, and any index on the column is kept in
+	 * step. The primary key itself may be changed, as long as the new key is
+	 * not already in use.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param primaryKey the primary key of the row to be changed.
+	 * @param column the name of the column to be changed.
+	 * @param value the new value, which must be valid for the column's type.
+	 * @since 0.9
+	 */
+	public void update (String tableName, String primaryKey, String column,
+		String value) throws Exception {
+
+		Map<String, String> assignments = new LinkedHashMap<String, String>();
+		assignments.put(column, value);
+
+		update(tableName, primaryKey, assignments);
+
+	}
+
+	/**
+	 * Changes the values of some fields in a row, found by its primary key.
+	 * Every value is checked before any is changed, and a new primary key is
+	 * set first, so a row is either changed in full or not at all. The change
+	 * is logged before it is made, so it is never made without being logged.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param primaryKey the primary key of the row to be changed.
+	 * @param assignments the new values, keyed by column name.
+	 * @since 0.9
+	 */
+	public void update (String tableName, String primaryKey,
+		Map<String, String> assignments) throws Exception {
+
+		Table table = db.getTable(tableName);
+		Record row = table.getRecord(primaryKey);
+
+		if (row == null) {
+			throw new Exception("Row does not exist.");
+		}
+
+		String[] cols = assignments.keySet().toArray(new String[0]);
+		int[] indices = columnIndices(table, cols);
+		String[] values = checkedValues(table, indices, cols, assignments);
+		String key = row.key();
+
+		for (int i = 0; i < indices.length; i++) {
+			if (indices[i] == 0 && values[i] == null) {
+				throw new Exception("Primary key must not be null.");
+			} else if (indices[i] == 0 && !key.equals(values[i]) &&
+				table.findSlot(values[i]) != -1) {
+				throw new Exception("Primary key must be unique: " +
+					values[i]);
+			}
+		}
+
+		db.logged(LogFile.UPDATE, tableName, updateArgs(key, cols, values));
+
+		for (int i = 0; i < indices.length; i++) {
+			if (indices[i] == 0) {
+				row.setValue(0, values[i]);
+			}
+		}
+
+		for (int i = 0; i < indices.length; i++) {
+			if (indices[i] != 0) {
+				row.setValue(indices[i], values[i]);
+			}
+		}
+
+	}
+
+	/**
+	 * Changes the values of some fields in every row meeting a condition.
+	 * Rows are changed in place, and indexes are kept in step. Every value is
+	 * checked before any row is changed, and each row's change is logged
+	 * before it is made. The primary key cannot be changed this way, as more
+	 * than one row could be given the same key.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param where the condition the rows to be changed must meet, or null
+	 * for every row.
+	 * @param assignments the new values, keyed by column name.
+	 * @return the number of rows changed.
+	 * @since 0.9
+	 */
+	public int update (String tableName, Condition where,
+		Map<String, String> assignments) throws Exception {
+
+		Table table = db.getTable(tableName);
+		String[] cols = assignments.keySet().toArray(new String[0]);
+		int[] indices = columnIndices(table, cols);
+
+		for (int index : indices) {
+			if (index == 0) {
+				throw new Exception(
+					"Primary key cannot be updated by a condition.");
+			}
+		}
+
+		String[] values = checkedValues(table, indices, cols, assignments);
+		int[] slots = matchingSlots(table, where == null ? null :
+			where.bind(table));
+
+		for (int slot : slots) {
+
+			Record row = new Record(table, slot);
+
+			db.logged(LogFile.UPDATE, tableName, updateArgs(row.key(), cols,
+				values));
+
+			for (int i = 0; i < indices.length; i++) {
+				row.setValue(indices[i], values[i]);
+			}
+
+		}
+
+		return slots.length;
+
+	}
+
+	/**
+	 * Checks the new values of an update against the types of their columns,
+	 * and puts them in standard form.
+	 * 
+	 * @param table the table being updated.
+	 * @param indices the indices of the columns being changed.
+	 * @param cols the names of the columns being changed.
+	 * @param assignments the new values, keyed by column name.
+	 * @return the values in standard form, in the order of the columns.
+	 * @since 0.9
+	 */
+	private String[] checkedValues (Table table, int[] indices, String[] cols,
+		Map<String, String> assignments) throws Exception {
+
+		String[] values = new String[cols.length];
+
+		for (int i = 0; i < cols.length; i++) {
+			values[i] = table.type(indices[i]).canonical(
+				assignments.get(cols[i]));
+		}
+
+		return values;
+
+	}
+
+	/**
+	 * Builds the arguments of an update entry in the write-ahead log, i.e.
+	 * the primary key of the row before the update, followed by each column
+	 * and its new value.
+	 * 
+	 * @param key the primary key of the row before it was changed.
+	 * @param cols the names of the columns changed.
+	 * @param values the new values.
+	 * @return the arguments of the entry.
+	 * @since 0.9
+	 */
+	private static String[] updateArgs (String key, String[] cols,
+		String[] values) {
+
+		String[] args = new String[1 + cols.length * 2];
+		args[0] = key;
+
+		for (int i = 0; i < cols.length; i++) {
+			args[1 + i * 2] = cols[i];
+			args[2 + i * 2] = values[i];
+		}
+
+		return args;
+
+	}
+
+	/**
+	 * Finds the slots of the rows of a table meeting a condition, testing
+	 * them in batches. The rows are found before any is changed, so changes
+	 * made to them cannot affect which rows are found.
+	 * 
+	 * @param table the table being queried.
+	 * @param bound the condition, bound to the table, or null for every row.
+	 * @return the slots of the rows, in table order.
+	 * @since 0.9
+	 */
+	private int[] matchingSlots (Table table, Condition bound) {
+
+		int[] candidates = bound == null ? null : bound.candidates();
+		int total = candidates == null ? table.slots() : candidates.length;
+		int[] found = new int[Math.min(total, BATCH_SIZE)];
+		int noFound = 0;
+
+		for (int start = 0; start < total; start += BATCH_SIZE) {
+
+			int end = Math.min(start + BATCH_SIZE, total);
+
+			if (found.length - noFound < end - start) {
+				found = Arrays.copyOf(found, Math.max(found.length * 2,
+					noFound + end - start));
+			}
+
+			int count = 0;
+
+			for (int i = start; i < end; i++) {
+
+				int slot = candidates == null ? i : candidates[i];
+
+				if (table.isLive(slot)) {
+					found[noFound + count++] = slot;
+				}
+
+			}
+
+			if (bound != null) {
+				int[] vector = Arrays.copyOfRange(found, noFound,
+					noFound + count);
+				count = bound.filter(vector, count);
+				System.arraycopy(vector, 0, found, noFound, count);
+			}
+
+			noFound += count;
+
+		}
+
+		return Arrays.copyOf(found, noFound);
+
+	}
+
+	/**
+	 * Deletes a row in the table by its primary key.
+	 * 
+	 * @param tableName the name of the table being queried.
+	 * @param primaryKey the primary key of the row to be deleted.
+	 * @since 0.7
+	 */
+	public void delete (String tableName, String primaryKey) throws Exception {
+
+		Table table = db.getTable(tableName);
+
+		if (table.findSlot(primaryKey) == -1) {
+			throw new Exception("Row does not exist.");
+		}
+
+		db.logged(LogFile.DELETE, tableName, primaryKey);
+		table.deleteRow(primaryKey);
+
 	}
 
 	// ----- Constructor ----- //
@@ -283,7 +1903,10 @@ public class Query {
 	public static void main(String[] args) {
 
 		try {
-			Database database = new Database("bin/data/");
+			Options options = new Options();
+			options.sortBudget = 256;
+			options.parallelThreshold = 1000;
+			Database database = new Database("bin/data/", options);
 			database.query.testQuery();
 			System.out.println("Query tests complete.\n");
 		} catch (Exception e) {
@@ -4,16 +4,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 
 /**
- * Holds a single record in the database, aka a row.
+ * Holds a single record in the database, aka a row. A record either holds
+ * its own values, or is a view onto a slot in a table's columns.
  *
  * @since 0.1
  */
 
-class Record implements java.io.Serializable {
+class Record {
 
 	// ----- Instance Variables ----- //
 
 	private ArrayList<String> values;
+	private Table table;
+	private int slot;
 
 	// ----- Instance Methods ----- //
 
@@ -35,6 +38,7 @@ class Record implements java.io.Serializable {
 
 		setValue(2, "four");
 		assert values.get(2).equals("four") : "Value not set correctly.";
+		assert key().equals("one") : "Key not retrieved correctly.";
 		assert noFields() == 3 : "Incorrect number of fields.";
 
 		removeField(1);
@@ -46,6 +50,15 @@ class Record implements java.io.Serializable {
 		assert Arrays.equals(values.toArray(), getValues()) : "Values got do" +
 			" not match.";
 
+		Table source = new Table(new String[] {"colOne", "colTwo"});
+		source.addRow(new String[] {"keyOne", "valOne"});
+		Record view = new Record(source, 0);
+		assert view.getValue(1).equals("valOne") : "View not read correctly.";
+		view.setValue(1, "valTwo");
+		assert source.getRows()[0][1].equals("valTwo") :
+			"View not written through to table.";
+		assert view.noFields() == 2 : "View fields not counted correctly.";
+
 	}
 
 	/**
@@ -57,7 +70,9 @@ class Record implements java.io.Serializable {
 	 */
 	String getValue (int index) throws Exception {
 
-		if (index < values.size()) {
+		if (table != null && index >= 0 && index < noFields()) {
+			return table.cell(slot, index);
+		} else if (table == null && index < values.size()) {
 			return values.get(index);
 		} else {
 			throw new Exception("Field does not exist.");
@@ -65,6 +80,16 @@ class Record implements java.io.Serializable {
 
 	}
 
+	/**
+	 * Gets the value of the first field, which is the primary key in a table.
+	 *
+	 * @return the value stored in the first field.
+	 * @since 0.9
+	 */
+	String key () {
+		return table != null ? table.cell(slot, 0) : values.get(0);
+	}
+
 	/**
 	 * Gets the array of values stored in a record.
 	 *
@@ -72,7 +97,13 @@ class Record implements java.io.Serializable {
 	 * @since 0.4
 	 */
 	String[] getValues () {
+
+		if (table != null) {
+			return table.rowValues(slot);
+		}
+
 		return values.toArray(new String[values.size()]);
+
 	}
 
 	/**
@@ -84,7 +115,9 @@ class Record implements java.io.Serializable {
 	 */
 	void setValue (int index, String value) throws Exception {
 
-		if (index < values.size()) {
+		if (table != null && index >= 0 && index < noFields()) {
+			table.setCell(slot, index, value);
+		} else if (table == null && index < values.size()) {
 			values.set(index, value);		
 		} else {
 			throw new Exception("Field does not exist.");
@@ -93,12 +126,19 @@ class Record implements java.io.Serializable {
 	}
 
 	/**
-	 * Adds a field to the record.
+	 * Adds a field to the record. The fields of a table row can only be
+	 * changed through its table.
 	 * 
 	 * @since 0.2
 	 */
-	void addField(String value) {
+	void addField(String value) throws Exception {
+
+		if (table != null) {
+			throw new Exception("Cannot change the fields of a table row.");
+		}
+
 		values.add(value);
+
 	}
 
 	/**
@@ -109,7 +149,9 @@ class Record implements java.io.Serializable {
 	 */
 	void removeField(int index) throws Exception {
 
-		if (index < values.size()) {
+		if (table != null) {
+			throw new Exception("Cannot change the fields of a table row.");
+		} else if (index < values.size()) {
 			values.remove(index);		
 		} else {
 			throw new Exception("Field does not exist.");
@@ -124,7 +166,7 @@ class Record implements java.io.Serializable {
 	 * @since 0.1
 	 */
 	int noFields () {
-		return values.size();
+		return table != null ? table.columns.size() : values.size();
 	}
 
 	// ----- Constructor ----- //
@@ -139,6 +181,18 @@ class Record implements java.io.Serializable {
 		this.values = new ArrayList<String>(Arrays.asList(vals));
 	}
 
+	/**
+	 * Class constructor, creates a view onto a row held in a table.
+	 *
+	 * @param table the table holding the row.
+	 * @param slot the slot of the row in the table.
+	 * @since 0.9
+	 */
+	Record (Table table, int slot) {
+		this.table = table;
+		this.slot = slot;
+	}
+
 	// ----- Main ----- //
 
 	public static void main(String[] args) {
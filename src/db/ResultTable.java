@@ -1,7 +1,5 @@
 package db;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.Arrays;
 
 /**
@@ -12,6 +10,11 @@ import java.util.Arrays;
 
 public class ResultTable extends Table {
 
+	// ----- Instance Variables ----- //
+
+	ScanStats stats;
+	String nextKey;
+
 	// ----- Instance Methods ----- //
 
 	/**
@@ -35,6 +38,12 @@ public class ResultTable extends Table {
 		assert Arrays.equals(getRows()[0], valuesTwo) :
 			"Row not deleted correctly.";
 
+		addRow(valuesTwo);
+		deleteRow("four");
+		assert noRecords() == 1 : "Row not deleted by key correctly.";
+		deleteRow(0);
+		addRow(valuesTwo);
+
 		deleteColumn("colTwo");
 		assert getColumns().length == 2 : "Column not deleted correctly.";
 		String[] updatedRow = {"four", "six"};
@@ -53,16 +62,17 @@ public class ResultTable extends Table {
 	 */
 	public void deleteColumn (String name) throws Exception {
 
-		if (!columns.contains(name)) {
+		int fieldIndex = columnIndex(name);
+
+		if (fieldIndex == -1) {
 			throw new Exception("Column does not exist.");
 		}
 
-		int fieldIndex = columns.indexOf(name);
 		columns.remove(fieldIndex);
-
-		for (Record row : rows) {
-			row.removeField(fieldIndex);
-		}
+		data.remove(fieldIndex);
+		indexColumns();
+		schemaChanged();
+		modified();
 
 	}
 
@@ -73,11 +83,12 @@ public class ResultTable extends Table {
 	 * @since 0.7
 	 */
 	public void deleteRow (int rowNumber) throws Exception {
-		rows.remove(rowNumber);
+		removeSlot(slotOf(rowNumber));
 	}
 
 	/**
-	 * Adds a row to the table.
+	 * Adds a row to the table, checking its values against the types of the
+	 * columns.
 	 *
 	 * @param values the values to populate the row being added.
 	 * @since 0.7
@@ -88,15 +99,38 @@ public class ResultTable extends Table {
 			throw new Exception("Incorrect number of values.");
 		}
 
-		Record newRecord = new Record(values);
-		rows.add(newRecord);
+		appendRow(canonical(values));
 
 	}
 
+	/**
+	 * Gets how much of the queried table was read to produce the result.
+	 *
+	 * @return the scan statistics, or null if the result was not produced
+	 * by a selection.
+	 * @since 0.9
+	 */
+	public ScanStats stats () {
+		return stats;
+	}
+
+	/**
+	 * Gets the primary key to continue after for the next page of a paged
+	 * selection, i.e. that of the last row of this page.
+	 *
+	 * @return the primary key, or null if no rows remain after this page or
+	 * the result was not produced by a paged selection.
+	 * @since 0.9
+	 */
+	public String nextKey () {
+		return nextKey;
+	}
+
 	// ----- Constructor ----- //
 
 	ResultTable (String[] newColumns) {
 		super(newColumns);
+		this.keys = null;
 	}
 
 	// ----- Main ----- //
@@ -0,0 +1,45 @@
+package db;
+
+/**
+ * Reports how much of a table was read to answer a selection.
+ *
+ * @since 0.9
+ */
+
+public class ScanStats {
+
+	// ----- Instance Variables ----- //
+
+	/**
+	 * The number of rows examined, i.e. tested against the condition.
+	 */
+	public final long examined;
+
+	/**
+	 * The number of rows returned.
+	 */
+	public final long returned;
+
+	/**
+	 * Whether the rows examined were found through an index, rather than by
+	 * reading every row.
+	 */
+	public final boolean indexed;
+
+	// ----- Instance Methods ----- //
+
+	@Override
+	public String toString () {
+		return examined + " rows examined, " + returned + " returned" +
+			(indexed ? ", using an index" : "");
+	}
+
+	// ----- Constructor ----- //
+
+	ScanStats (long examined, long returned, boolean indexed) {
+		this.examined = examined;
+		this.returned = returned;
+		this.indexed = indexed;
+	}
+
+}
@@ -0,0 +1,134 @@
+package db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scans a range of the slots of a table on a fork/join pool, testing each
+ * row against a condition and keeping the slots of those that pass. A range
+ * larger than the grain is split in half, and the halves are scanned in
+ * parallel. The task returns the ranges it was split into, in table order,
+ * so that their slots can be joined without being copied again.
+ *
+ * @since 0.9
+ */
+
+class ScanTask extends RecursiveTask<ArrayList<ScanTask>> {
+
+	// ----- Class Constants ----- //
+
+	private static final long serialVersionUID = 1L;
+
+	// ----- Instance Variables ----- //
+
+	private Table table;
+	private Condition bound;
+	private int[] candidates;
+	private int from;
+	private int to;
+	private int grain;
+
+	/**
+	 * The slots of the rows that passed, once scanned, in ascending order.
+	 */
+	int[] found;
+
+	/**
+	 * The number of slots in found.
+	 */
+	int noFound;
+
+	/**
+	 * The number of rows tested, once scanned.
+	 */
+	long examined;
+
+	// ----- Instance Methods ----- //
+
+	@Override
+	protected ArrayList<ScanTask> compute () {
+
+		if (to - from <= grain) {
+
+			scan();
+			ArrayList<ScanTask> ranges = new ArrayList<ScanTask>();
+			ranges.add(this);
+
+			return ranges;
+
+		}
+
+		int middle = (from + to) >>> 1;
+		ScanTask first = new ScanTask(table, bound, candidates, from, middle,
+			grain);
+		ScanTask second = new ScanTask(table, bound, candidates, middle, to,
+			grain);
+
+		second.fork();
+		ArrayList<ScanTask> ranges = first.compute();
+		ranges.addAll(second.join());
+
+		return ranges;
+
+	}
+
+	/**
+	 * Scans the range on the current thread.
+	 *
+	 * @since 0.9
+	 */
+	private void scan () {
+
+		found = new int[Math.min(to - from, 16)];
+
+		for (int i = from; i < to; i++) {
+
+			int slot = candidates == null ? i : candidates[i];
+
+			if (!table.isLive(slot)) {
+				continue;
+			}
+
+			examined++;
+
+			if (bound == null || bound.test(slot)) {
+
+				if (noFound == found.length) {
+					found = Arrays.copyOf(found, noFound * 2);
+				}
+
+				found[noFound++] = slot;
+
+			}
+
+		}
+
+	}
+
+	// ----- Constructor ----- //
+
+	/**
+	 * Class constructor, creates a task to scan a range of a table.
+	 *
+	 * @param table the table being scanned.
+	 * @param bound the condition the rows must meet, bound to the table, or
+	 * null for every row.
+	 * @param candidates the slots of the rows to be read, or null to read
+	 * every slot.
+	 * @param from the position of the first slot of the range.
+	 * @param to the position after the last slot of the range.
+	 * @param grain the most slots scanned without splitting the range.
+	 * @since 0.9
+	 */
+	ScanTask (Table table, Condition bound, int[] candidates, int from,
+		int to, int grain) {
+		this.table = table;
+		this.bound = bound;
+		this.candidates = candidates;
+		this.from = from;
+		this.to = to;
+		this.grain = grain;
+	}
+
+}
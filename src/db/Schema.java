@@ -15,6 +15,9 @@ public class Schema {
 	// ----- Instance Variables ----- //
 
 	private Map<String, ArrayList<String>> tables;
+	private Map<String, ArrayList<Type>> types;
+	private Map<String, ArrayList<String>> indexes;
+	private Map<String, ArrayList<Boolean>> ordered;
 	private int noTables;
 
 	// ----- Instance Methods ----- //
@@ -61,6 +64,30 @@ public class Schema {
 		assert Arrays.equals(allTables.get("testTable"), alteredCols) :
 			"Columns not retrieved correctly.";
 
+		assert Arrays.equals(types("testTable"), new Type[] {Type.STRING,
+			Type.STRING, Type.STRING}) : "Types not recorded correctly.";
+		createTable("typedTable", new String[] {"id", "count"},
+			new Type[] {Type.INT, Type.LONG});
+		addColumn("typedTable", "when", Type.TIMESTAMP);
+		dropColumn("typedTable", "count");
+		assert Arrays.equals(types("typedTable"), new Type[] {Type.INT,
+			Type.TIMESTAMP}) : "Types not updated with columns.";
+		dropTable("typedTable");
+
+		addIndex("testTable", "endCol", false);
+		addIndex("testTable", "colTwo", true);
+		renameColumn("testTable", "colTwo", "midCol");
+		assert Arrays.equals(indexes("testTable"), new String[] {"endCol",
+			"midCol"}) : "Index not renamed with its column.";
+		assert isOrdered("testTable", "midCol") &&
+			!isOrdered("testTable", "endCol") : "Ordered flag not recorded.";
+		dropColumn("testTable", "midCol");
+		assert Arrays.equals(indexes("testTable"), new String[] {"endCol"}) :
+			"Index not dropped with its column.";
+		dropIndex("testTable", "endCol");
+		assert indexes("testTable").length == 0 &&
+			!isOrdered("testTable", "endCol") : "Index not dropped.";
+
 		dropTable("testTable");
 		assert noTables == 1 : "Tables not reduced correctly.";
 		assert !tables.containsKey("testTable") : "Table not dropped.";
@@ -76,8 +103,30 @@ public class Schema {
 	 */
 	void createTable (String name, String[] columns) throws Exception {
 
+		Type[] stringTypes = new Type[columns.length];
+		Arrays.fill(stringTypes, Type.STRING);
+
+		createTable(name, columns, stringTypes);
+
+	}
+
+	/**
+	 * Puts a table name and its columns, with their types, into the tables
+	 * map.
+	 *
+	 * @param name the name of the table to be added.
+	 * @param columns an array of column names.
+	 * @param columnTypes the type of each column.
+	 * @since 0.9
+	 */
+	void createTable (String name, String[] columns, Type[] columnTypes)
+		throws Exception {
+
 		if (!tables.containsKey(name)) {
 			tables.put(name, new ArrayList<String>(Arrays.asList(columns)));
+			types.put(name, new ArrayList<Type>(Arrays.asList(columnTypes)));
+			indexes.put(name, new ArrayList<String>());
+			ordered.put(name, new ArrayList<Boolean>());
 		} else {
 			throw new Exception("Table '" + name + "' already exists.");
 		}
@@ -96,6 +145,9 @@ public class Schema {
 
 		if (tables.containsKey(name)) {
 			tables.remove(name);
+			types.remove(name);
+			indexes.remove(name);
+			ordered.remove(name);
 		} else {
 			throw new Exception("Table '" + name + "' does not exist.");
 		}
@@ -118,7 +170,13 @@ public class Schema {
 			ArrayList<String> columns = tables.get(table);
 
 			if (columns.contains(col)) {
+				types.get(table).remove(columns.indexOf(col));
 				columns.remove(col);
+				int indexed = indexes.get(table).indexOf(col);
+				if (indexed >= 0) {
+					indexes.get(table).remove(indexed);
+					ordered.get(table).remove(indexed);
+				}
 			} else {
 				throw new Exception(
 					"No such column '" + col + "' in '" + table + "'.");
@@ -138,6 +196,18 @@ public class Schema {
 	 * @since 0.8
 	 */
 	void addColumn (String table, String col) throws Exception {
+		addColumn(table, col, Type.STRING);
+	}
+
+	/**
+	 * Adds a column of a given type to the list for a specific table.
+	 * 
+	 * @param table the name of the table to be updated.
+	 * @param col the name of the column to be added.
+	 * @param type the type of the column.
+	 * @since 0.9
+	 */
+	void addColumn (String table, String col, Type type) throws Exception {
 
 		if (tables.containsKey(table)) {
 
@@ -145,6 +215,7 @@ public class Schema {
 
 			if (!columns.contains(col)) {
 				columns.add(col);
+				types.get(table).add(type);
 			} else {
 				throw new Exception(
 					"Table '" + table + "' already has '" + col + "'.");
@@ -172,6 +243,10 @@ public class Schema {
 			if (columns.contains(oldName)) {
 				int columnIndex = columns.indexOf(oldName);
 				columns.set(columnIndex, newName);
+				ArrayList<String> indexed = indexes.get(table);
+				if (indexed.contains(oldName)) {
+					indexed.set(indexed.indexOf(oldName), newName);
+				}
 			} else {
 				throw new Exception(
 					"No such column '" + oldName + "' in '" + table + "'.");
@@ -183,6 +258,94 @@ public class Schema {
 
 	}
 
+	/**
+	 * Records that a column of a specific table has an index, and whether it
+	 * is a hash index or an ordered one.
+	 * 
+	 * @param table the name of the table to be updated.
+	 * @param col the name of the indexed column.
+	 * @param isOrdered whether the index keeps the values in order.
+	 * @since 0.9
+	 */
+	void addIndex (String table, String col, boolean isOrdered)
+		throws Exception {
+
+		if (!tables.containsKey(table)) {
+			throw new Exception("No such table: " + table);
+		} else if (!tables.get(table).contains(col)) {
+			throw new Exception(
+				"No such column '" + col + "' in '" + table + "'.");
+		}
+
+		if (!indexes.get(table).contains(col)) {
+			indexes.get(table).add(col);
+			ordered.get(table).add(isOrdered);
+		}
+
+	}
+
+	/**
+	 * Records that a column of a specific table no longer has an index.
+	 * 
+	 * @param table the name of the table to be updated.
+	 * @param col the name of the column that was indexed.
+	 * @since 0.9
+	 */
+	void dropIndex (String table, String col) throws Exception {
+
+		if (!indexes.containsKey(table)) {
+			throw new Exception("No such table: " + table);
+		}
+
+		int indexed = indexes.get(table).indexOf(col);
+
+		if (indexed >= 0) {
+			indexes.get(table).remove(indexed);
+			ordered.get(table).remove(indexed);
+		}
+
+	}
+
+	/**
+	 * Checks whether a column of a specific table has an ordered index.
+	 * 
+	 * @param table the name of the table to be accessed.
+	 * @param col the name of the column.
+	 * @return true if the column has an ordered index, false if it has a
+	 * hash index or none.
+	 * @since 0.9
+	 */
+	public boolean isOrdered (String table, String col) throws Exception {
+
+		if (!indexes.containsKey(table)) {
+			throw new Exception("No such table: " + table);
+		}
+
+		int indexed = indexes.get(table).indexOf(col);
+
+		return indexed >= 0 && ordered.get(table).get(indexed);
+
+	}
+
+	/**
+	 * Gets the names of the indexed columns of a specific table, not
+	 * counting the primary key.
+	 * 
+	 * @param name the name of the table to be accessed.
+	 * @return an array of column names, in the order indexed.
+	 * @since 0.9
+	 */
+	public String[] indexes (String name) throws Exception {
+
+		if (indexes.containsKey(name)) {
+			ArrayList<String> indexed = indexes.get(name);
+			return indexed.toArray(new String[indexed.size()]);
+		} else {
+			throw new Exception("No such table: " + name);
+		}
+
+	}
+
 	/**
 	 * Gets an array of columns names for a specific table.
 	 * 
@@ -201,6 +364,24 @@ public class Schema {
 
 	}
 
+	/**
+	 * Gets the types of the columns of a specific table.
+	 * 
+	 * @param name the name of the table to be accessed.
+	 * @return an array of column types, in column order.
+	 * @since 0.9
+	 */
+	public Type[] types (String name) throws Exception {
+
+		if (types.containsKey(name)) {
+			ArrayList<Type> columnTypes = types.get(name);
+			return columnTypes.toArray(new Type[columnTypes.size()]);
+		} else {
+			throw new Exception("No such table: " + name);
+		}
+
+	}
+
 	/**
 	 * Gets the entire schema for the database, i.e. table names and the set of
 	 * columns for each table.
@@ -233,6 +414,9 @@ public class Schema {
 
 	Schema () {
 		this.tables = new HashMap<>();
+		this.types = new HashMap<>();
+		this.indexes = new HashMap<>();
+		this.ordered = new HashMap<>();
 		this.noTables = 0;
 	}
 
@@ -0,0 +1,77 @@
+package db;
+
+/**
+ * A column the rows of a selection are ordered by, i.e. part of an ORDER BY
+ * clause. Values are compared by what they stand for in the column's type,
+ * e.g. INT values by number, and null comes before any other value in
+ * ascending order.
+ *
+ * @since 0.9
+ */
+
+public class SortKey {
+
+	// ----- Instance Variables ----- //
+
+	private String column;
+	private boolean descending;
+
+	// ----- Class Methods ----- //
+
+	/**
+	 * Orders rows by a column, from the lowest value to the highest.
+	 *
+	 * @param column the name of the column.
+	 * @return the sort key.
+	 * @since 0.9
+	 */
+	public static SortKey asc (String column) {
+		return new SortKey(column, false);
+	}
+
+	/**
+	 * Orders rows by a column, from the highest value to the lowest.
+	 *
+	 * @param column the name of the column.
+	 * @return the sort key.
+	 * @since 0.9
+	 */
+	public static SortKey desc (String column) {
+		return new SortKey(column, true);
+	}
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Gets the name of the column rows are ordered by.
+	 *
+	 * @return the column name.
+	 * @since 0.9
+	 */
+	String column () {
+		return column;
+	}
+
+	/**
+	 * Checks whether rows are ordered from the highest value to the lowest.
+	 *
+	 * @return true if the order is descending.
+	 * @since 0.9
+	 */
+	boolean descending () {
+		return descending;
+	}
+
+	@Override
+	public String toString () {
+		return column + (descending ? " DESC" : " ASC");
+	}
+
+	// ----- Constructor ----- //
+
+	private SortKey (String column, boolean descending) {
+		this.column = column;
+		this.descending = descending;
+	}
+
+}
@@ -0,0 +1,536 @@
+package db;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts rows that may not fit in memory, i.e. an external merge sort. Rows
+ * are sorted in memory until there are as many as the budget allows, then
+ * written to a temporary file in the data directory as a sorted run. Once
+ * every row has been added, the runs are merged as the sorted rows are read.
+ * When only the first few rows are wanted, no more than the budget, they are
+ * kept in a bounded heap instead, and the rest are never sorted.
+ *
+ * <p>The values a row is sorted by are decoded once, as the row is added or
+ * read back from a run, rather than on every comparison. The sort is
+ * stable, i.e. rows that compare as equal are returned in the order they
+ * were added. Run files end in .run, so they are never taken for tables,
+ * and are deleted when the sorter is closed.
+ *
+ * @since 0.9
+ */
+
+class Sorter extends Cursor {
+
+	// ----- Class Constants ----- //
+
+	static final String EXTENSION = ".run";
+	private static final int NULL = -1;
+
+	// ----- Instance Variables ----- //
+
+	private Order order;
+	private int limit;
+	private int budget;
+	private File directory;
+	private ArrayList<Ranked> buffer;
+	private PriorityQueue<Ranked> top;
+	private ArrayList<Run> runs;
+	private PriorityQueue<Run> merge;
+	private long added;
+	private int returned;
+	private int width;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Tests the methods in the Sorter class, must be run with -ea.
+	 *
+	 * @param dataDir the directory to write runs to.
+	 * @since 0.9
+	 */
+	private static void testSorter (String dataDir) throws Exception {
+
+		File directory = new File(dataDir);
+		directory.mkdirs();
+		Order byNumber = new Order(new int[] {0}, new Type[] {Type.INT},
+			new boolean[] {false});
+		Comparator<String[]> numbers = (a, b) -> Type.INT.compare(a[0], b[0]);
+
+		String[][] rows = new String[1000][];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = new String[] {i % 10 == 0 ? null : "" + (i * 7919) % 97,
+				"" + i};
+		}
+		String[][] expected = rows.clone();
+		Arrays.sort(expected, numbers);
+
+		try (Sorter sorter = new Sorter(byNumber, Integer.MAX_VALUE, 64,
+			directory)) {
+
+			for (String[] row : rows) {
+				sorter.add(row);
+			}
+			assert directory.list((dir, name) -> name.endsWith(EXTENSION))
+				.length == 15 : "Runs not spilled to disk.";
+
+			sorter.sort();
+			for (String[] row : expected) {
+				assert Arrays.equals(sorter.next(), row) :
+					"Runs not merged in stable order.";
+			}
+			assert !sorter.hasNext() : "Too many rows merged.";
+
+		}
+		assert directory.list((dir, name) -> name.endsWith(EXTENSION))
+			.length == 0 : "Runs not deleted on close.";
+
+		for (int limit : new int[] {0, 25, 200}) {
+			try (Sorter sorter = new Sorter(byNumber, limit, 100, directory)) {
+
+				for (String[] row : rows) {
+					sorter.add(row);
+				}
+				assert (sorter.top == null) == (limit > 100) :
+					"Heap not used for a limit within the budget.";
+
+				sorter.sort();
+				for (int i = 0; i < limit; i++) {
+					assert Arrays.equals(sorter.next(), expected[i]) :
+						"First rows not kept in stable order.";
+				}
+				assert !sorter.hasNext() : "Rows returned beyond the limit.";
+
+			}
+		}
+
+		Order mixed = new Order(new int[] {1, 0}, new Type[] {Type.DOUBLE,
+			Type.STRING}, new boolean[] {true, false});
+		try (Sorter sorter = new Sorter(mixed, Integer.MAX_VALUE, 2,
+			directory)) {
+
+			for (String value : new String[] {"-0.5", null, "2.0", "-3.0",
+				"2.0"}) {
+				sorter.add(new String[] {value == null ? "n" : "v" + value,
+					value});
+			}
+
+			sorter.sort();
+			String[] sorted = new String[5];
+			for (int i = 0; i < sorted.length; i++) {
+				sorted[i] = sorter.next()[1];
+			}
+			assert Arrays.equals(sorted, new String[] {"2.0", "2.0", "-0.5",
+				"-3.0", null}) : "Decoded keys not sorted in order.";
+
+		}
+
+	}
+
+	/**
+	 * Adds a row to be sorted, writing a sorted run to disk if the budget is
+	 * reached.
+	 *
+	 * @param row the values of the row.
+	 * @since 0.9
+	 */
+	void add (String[] row) throws IOException {
+
+		width = row.length;
+		Ranked ranked = new Ranked(row, order.decode(row), added++);
+
+		if (top == null) {
+
+			buffer.add(ranked);
+
+			if (buffer.size() >= budget) {
+				spill();
+			}
+
+		} else if (top.size() < limit) {
+			top.add(ranked);
+		} else if (limit > 0 && order.compare(ranked, top.peek()) < 0) {
+			top.poll();
+			top.add(ranked);
+		}
+
+	}
+
+	/**
+	 * Sorts the rows held in memory and writes them out as a run.
+	 *
+	 * @since 0.9
+	 */
+	private void spill () throws IOException {
+
+		Collections.sort(buffer, order);
+
+		Run run = new Run(File.createTempFile("sort", EXTENSION, directory),
+			runs.size(), buffer.size());
+		runs.add(run);
+
+		try (DataOutputStream out = new DataOutputStream(
+			new BufferedOutputStream(new FileOutputStream(run.file)))) {
+			for (Ranked ranked : buffer) {
+				for (String value : ranked.row) {
+					writeValue(out, value);
+				}
+			}
+		}
+
+		buffer.clear();
+
+	}
+
+	/**
+	 * Finishes adding rows, and readies the sorted rows to be read.
+	 *
+	 * @since 0.9
+	 */
+	void sort () throws IOException {
+
+		if (top != null) {
+
+			Ranked[] ranked = top.toArray(new Ranked[top.size()]);
+			Arrays.sort(ranked, top.comparator());
+
+			for (int i = ranked.length - 1; i >= 0; i--) {
+				buffer.add(ranked[i]);
+			}
+
+			top = null;
+
+		} else if (runs.isEmpty()) {
+			Collections.sort(buffer, order);
+		} else {
+
+			if (!buffer.isEmpty()) {
+				spill();
+			}
+
+			merge = new PriorityQueue<Run>(runs.size(), (a, b) -> {
+				int diff = order.compare(a.current, b.current);
+				return diff != 0 ? diff : Integer.compare(a.number, b.number);
+			});
+
+			for (Run run : runs) {
+
+				run.in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(run.file)));
+
+				if (run.advance(width, order)) {
+					merge.add(run);
+				}
+
+			}
+
+		}
+
+	}
+
+	@Override
+	public boolean hasNext () {
+		return returned < limit && (merge == null ? returned < buffer.size() :
+			!merge.isEmpty());
+	}
+
+	@Override
+	public String[] next () {
+
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		} else if (merge == null) {
+			return buffer.get(returned++).row;
+		}
+
+		Run run = merge.poll();
+		String[] row = run.current.row;
+		returned++;
+
+		try {
+			if (run.advance(width, order)) {
+				merge.add(run);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return row;
+
+	}
+
+	@Override
+	public void close () throws IOException {
+
+		for (Run run : runs) {
+
+			if (run.in != null) {
+				run.in.close();
+			}
+
+			run.file.delete();
+
+		}
+
+		runs.clear();
+		buffer.clear();
+		merge = null;
+
+	}
+
+	/**
+	 * Writes a value to a run, as its length in bytes followed by its UTF-8
+	 * encoding. Null is written as a length of -1.
+	 *
+	 * @param out the stream of the run.
+	 * @param value the value, may be null.
+	 * @since 0.9
+	 */
+	private static void writeValue (DataOutputStream out, String value)
+		throws IOException {
+
+		if (value == null) {
+			out.writeInt(NULL);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+	}
+
+	/**
+	 * Reads a value written by {@link #writeValue(DataOutputStream, String)}.
+	 *
+	 * @param in the stream of the run.
+	 * @return the value, may be null.
+	 * @since 0.9
+	 */
+	private static String readValue (DataInputStream in) throws IOException {
+
+		int length = in.readInt();
+
+		if (length == NULL) {
+			return null;
+		}
+
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+
+	}
+
+	// ----- Order ----- //
+
+	/**
+	 * The order rows are sorted in, by the values of some of their columns,
+	 * each compared by its type and either ascending or descending. Values
+	 * of types other than STRING are decoded into longs once per row, and
+	 * compared as such. Null comes before any other value in ascending order.
+	 *
+	 * @since 0.9
+	 */
+	static class Order implements Comparator<Ranked> {
+
+		private int[] positions;
+		private Type[] types;
+		private boolean[] descending;
+
+		/**
+		 * Decodes the values a row is sorted by.
+		 *
+		 * @param row the values of the row.
+		 * @return the decoded value of each sort key, or null if none need
+		 * decoding.
+		 * @since 0.9
+		 */
+		long[] decode (String[] row) {
+
+			long[] keys = null;
+
+			for (int i = 0; i < positions.length; i++) {
+
+				String value = row[positions[i]];
+
+				if (value != null && types[i] != Type.STRING) {
+					keys = keys == null ? new long[positions.length] : keys;
+					keys[i] = types[i].sortKey(value);
+				}
+
+			}
+
+			return keys;
+
+		}
+
+		@Override
+		public int compare (Ranked a, Ranked b) {
+
+			for (int i = 0; i < positions.length; i++) {
+
+				String x = a.row[positions[i]];
+				String y = b.row[positions[i]];
+				int diff;
+
+				if (x == null || y == null) {
+					diff = x == y ? 0 : x == null ? -1 : 1;
+				} else if (types[i] == Type.STRING) {
+					diff = x.compareTo(y);
+				} else {
+					diff = Long.compare(a.keys[i], b.keys[i]);
+				}
+
+				if (diff != 0) {
+					return descending[i] ? -diff : diff;
+				}
+
+			}
+
+			return 0;
+
+		}
+
+		/**
+		 * Class constructor.
+		 *
+		 * @param positions the position in each row of each sort key, from
+		 * the most significant.
+		 * @param types the type of each sort key.
+		 * @param descending whether each sort key is in descending order.
+		 * @since 0.9
+		 */
+		Order (int[] positions, Type[] types, boolean[] descending) {
+			this.positions = positions;
+			this.types = types;
+			this.descending = descending;
+		}
+
+	}
+
+	// ----- Runs ----- //
+
+	/**
+	 * A sorted run written to disk, read back one row at a time while the
+	 * runs are merged.
+	 *
+	 * @since 0.9
+	 */
+	private static class Run {
+
+		File file;
+		int number;
+		int size;
+		int read;
+		DataInputStream in;
+		Ranked current;
+
+		Run (File file, int number, int size) {
+			this.file = file;
+			this.number = number;
+			this.size = size;
+		}
+
+		boolean advance (int width, Order order) throws IOException {
+
+			if (read == size) {
+				current = null;
+				in.close();
+				return false;
+			}
+
+			String[] row = new String[width];
+
+			for (int i = 0; i < width; i++) {
+				row[i] = readValue(in);
+			}
+
+			current = new Ranked(row, order.decode(row), read++);
+
+			return true;
+
+		}
+
+	}
+
+	/**
+	 * A row being sorted, with the decoded values it is sorted by and the
+	 * order it was added in, so that equal rows keep that order.
+	 *
+	 * @since 0.9
+	 */
+	static class Ranked {
+
+		String[] row;
+		long[] keys;
+		long number;
+
+		Ranked (String[] row, long[] keys, long number) {
+			this.row = row;
+			this.keys = keys;
+			this.number = number;
+		}
+
+	}
+
+	// ----- Constructor ----- //
+
+	/**
+	 * Class constructor, creates an empty sorter.
+	 *
+	 * @param order the order the rows are sorted in.
+	 * @param limit the most rows to return, from the start of the order.
+	 * @param budget the most rows sorted in memory at once.
+	 * @param directory the directory to write runs to.
+	 * @since 0.9
+	 */
+	Sorter (Order order, int limit, int budget, File directory) {
+
+		this.order = order;
+		this.limit = limit;
+		this.budget = Math.max(budget, 1);
+		this.directory = directory;
+		this.buffer = new ArrayList<Ranked>();
+		this.runs = new ArrayList<Run>();
+
+		if (limit <= this.budget) {
+
+			Comparator<Ranked> ranking = (a, b) -> {
+				int diff = order.compare(a, b);
+				return diff != 0 ? diff : Long.compare(a.number, b.number);
+			};
+
+			this.top = new PriorityQueue<Ranked>(ranking.reversed());
+
+		}
+
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		try {
+			testSorter("bin/data/");
+			System.out.println("Sorter tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}
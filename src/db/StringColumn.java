@@ -0,0 +1,193 @@
+package db;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Holds the values of a single table column in a contiguous, growable array,
+ * with each row identified by its position.
+ *
+ * @since 0.9
+ */
+
+class StringColumn extends Column {
+
+	// ----- Instance Variables ----- //
+
+	private String[] cells;
+	private int size;
+	private String fill;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Tests the methods in the StringColumn class, must be run with -ea.
+	 *
+	 * @since 0.9
+	 */
+	private void testStringColumn () throws Exception {
+
+		for (int i = 0; i < 100; i++) {
+			add("val" + i);
+		}
+		assert size() == 100 : "Values not added correctly.";
+		assert get(42).equals("val42") : "Value not retrieved correctly.";
+
+		set(42, "changed");
+		assert get(42).equals("changed") : "Value not set correctly.";
+
+		BitSet deleted = new BitSet();
+		deleted.set(0);
+		deleted.set(42);
+		compact(deleted);
+		assert size() == 98 : "Rows not removed by compaction.";
+		assert get(0).equals("val1") && get(41).equals("val43") :
+			"Rows not kept in order by compaction.";
+
+		StringColumn filled = new StringColumn("default", 3);
+		assert filled.size() == 3 && filled.get(2).equals("default") :
+			"Placeholder values not set correctly.";
+		filled.add("four");
+		filled.set(0, "one");
+		assert filled.get(0).equals("one") && filled.get(1).equals("default")
+			&& filled.get(3).equals("four") : "Placeholder not materialized.";
+
+	}
+
+	/**
+	 * Copies placeholder values into a real array so that cells can be
+	 * changed individually.
+	 *
+	 * @param capacity the minimum length of the array.
+	 * @since 0.9
+	 */
+	private void materialize (int capacity) {
+
+		cells = new String[Math.max(capacity, 16)];
+		Arrays.fill(cells, 0, size, fill);
+		fill = null;
+
+	}
+
+	@Override
+	String get (int row) {
+		return cells == null ? fill : cells[row];
+	}
+
+	@Override
+	void set (int row, String value) {
+
+		if (cells == null) {
+			materialize(size);
+		}
+
+		cells[row] = value;
+
+	}
+
+	@Override
+	void add (String value) {
+
+		if (cells == null) {
+			materialize(size + 1);
+		} else if (size == cells.length) {
+			cells = Arrays.copyOf(cells, size + (size >> 1) + 1);
+		}
+
+		cells[size++] = value;
+
+	}
+
+	@Override
+	void compact (BitSet deleted) {
+
+		int live = size - deleted.cardinality();
+
+		if (cells != null) {
+
+			int next = 0;
+
+			for (int row = 0; row < size; row++) {
+				if (!deleted.get(row)) {
+					cells[next++] = cells[row];
+				}
+			}
+
+			Arrays.fill(cells, live, size, null);
+
+		}
+
+		size = live;
+
+	}
+
+	@Override
+	Column copy (int noRows, BitSet deleted) {
+
+		StringColumn copy = new StringColumn(noRows);
+
+		for (int row = 0; row < noRows; row++) {
+			copy.add(deleted.get(row) ? null : get(row));
+		}
+
+		return copy;
+
+	}
+
+	@Override
+	int size () {
+		return size;
+	}
+
+	// ----- Constructor ----- //
+
+	/**
+	 * Class constructor, creates an empty column.
+	 *
+	 * @since 0.9
+	 */
+	StringColumn () {
+		this(16);
+	}
+
+	/**
+	 * Class constructor, creates an empty column with room for a number of
+	 * rows.
+	 *
+	 * @param capacity the number of rows to make room for.
+	 * @since 0.9
+	 */
+	StringColumn (int capacity) {
+		this.cells = new String[Math.max(capacity, 1)];
+		this.size = 0;
+	}
+
+	/**
+	 * Class constructor, creates a column with every row holding the same
+	 * value. The array is only allocated once a row is changed.
+	 *
+	 * @param placeholder the value of every row.
+	 * @param rows the number of rows.
+	 * @since 0.9
+	 */
+	StringColumn (String placeholder, int rows) {
+		this.fill = placeholder;
+		this.size = rows;
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		StringColumn column = new StringColumn();
+
+		try {
+			column.testStringColumn();
+			System.out.println("StringColumn tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}
@@ -1,40 +1,76 @@
 package db;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Predicate;
 
 /**
- * Stores a collection of records in the database.
+ * Stores a collection of records in the database. Values are held column by
+ * column, with each row identified by its slot, i.e. its position in every
+ * column.
  *
  * @since 0.2
  */
 
-class Table implements java.io.Serializable {
+class Table {
+
+	// ----- Class Constants ----- //
+
+	private static final int DICTIONARY_MIN_ROWS = 1024;
+	private static final int DICTIONARY_MAX_VALUES = 1 << 16;
 
 	// ----- Instance Variables ----- //
 
 	protected ArrayList<String> columns;
-	protected LinkedList<Record> rows;
+	protected HashMap<String, Integer> positions;
+	protected ArrayList<Column> data;
+	protected KeyIndex keys;
+	private LinkedHashMap<String, Index> indexes;
+	private BitSet deleted;
+	private int noDeleted;
+	private int slots;
+	private long version;
+	private long savedVersion;
+	private long schemaVersion;
+	long sequence;
+	Compression compression;
+	private boolean offHeap;
+	private Table source;
+	private Set<Table> views;
 	public Printer print;
- 
+
 	// ----- Instance Methods ----- //
 
 	/**
 	 * Tests the methods in the Table class, must be run with -ea.
-	 * 
+	 *
 	 * @since 0.2
 	 */
 	private void testTable () throws Exception {
 
 		assert Arrays.equals(columns.toArray(), getColumns()) : "Table " +
 			"columns not added correctly.";
+		assert isDirty() : "New table should be unsaved.";
+		markSaved();
+		assert !isDirty() : "Table not marked as saved.";
 
 		String[] values = {"valOne", "valTwo", "valThree"};
-		addRow(values);		
-		assert rows.size() == 1 : "Row not added correctly.";
-		assert rows.get(0).getValue(1).equals("valTwo") : "Row not added " +
-			"correctly";
+		long before = version();
+		addRow(values);
+		assert slots == 1 : "Row not added correctly.";
+		assert version() > before && isDirty() : "Version not moved on.";
+		assert getRecords()[0].getValue(1).equals("valTwo") : "Row not " +
+			"added correctly";
 		assert noRecords() == 1 : "Rows not counted correctly.";
 
 		try {
@@ -49,19 +85,26 @@ class Table implements java.io.Serializable {
 		addColumn("colFour", "test");
 		assert columns.size() == 4 : "Column not added correctly.";
 		assert columns.get(3) == "colFour" : "Column not added correctly.";
-		assert rows.get(0).noFields() == 4 : "Row field not added correctly.";
+		assert getRecords()[0].noFields() == 4 : "Row field not added " +
+			"correctly.";
+		assert cell(0, 3).equals("test") : "Placeholder not added correctly.";
 
+		long schema = schemaVersion();
 		renameColumn("colFour", "colFive");
 		assert columns.get(3) == "colFive" : "Column not renamed correctly.";
+		assert columnIndex("colFive") == 3 && columnIndex("colFour") == -1 &&
+			schemaVersion() > schema : "Column position not renamed.";
 
 		deleteColumn("colTwo");
 		assert columns.size() == 3 : "Column not removed correctly.";
 		assert columns.get(1).equals("colThree") : "Column not removed " +
 			"correctly.";
+		assert columnIndex("colThree") == 1 && columnIndex("colFive") == 2 &&
+			columnIndex("colTwo") == -1 : "Column positions not updated.";
 
 		try {
-			assert rows.get(0).getValue(3) == null : "Row field not removed " + 
-			"correctly.";
+			assert getRecords()[0].getValue(3) == null : "Row field not " +
+				"removed correctly.";
 		} catch (Exception e) {
 			if (!e.getMessage().equals("Field does not exist.")) {
 				throw e;
@@ -69,30 +112,154 @@ class Table implements java.io.Serializable {
 		}
 
 		String[] moreValues = {"valFour", "valFive", "valSix"};
-		addRow(moreValues);		
+		addRow(moreValues);
 
 		Record[] retrievedRows = getRecords();
 		for (int i = noRecords() - 1; i >= 0; i--) {
-			String[] rowValues = rows.get(i).getValues();
-			assert Arrays.equals(rowValues, retrievedRows[i].getValues()) : 
+			String[] rowValues = rowValues(i);
+			assert Arrays.equals(rowValues, retrievedRows[i].getValues()) :
 				"Rows not retrieved correctly.";
 		}
 
+		assert getRecord("valFour").getValue(1).equals("valFive") :
+			"Row not found by primary key.";
+		assert getRecord(null) == null : "Row found by a null key.";
+
+		try {
+			addRow(new String[] {null, "valNull", "valNull"});
+			assert false : "Row with a null key should not be added.";
+		} catch (Exception e) {
+			if (!e.getMessage().equals("Primary key must not be null.")) {
+				throw e;
+			}
+		}
+
+		try {
+			setCell(findSlot("valFour"), 0, null);
+			assert false : "Primary key should not be set to null.";
+		} catch (Exception e) {
+			assert getRecord("valFour") != null : "Key removed by null.";
+		}
+
 		deleteRow("valOne");
 		assert noRecords() == 1 : "Row not removed correctly.";
+		assert getRecord("valOne") == null : "Row not removed from index.";
 
 		String[][] stringRows = getRows();
+		Record[] liveRows = getRecords();
 		for (int i = noRecords() - 1; i >= 0; i--) {
-			String[] rowValues = rows.get(i).getValues();
-			assert Arrays.equals(rowValues, stringRows[i]) : 
+			String[] rowValues = liveRows[i].getValues();
+			assert Arrays.equals(rowValues, stringRows[i]) :
 				"Rows not retrieved as Strings correctly.";
 		}
 
+		addRow(values);
+		assert getRecord("valOne") != null : "Deleted key not reusable.";
+
+		for (int i = 0; i < 100; i++) {
+			addRow(new String[] {"key" + i, "two", "three"});
+		}
+		for (int i = 0; i < 100; i += 2) {
+			deleteRow("key" + i);
+		}
+		for (int i = 1; i < 30; i += 2) {
+			deleteRow("key" + i);
+		}
+		assert noRecords() == 37 : "Rows not counted correctly.";
+		assert slots == 51 : "Deleted slots not reclaimed.";
+		assert getRecord("key51").getValue(0).equals("key51") :
+			"Index not kept in step with compacted rows.";
+		assert getRecords()[36].getValue(0).equals("key99") :
+			"Row order not kept by compaction.";
+
+		Record view = getRecord("key51");
+		view.setValue(1, "changed");
+		assert cell(26, 1).equals("changed") :
+			"Row view not written through to column.";
+
+		Table typed = new Table(new String[] {"id", "price", "paid"},
+			new Type[] {Type.INT, Type.DOUBLE, Type.BOOLEAN}, false);
+		typed.addRow(new String[] {"007", "2.5", "TRUE"});
+		assert Arrays.equals(typed.getRecord("7").getValues(),
+			new String[] {"7", "2.5", "true"}) :
+			"Typed values not stored in standard form.";
+		assert typed.getRecord("07") != null && typed.getRecord("x") == null :
+			"Typed primary key not looked up correctly.";
+		assert typed.types()[1] == Type.DOUBLE : "Column types not kept.";
+
+		try {
+			typed.addRow(new String[] {"8", "cheap", "false"});
+			assert false : "Invalid value should not be added.";
+		} catch (Exception e) {
+			assert typed.noRecords() == 1 && typed.getRecord("8") == null :
+				"Invalid row partly added.";
+		}
+
+		typed.addColumn("count", "0", Type.LONG);
+		typed.getRecord("7").setValue(3, "12");
+		assert typed.cell(0, 3).equals("12") : "Typed cell not set.";
+		typed.deleteRow("007");
+		assert typed.noRecords() == 0 : "Typed row not deleted.";
+
+		int[] unindexed = lookup(1, "two");
+		createIndex("colThree");
+		assert Arrays.equals(indexNames(), new String[] {"colThree"}) :
+			"Index not created.";
+		assert Arrays.equals(lookup(1, "two"), unindexed) &&
+			lookup(1, "two").length == 34 : "Rows not looked up correctly.";
+		deleteRow("key99");
+		getRecord("key97").setValue(1, "moved");
+		assert lookup(1, "two").length == 32 &&
+			Arrays.equals(lookup(1, "moved"), new int[] {findSlot("key97")}) :
+			"Index not kept in step with changed rows.";
+		renameColumn("colThree", "colSix");
+		assert lookup(1, "moved").length == 1 && indexNames()[0] == "colSix" :
+			"Index not renamed with its column.";
+		dropIndex("colSix");
+		assert indexNames().length == 0 && lookup(1, "moved").length == 1 :
+			"Index not dropped.";
+
+		typed.createIndex("paid");
+		typed.addRow(new String[] {"9", "1", "True", "0"});
+		assert typed.lookup(2, "TRUE").length == 1 &&
+			typed.lookup(2, "maybe").length == 0 :
+			"Typed values not looked up in standard form.";
+
+		for (int i = 10; i < 100; i++) {
+			typed.addRow(new String[] {"" + i, "" + (100 - i), "false", "0"});
+		}
+		int[] unordered = typed.range(1, "5", "20.5");
+		typed.createIndex("price", true);
+		assert Arrays.equals(typed.range(1, "5", "20.5"), unordered) &&
+			unordered.length == 16 : "Range not found through index.";
+		assert typed.cell(unordered[0], 1).equals("5.0") &&
+			typed.cell(unordered[15], 1).equals("20.0") :
+			"Range not in order of value.";
+		typed.deleteRow("95");
+		assert typed.range(1, null, "5").length == 5 :
+			"Ordered index not kept in step with deleted rows.";
+
+		createIndex("colOne", true);
+		assert Arrays.equals(prefix(0, "key9"), new int[] {
+			findSlot("key91"), findSlot("key93"), findSlot("key95"),
+			findSlot("key97")}) : "Prefix not found through index.";
+		assert prefix(2, "thr").length == 34 : "Prefix not found by scan.";
+
+		encodeColumn(2);
+		int three = prefix(2, "thr")[0];
+		for (int slot : prefix(2, "thr")) {
+			setCell(slot, 2, "four");
+		}
+		encodeColumns();
+		assert ((DictionaryColumn) column(2)).codeOf("three") ==
+			DictionaryColumn.NULL && cell(three, 2).equals("four") :
+			"Unused values not dropped from dictionary.";
+
 	}
 
 	/**
 	 * Gets the column names as an array of strings.
-	 * 
+	 *
 	 * @return a string array containing the column names.
 	 * @since 0.2
 	 */
@@ -101,71 +268,328 @@ class Table implements java.io.Serializable {
 	}
 
 	/**
-	 * Gets all of the rows in the table.
-	 * 
+	 * Gets the type of a column.
+	 *
+	 * @param column the index of the column.
+	 * @return the type of the column.
+	 * @since 0.9
+	 */
+	Type type (int column) {
+		Column values = data.get(column);
+		return values instanceof TypedColumn ? ((TypedColumn) values).type() :
+			Type.STRING;
+	}
+
+	/**
+	 * Gets the types of all the columns.
+	 *
+	 * @return an array of the types, in column order.
+	 * @since 0.9
+	 */
+	Type[] types () {
+
+		Type[] types = new Type[data.size()];
+
+		for (int i = 0; i < types.length; i++) {
+			types[i] = type(i);
+		}
+
+		return types;
+
+	}
+
+	/**
+	 * Gets all of the rows in the table. Each Record is a view onto the
+	 * columns of the table, and is only valid until a row is deleted.
+	 *
 	 * @return a Record array containing the rows.
 	 * @since 0.4
 	 */
 	Record[] getRecords () {
-		return rows.toArray(new Record[rows.size()]);
+
+		Record[] records = new Record[noRecords()];
+		int i = 0;
+
+		for (int slot = 0; slot < slots; slot++) {
+			if (!deleted.get(slot)) {
+				records[i++] = new Record(this, slot);
+			}
+		}
+
+		return records;
+
+	}
+
+	/**
+	 * Gets a single row by its primary key.
+	 *
+	 * @param primaryKey the primary key of the row.
+	 * @return the Record holding the row, or null if there is no such row.
+	 * @since 0.9
+	 */
+	Record getRecord (String primaryKey) {
+
+		int slot = findSlot(primaryKey);
+		return slot == -1 ? null : new Record(this, slot);
+
 	}
 
 	/**
 	 * Gets all of the rows in the table as a 2D String array.
-	 * 
+	 *
 	 * @return a String 2D array containing the rows, in format [row][column].
 	 * @since 0.6
 	 */
 	protected String[][] getRows () {
 
-		LinkedList<String[]> returnRows = new LinkedList<String[]>();
+		String[][] returnRows = new String[noRecords()][];
+		int i = 0;
+
+		for (int slot = 0; slot < slots; slot++) {
+			if (!deleted.get(slot)) {
+				returnRows[i++] = rowValues(slot);
+			}
+		}
+
+		return returnRows;
+
+	}
+
+	/**
+	 * Gets the values held in a single slot.
+	 *
+	 * @param slot the slot of the row.
+	 * @return an array of the values in the row.
+	 * @since 0.9
+	 */
+	String[] rowValues (int slot) {
+
+		int noCols = data.size();
+		String[] values = new String[noCols];
+
+		for (int i = 0; i < noCols; i++) {
+			values[i] = data.get(i).get(slot);
+		}
+
+		return values;
+
+	}
+
+	/**
+	 * Gets the value held in a single cell.
+	 *
+	 * @param slot the slot of the row.
+	 * @param column the index of the column.
+	 * @return the value stored in the cell.
+	 * @since 0.9
+	 */
+	String cell (int slot, int column) {
+		return data.get(column).get(slot);
+	}
+
+	/**
+	 * Sets the value held in a single cell. Changing the primary key is only
+	 * allowed if the new key is not already in use, and the value must be
+	 * valid for the type of the column.
+	 *
+	 * @param slot the slot of the row.
+	 * @param column the index of the column.
+	 * @param value the value to store in the cell.
+	 * @since 0.9
+	 */
+	void setCell (int slot, int column, String value) throws Exception {
+
+		value = type(column).canonical(value);
+		detach();
+		detachViews();
+
+		if (column == 0 && keys != null) {
+
+			String oldKey = cell(slot, 0);
+
+			if (value == null) {
+				throw new Exception("Primary key must not be null.");
+			} else if (!oldKey.equals(value)) {
+				if (!keys.put(value, slot)) {
+					throw new Exception("Primary key must be unique: " + value);
+				}
+				keys.remove(oldKey);
+			}
+
+		}
+
+		String oldValue = cell(slot, column);
+		Index index = indexes.get(columns.get(column));
+
+		data.get(column).set(slot, value);
+
+		if (index != null) {
+			index.remove(oldValue, slot);
+			index.add(value, slot);
+		}
+
+		modified();
 
-		for (Record row : rows) {
-			returnRows.add(row.getValues());
+	}
+
+	/**
+	 * Rebuilds the map from the name of each column to its position, after
+	 * columns have been removed.
+	 *
+	 * @since 0.9
+	 */
+	protected void indexColumns () {
+
+		positions.clear();
+
+		for (int i = 0; i < columns.size(); i++) {
+			positions.put(columns.get(i), i);
 		}
 
-		return returnRows.toArray(new String[returnRows.size()][]);
+	}
+
+	/**
+	 * Gets the schema version of the table, which changes whenever its
+	 * columns or indexes do, i.e. whenever a column is added, dropped,
+	 * renamed or re-encoded, or an index is created or dropped. Anything
+	 * that keeps column positions, column objects or the choice of index for
+	 * reuse is out of date once it changes.
+	 *
+	 * @return the schema version number.
+	 * @since 0.9
+	 */
+	long schemaVersion () {
+		return schemaVersion;
+	}
+
+	/**
+	 * Moves the table on to a new schema version, after a change to its
+	 * columns or indexes.
+	 *
+	 * @since 0.9
+	 */
+	protected void schemaChanged () {
+		schemaVersion++;
+	}
+
+	/**
+	 * Finds the index of a column by its name, through a map of column
+	 * positions.
+	 *
+	 * @param name the name of the column.
+	 * @return the index of the column, or -1 if there is no such column.
+	 * @since 0.9
+	 */
+	int columnIndex (String name) {
+
+		Integer position = positions.get(name);
+
+		return position == null ? -1 : position;
 
 	}
 
 	/**
-	 * Adds a column to the list of table columns. Also updates the records.
+	 * Gets the column holding the values of a given column index.
+	 *
+	 * @param column the index of the column.
+	 * @return the Column object.
+	 * @since 0.9
+	 */
+	Column column (int column) {
+		return data.get(column);
+	}
+
+	/**
+	 * Gets the number of slots in the table, including those of deleted rows
+	 * that have not yet been reclaimed.
+	 *
+	 * @return the integer number of slots.
+	 * @since 0.9
+	 */
+	int slots () {
+		return slots;
+	}
+
+	/**
+	 * Checks whether a slot holds a row, i.e. it has not been deleted.
+	 *
+	 * @param slot the slot being checked.
+	 * @return true if the slot holds a row.
+	 * @since 0.9
+	 */
+	boolean isLive (int slot) {
+		return !deleted.get(slot);
+	}
+
+	/**
+	 * Adds a column to the list of table columns. Existing rows take the
+	 * placeholder value without the column being filled in.
 	 *
 	 * @param name the name of the column to be added.
 	 * @param placeholder the default to be placed in the corresponding fields.
 	 * @since 0.2
 	 */
 	protected void addColumn (String name, String placeholder) {
-
+		positions.put(name, columns.size());
 		columns.add(name);
-		int noCols = columns.size();
+		data.add(offHeap ? new OffHeapColumn(placeholder, slots) :
+			new StringColumn(placeholder, slots));
+		schemaChanged();
+		modified();
+	}
+
+	/**
+	 * Adds a column of a given type to the list of table columns, with
+	 * existing rows taking the placeholder value.
+	 *
+	 * @param name the name of the column to be added.
+	 * @param placeholder the default to be placed in the corresponding fields.
+	 * @param type the type of the column.
+	 * @since 0.9
+	 */
+	void addColumn (String name, String placeholder, Type type)
+		throws Exception {
 
-		for (Record row : rows) {
-			row.addField(placeholder);
+		placeholder = type.canonical(placeholder);
+
+		if (type == Type.STRING) {
+			addColumn(name, placeholder);
+			return;
+		}
+
+		TypedColumn column = TypedColumn.of(type);
+
+		for (int slot = 0; slot < slots; slot++) {
+			column.add(placeholder);
 		}
 
+		positions.put(name, columns.size());
+		columns.add(name);
+		data.add(column);
+		schemaChanged();
+		modified();
+
 	}
 
 	/**
-	 * Removes a column from the list of table columns. Also updates the 
-	 * records.
+	 * Removes a column from the list of table columns, along with its values.
 	 *
 	 * @param name the name of the column to be removed.
 	 * @since 0.2
 	 */
 	void deleteColumn (String name) throws Exception {
 
-		if (!columns.contains(name)) {
-			throw new Exception("Column does not exist.");
-		}
-
-		int fieldIndex = columns.indexOf(name);
+		int fieldIndex = columnIndex(name);
 
-		if (fieldIndex != 0) {
+		if (fieldIndex == -1) {
+			throw new Exception("Column does not exist.");
+		} else if (fieldIndex != 0) {
 			columns.remove(fieldIndex);
-			for (Record row : rows) {
-				row.removeField(fieldIndex);
-			}
+			data.remove(fieldIndex);
+			indexes.remove(name);
+			indexColumns();
+			schemaChanged();
+			modified();
 		} else {
 			throw new Exception("Cannot delete primary key.");
 		}
@@ -182,37 +606,161 @@ class Table implements java.io.Serializable {
 	protected void renameColumn (String oldName, String newName)
 		throws Exception {
 
-		if (columns.contains(oldName)) {
-			int columnIndex = columns.indexOf(oldName);
+		int columnIndex = columnIndex(oldName);
+
+		if (columnIndex != -1) {
 			columns.set(columnIndex, newName);
+			positions.remove(oldName);
+			positions.put(newName, columnIndex);
+			renameIndex(oldName, newName);
+			schemaChanged();
+			modified();
 		} else {
 			throw new Exception("No such column.");
 		}
-		
+
 	}
 
 	/**
-	 * Adds a row to the table if primary key is unique.
+	 * Adds a row to the table if primary key is unique, and each value is
+	 * valid for the type of its column.
 	 *
 	 * @param values the values to populate the row being added.
 	 * @since 0.2
 	 */
 	protected void addRow (String[] values) throws Exception {
+		addChecked(checkRow(values));
+	}
+
+	/**
+	 * Checks that a row could be added to the table, without adding it, so
+	 * that the change can be logged before it is made.
+	 *
+	 * @param values the values of the row.
+	 * @return the values in standard form, as the row would be added.
+	 * @since 0.9
+	 */
+	String[] checkRow (String[] values) throws Exception {
 
 		if (values.length != columns.size()) {
 			throw new Exception("Incorrect number of values.");
 		}
 
+		values = canonical(values);
+
 		String primKey = values[0];
 
-		for (Record row : rows) {
-			if (row.getValue(0).equals(primKey)) {
-				throw new Exception("Primary key must be unique: " + primKey);
+		if (primKey == null) {
+			throw new Exception("Primary key must not be null.");
+		} else if (keys.get(primKey) != -1) {
+			throw new Exception("Primary key must be unique: " + primKey);
+		}
+
+		return values;
+
+	}
+
+	/**
+	 * Adds a row that has passed {@link #checkRow(String[])}.
+	 *
+	 * @param values the values of the row, in standard form.
+	 * @since 0.9
+	 */
+	void addChecked (String[] values) {
+		keys.put(values[0], slots);
+		appendRow(values);
+	}
+
+	/**
+	 * Checks the values of a row against the types of the columns, and puts
+	 * them in their standard form.
+	 *
+	 * @param values the values of the row.
+	 * @return the values in standard form, copied if any have changed.
+	 * @since 0.9
+	 */
+	protected String[] canonical (String[] values) throws Exception {
+
+		String[] checked = values;
+
+		for (int i = 0; i < values.length; i++) {
+
+			if (!(data.get(i) instanceof TypedColumn)) {
+				continue;
+			} else if (checked == values) {
+				checked = values.clone();
+			}
+
+			checked[i] = type(i).canonical(values[i]);
+
+		}
+
+		return checked;
+
+	}
+
+	/**
+	 * Adds a row in a new slot at the end of the table, without any checks.
+	 *
+	 * @param values the values to populate the row being added.
+	 * @since 0.9
+	 */
+	protected void appendRow (String[] values) {
+
+		detach();
+
+		for (int i = 0; i < values.length; i++) {
+			data.get(i).add(values[i]);
+		}
+
+		for (Map.Entry<String, Index> entry : indexes.entrySet()) {
+			entry.getValue().add(values[columnIndex(entry.getKey())],
+				slots);
+		}
+
+		slots++;
+		modified();
+
+	}
+
+	/**
+	 * Adds a batch of rows copied from the columns of another table, in new
+	 * slots at the end of the table, without any checks. Values are copied
+	 * one column at a time, with no array built for each row.
+	 *
+	 * @param source the columns to copy from, one for each column of this
+	 * table.
+	 * @param sourceSlots the slots of the rows to copy, in order.
+	 * @param count the number of rows to copy.
+	 * @since 0.9
+	 */
+	void appendBatch (Column[] source, int[] sourceSlots, int count) {
+
+		detach();
+
+		for (int col = 0; col < source.length; col++) {
+
+			Column from = source[col];
+			Column to = data.get(col);
+
+			for (int i = 0; i < count; i++) {
+				to.add(from.get(sourceSlots[i]));
+			}
+
+		}
+
+		for (Map.Entry<String, Index> entry : indexes.entrySet()) {
+
+			Column values = data.get(columnIndex(entry.getKey()));
+
+			for (int i = 0; i < count; i++) {
+				entry.getValue().add(values.get(slots + i), slots + i);
 			}
+
 		}
 
-		Record newRecord = new Record(values);
-		rows.add(newRecord);
+		slots += count;
+		modified();
 
 	}
 
@@ -224,33 +772,955 @@ class Table implements java.io.Serializable {
 	 */
 	void deleteRow (String primaryKey) throws Exception {
 
-		for (Record row : rows) {
-			if (row.getValue(0).equals(primaryKey)) {
-				rows.remove(row);
-				return;
-			}
+		int slot = findSlot(primaryKey);
+
+		if (slot == -1) {
+			throw new Exception("Row does not exist.");
 		}
 
-		throw new Exception("Row does not exist.");
+		if (keys != null) {
+			keys.remove(cell(slot, 0));
+		}
+
+		removeSlot(slot);
 
 	}
 
 	/**
-	 * Gets the number of rows in a table.
+	 * Marks the row in a slot as deleted. The slot is reclaimed once enough
+	 * rows have been deleted to make compacting the columns worthwhile.
 	 *
-	 * @return the integer number of rows.
-	 * @since 0.2
+	 * @param slot the slot of the row to be deleted.
+	 * @since 0.9
 	 */
-	protected int noRecords () {
-		return rows.size();		
+	protected void removeSlot (int slot) {
+
+		if (!deleted.get(slot)) {
+
+			for (Map.Entry<String, Index> entry : indexes.entrySet()) {
+				entry.getValue().remove(
+					cell(slot, columnIndex(entry.getKey())), slot);
+			}
+
+			deleted.set(slot);
+			noDeleted++;
+			modified();
+
+		}
+
+		if (noDeleted > 32 && noDeleted * 2 > slots) {
+			compact();
+		}
+
 	}
 
-	// ----- Constructor ----- //
+	/**
+	 * Finds the slot holding the row with a given primary key. Tables without
+	 * a key index, such as results, are searched from the start.
+	 *
+	 * @param primaryKey the primary key of the row.
+	 * @return the slot of the row, or -1 if there is no such row.
+	 * @since 0.9
+	 */
+	int findSlot (String primaryKey) {
+
+		if (primaryKey == null) {
+			return -1;
+		}
+
+		try {
+			primaryKey = type(0).canonical(primaryKey);
+		} catch (Exception e) {
+			return -1;
+		}
+
+		if (keys != null) {
+			return keys.get(primaryKey);
+		}
+
+		for (int slot = 0; slot < slots; slot++) {
+			if (!deleted.get(slot) && cell(slot, 0).equals(primaryKey)) {
+				return slot;
+			}
+		}
+
+		return -1;
+
+	}
+
+	/**
+	 * Finds the slot holding a given row, counting only rows that have not
+	 * been deleted.
+	 *
+	 * @param rowNumber the number of the row, zero-indexed.
+	 * @return the slot of the row.
+	 * @since 0.9
+	 */
+	protected int slotOf (int rowNumber) throws Exception {
+
+		if (rowNumber < 0 || rowNumber >= noRecords()) {
+			throw new Exception("Row does not exist.");
+		}
+
+		int slot = deleted.nextClearBit(0);
+
+		for (int i = 0; i < rowNumber; i++) {
+			slot = deleted.nextClearBit(slot + 1);
+		}
+
+		return slot;
+
+	}
+
+	/**
+	 * Removes the empty slots left by deleted rows, keeping the remaining rows
+	 * in order, and points the key index and any column indexes at their new
+	 * slots.
+	 *
+	 * @since 0.9
+	 */
+	private void compact () {
+
+		detach();
+		detachViews();
+
+		for (int col = 0; col < data.size(); col++) {
+			data.get(col).compact(deleted);
+			limitDictionary(col);
+		}
+
+		slots = noRecords();
+		deleted.clear();
+		noDeleted = 0;
+		indexKeys();
+
+		for (String column : indexes.keySet()) {
+			buildIndex(column);
+		}
+
+	}
+
+	/**
+	 * Rebuilds the primary key index from the rows held in the table.
+	 *
+	 * @since 0.9
+	 */
+	protected void indexKeys () {
+
+		if (keys == null) {
+			return;
+		}
+
+		keys.clear();
+
+		for (int slot = 0; slot < slots; slot++) {
+			if (!deleted.get(slot)) {
+				keys.put(cell(slot, 0), slot);
+			}
+		}
+
+	}
+
+	/**
+	 * Creates a hash index on a column, so that rows can be found by the value
+	 * they hold in it without a scan. The primary key is already indexed.
+	 *
+	 * @param name the name of the column to be indexed.
+	 * @since 0.9
+	 */
+	void createIndex (String name) throws Exception {
+		createIndex(name, false);
+	}
+
+	/**
+	 * Creates an index on a column, either a hash index or an ordered index.
+	 * An ordered index also finds rows by a range of values or by a prefix,
+	 * and may be created on the primary key. A column has at most one index.
+	 *
+	 * @param name the name of the column to be indexed.
+	 * @param ordered whether the index keeps the values in order.
+	 * @since 0.9
+	 */
+	void createIndex (String name, boolean ordered) throws Exception {
+
+		if (columnIndex(name) == -1) {
+			throw new Exception("No such column.");
+		} else if (columnIndex(name) == 0 && !ordered) {
+			throw new Exception("Primary key is already indexed.");
+		} else if (indexes.containsKey(name)) {
+			throw new Exception("Column is already indexed: " + name);
+		}
+
+		indexes.put(name, ordered ? new OrderedIndex(type(columnIndex(
+			name))) : new HashIndex());
+		buildIndex(name);
+		schemaChanged();
+		modified();
+
+	}
+
+	/**
+	 * Checks whether a column has an ordered index.
+	 *
+	 * @param name the name of the column.
+	 * @return true if the column has an ordered index.
+	 * @since 0.9
+	 */
+	boolean isOrdered (String name) {
+		return indexes.get(name) instanceof OrderedIndex;
+	}
+
+	/**
+	 * Checks whether rows can be found by the values of a column without a
+	 * scan, i.e. whether it is the primary key or has an index.
+	 *
+	 * @param column the index of the column.
+	 * @return true if the column is indexed.
+	 * @since 0.9
+	 */
+	boolean isIndexed (int column) {
+		return (column == 0 && keys != null) ||
+			indexes.containsKey(columns.get(column));
+	}
+
+	/**
+	 * Drops the index on a column.
+	 *
+	 * @param name the name of the indexed column.
+	 * @since 0.9
+	 */
+	void dropIndex (String name) throws Exception {
+
+		if (indexes.remove(name) == null) {
+			throw new Exception("Column is not indexed: " + name);
+		}
+
+		schemaChanged();
+		modified();
+
+	}
+
+	/**
+	 * Gets the names of the columns that have indexes.
+	 *
+	 * @return an array of the column names, in the order indexed.
+	 * @since 0.9
+	 */
+	String[] indexNames () {
+		return indexes.keySet().toArray(new String[indexes.size()]);
+	}
+
+	/**
+	 * Finds the slots of the rows holding a given value in a column, using the
+	 * key index or the column's index if it has one, or a scan if not. The
+	 * value is put in standard form for the column's type first, so a value
+	 * that is not valid for the type matches no rows.
+	 *
+	 * @param column the index of the column.
+	 * @param value the value being looked for.
+	 * @return an array of the slots, in ascending order.
+	 * @since 0.9
+	 */
+	int[] lookup (int column, String value) {
+
+		try {
+			value = type(column).canonical(value);
+		} catch (Exception e) {
+			return new int[0];
+		}
+
+		if (column == 0 && keys != null) {
+			int slot = value == null ? -1 : keys.get(value);
+			return slot == -1 ? new int[0] : new int[] {slot};
+		}
+
+		Index index = indexes.get(columns.get(column));
+
+		if (index != null) {
+			int[] found = index.get(value);
+			Arrays.sort(found);
+			return found;
+		}
+
+		Column values = data.get(column);
+		int[] found = new int[16];
+		int noFound = 0;
+
+		for (int slot = 0; slot < slots; slot++) {
+
+			if (deleted.get(slot) || !Objects.equals(values.get(slot), value)) {
+				continue;
+			} else if (noFound == found.length) {
+				found = Arrays.copyOf(found, noFound * 2);
+			}
+
+			found[noFound++] = slot;
+
+		}
+
+		return Arrays.copyOf(found, noFound);
+
+	}
+
+	/**
+	 * Finds the slots of the rows holding values within a range in a column,
+	 * in order of value. The column's ordered index is used if it has one,
+	 * and the matching rows are found and sorted if not. Rows holding null
+	 * are never part of a range.
+	 *
+	 * @param column the index of the column.
+	 * @param from the lowest value in the range, or null for no lower bound.
+	 * @param to the highest value in the range, or null for no upper bound.
+	 * @return an array of the slots, in order of value and then of slot.
+	 * @since 0.9
+	 */
+	int[] range (int column, String from, String to) throws Exception {
+
+		Type columnType = type(column);
+		String low = columnType.canonical(from);
+		String high = columnType.canonical(to);
+		Index index = indexes.get(columns.get(column));
+
+		if (index instanceof OrderedIndex) {
+			return ((OrderedIndex) index).range(low, high);
+		} else if (columnType == Type.STRING) {
+			return sortedSlots(column, value -> value != null &&
+				(low == null || value.compareTo(low) >= 0) &&
+				(high == null || value.compareTo(high) <= 0));
+		}
+
+		long lowKey = low == null ? Long.MIN_VALUE : columnType.sortKey(low);
+		long highKey = high == null ? Long.MAX_VALUE :
+			columnType.sortKey(high);
+		Column values = data.get(column);
+		long[] keys = new long[16];
+		int[] found = new int[16];
+		int noFound = 0;
+
+		for (int slot = 0; slot < slots; slot++) {
+
+			String value = deleted.get(slot) ? null : values.get(slot);
+
+			if (value == null) {
+				continue;
+			}
+
+			long key = columnType.sortKey(value);
+
+			if (key >= lowKey && key <= highKey) {
+				if (noFound == found.length) {
+					keys = Arrays.copyOf(keys, noFound * 2);
+					found = Arrays.copyOf(found, noFound * 2);
+				}
+				keys[noFound] = key;
+				found[noFound++] = slot;
+			}
+
+		}
+
+		return sortedByKey(keys, found, noFound);
+
+	}
+
+	/**
+	 * Sorts slots by the decoded values held in them, keeping slots with
+	 * equal values in the order they were given, i.e. in order of slot.
+	 *
+	 * @param keys the values decoded by {@link Type#sortKey(String)}.
+	 * @param found the slots, in order.
+	 * @param count the number of slots.
+	 * @return an array of the slots, in order of value and then of slot.
+	 * @since 0.9
+	 */
+	private static int[] sortedByKey (long[] keys, int[] found, int count) {
+
+		long[][] pairs = new long[count][];
+
+		for (int i = 0; i < count; i++) {
+			pairs[i] = new long[] {keys[i], found[i]};
+		}
+
+		Arrays.sort(pairs, (a, b) -> Long.compare(a[0], b[0]));
+
+		int[] sorted = new int[count];
+
+		for (int i = 0; i < count; i++) {
+			sorted[i] = (int) pairs[i][1];
+		}
+
+		return sorted;
+
+	}
+
+	/**
+	 * Finds the slots of the rows holding values that start with a prefix in
+	 * a STRING column, in order of value. The column's ordered index is used
+	 * if it has one, and the matching rows are found and sorted if not.
+	 *
+	 * @param column the index of the column.
+	 * @param prefix the start of the values being looked for.
+	 * @return an array of the slots, in order of value and then of slot.
+	 * @since 0.9
+	 */
+	int[] prefix (int column, String prefix) throws Exception {
+
+		if (type(column) != Type.STRING) {
+			throw new Exception("Prefixes only apply to STRING columns.");
+		} else if (prefix == null) {
+			throw new Exception("Prefix must not be null.");
+		}
+
+		Index index = indexes.get(columns.get(column));
+
+		if (index instanceof OrderedIndex) {
+			return ((OrderedIndex) index).prefix(prefix);
+		}
+
+		return sortedSlots(column, value -> value != null &&
+			value.startsWith(prefix));
+
+	}
+
+	/**
+	 * Finds the slots of the rows whose values in a column pass a test, by
+	 * reading every row, and sorts them by value.
+	 *
+	 * @param column the index of the column.
+	 * @param test the test each value must pass.
+	 * @return an array of the slots, in order of value and then of slot.
+	 * @since 0.9
+	 */
+	private int[] sortedSlots (int column, Predicate<String> test) {
+
+		Column values = data.get(column);
+		Type columnType = type(column);
+		ArrayList<Integer> found = new ArrayList<Integer>();
+
+		for (int slot = 0; slot < slots; slot++) {
+			if (!deleted.get(slot) && test.test(values.get(slot))) {
+				found.add(slot);
+			}
+		}
+
+		found.sort((a, b) -> {
+			int order = columnType.compare(values.get(a), values.get(b));
+			return order != 0 ? order : Integer.compare(a, b);
+		});
+
+		int[] sorted = new int[found.size()];
+
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = found.get(i);
+		}
+
+		return sorted;
+
+	}
+
+	/**
+	 * Fills a column's index from the rows held in the table.
+	 *
+	 * @param name the name of the indexed column.
+	 * @since 0.9
+	 */
+	private void buildIndex (String name) {
+
+		Index index = indexes.get(name);
+		Column values = data.get(columnIndex(name));
+
+		index.clear();
+
+		for (int slot = 0; slot < slots; slot++) {
+			if (!deleted.get(slot)) {
+				index.add(values.get(slot), slot);
+			}
+		}
+
+	}
+
+	/**
+	 * Moves the index of a renamed column, if it has one, to the new
+	 * name, keeping the order in which columns were indexed.
+	 *
+	 * @param oldName the previous name of the column.
+	 * @param newName the new name of the column.
+	 * @since 0.9
+	 */
+	private void renameIndex (String oldName, String newName) {
+
+		if (!indexes.containsKey(oldName)) {
+			return;
+		}
+
+		LinkedHashMap<String, Index> renamed =
+			new LinkedHashMap<String, Index>();
+
+		for (Map.Entry<String, Index> entry : indexes.entrySet()) {
+			renamed.put(entry.getKey().equals(oldName) ? newName :
+				entry.getKey(), entry.getValue());
+		}
+
+		indexes = renamed;
+
+	}
+
+	/**
+	 * Records that the table has changed, by moving on its version.
+	 *
+	 * @since 0.9
+	 */
+	protected void modified () {
+		version++;
+	}
+
+	/**
+	 * Gets the modification version of the table, which changes every time
+	 * the table does.
+	 *
+	 * @return the version number.
+	 * @since 0.9
+	 */
+	long version () {
+		return version;
+	}
+
+	/**
+	 * Checks whether the table has changed since it was last read from or
+	 * written to file.
+	 *
+	 * @return true if the table has unsaved changes.
+	 * @since 0.9
+	 */
+	boolean isDirty () {
+		return version != savedVersion;
+	}
+
+	/**
+	 * Records that the table, as it is now, is held in its file.
+	 *
+	 * @since 0.9
+	 */
+	void markSaved () {
+		savedVersion = version;
+	}
+
+	/**
+	 * Gets the number of rows in a table.
+	 *
+	 * @return the integer number of rows.
+	 * @since 0.2
+	 */
+	protected int noRecords () {
+		return slots - noDeleted;
+	}
+
+	/**
+	 * Stores a column as a dictionary of its distinct values and a code for
+	 * each row. The values of the column do not change. Only STRING columns
+	 * can be stored as dictionaries, and a column whose dictionary grows
+	 * past DICTIONARY_MAX_VALUES is stored as plain strings again the next
+	 * time the table is compacted or its columns are encoded.
+	 *
+	 * @param column the index of the column.
+	 * @since 0.9
+	 */
+	void encodeColumn (int column) throws Exception {
+
+		if (type(column) != Type.STRING) {
+			throw new Exception("Only STRING columns can be encoded.");
+		}
+
+		if (!(data.get(column) instanceof DictionaryColumn)) {
+			data.set(column, new DictionaryColumn(data.get(column)));
+			schemaChanged();
+		}
+
+	}
+
+	/**
+	 * Looks for columns with few distinct values, i.e. no more than one for
+	 * every eight rows, and stores them as dictionaries. Only live rows are
+	 * counted, so deleted rows waiting to be compacted away do not sway the
+	 * choice. The primary key column is unique, and columns held outside the
+	 * heap or in a mapped file are left as they are. Columns that are
+	 * already dictionaries drop the values no live row holds any more, so
+	 * views of the table are detached first.
+	 *
+	 * @since 0.9
+	 */
+	void encodeColumns () {
+
+		int live = noRecords();
+		int limit = Math.min(live / 8, DICTIONARY_MAX_VALUES);
+
+		for (int col = 1; col < data.size(); col++) {
+
+			Column column = data.get(col);
+
+			if (column instanceof DictionaryColumn) {
+				detachViews();
+				if (((DictionaryColumn) column).prune(deleted)) {
+					modified();
+				}
+				limitDictionary(col);
+				continue;
+			} else if (!(column instanceof StringColumn) ||
+				live < DICTIONARY_MIN_ROWS) {
+				continue;
+			}
+
+			HashSet<String> distinct = new HashSet<String>();
+
+			for (int slot = 0; slot < slots && distinct.size() <= limit;
+				slot++) {
+				if (!deleted.get(slot)) {
+					distinct.add(column.get(slot));
+				}
+			}
+
+			if (distinct.size() <= limit) {
+				data.set(col, new DictionaryColumn(column));
+				schemaChanged();
+			}
+
+		}
+
+	}
+
+	/**
+	 * Stores a dictionary column as plain strings again if it holds more
+	 * distinct values than a dictionary may.
+	 *
+	 * @param col the index of the column.
+	 * @since 0.9
+	 */
+	private void limitDictionary (int col) {
+
+		Column column = data.get(col);
+
+		if (!(column instanceof DictionaryColumn) || ((DictionaryColumn)
+			column).cardinality() <= DICTIONARY_MAX_VALUES) {
+			return;
+		}
+
+		StringColumn plain = new StringColumn(column.size());
+
+		for (int row = 0; row < column.size(); row++) {
+			plain.add(column.get(row));
+		}
+
+		data.set(col, plain);
+		schemaChanged();
+
+	}
+
+	/**
+	 * Lets go of any memory the table's columns hold outside the heap, once
+	 * the table has been dropped.
+	 *
+	 * @since 0.9
+	 */
+	void release () {
+
+		detachViews();
+
+		for (Column column : data) {
+			column.release();
+		}
+
+	}
+
+	/**
+	 * Creates a read-only view of some of the rows and columns of the table,
+	 * which shares the table's columns rather than copying their values, so
+	 * nothing is allocated for each row. The view is detached from the table,
+	 * by copying the rows it shows, as soon as either of them is about to
+	 * change a shared column, e.g. by adding a row to the view or setting a
+	 * cell of the table. Rows deleted from either are only hidden until the
+	 * columns are compacted, and rows added to the table lie beyond the end
+	 * of the view, so neither shows through.
+	 *
+	 * @param names the names of the columns of the view.
+	 * @param selected the indices of the columns to be shown.
+	 * @param shown the slots of the rows to be shown, or null to show every
+	 * row.
+	 * @return the view.
+	 * @since 0.9
+	 */
+	ResultTable view (String[] names, int[] selected, BitSet shown) {
+
+		ResultTable view = new ResultTable(names);
+		Table shared = view;
+		shared.data.clear();
+
+		for (int col : selected) {
+			shared.data.add(data.get(col));
+		}
+
+		if (shown == null) {
+			shared.deleted = (BitSet) deleted.clone();
+		} else {
+			shared.deleted.set(0, slots);
+			shared.deleted.andNot(shown);
+			shared.deleted.or(deleted);
+		}
+
+		shared.slots = slots;
+		shared.noDeleted = shared.deleted.cardinality();
+		shared.source = this;
+
+		if (views == null) {
+			views = Collections.newSetFromMap(
+				new WeakHashMap<Table, Boolean>());
+		}
+
+		views.add(view);
+
+		return view;
+
+	}
+
+	/**
+	 * Checks whether the table is a view that still shares the columns of
+	 * the table it was made from.
+	 *
+	 * @return true if the table is a view.
+	 * @since 0.9
+	 */
+	boolean isView () {
+		return source != null;
+	}
+
+	/**
+	 * Copies the rows a view shows out of the columns it shares, so that it
+	 * holds values of its own and no longer depends on the table it was made
+	 * from. Each column is copied into one of the same kind, so the view
+	 * keeps its types and encodings. Rows keep their slots, with hidden slots
+	 * left empty until they are compacted away, so slots found before the
+	 * copy stay valid. Does nothing if the table is not a view.
+	 *
+	 * @since 0.9
+	 */
+	protected void detach () {
+
+		if (source == null) {
+			return;
+		}
+
+		ArrayList<Column> copies = new ArrayList<Column>();
+
+		for (Column column : data) {
+			copies.add(column.copy(slots, deleted));
+		}
+
+		source.views.remove(this);
+		source = null;
+		data = copies;
+
+	}
+
+	/**
+	 * Detaches every view of the table, before a change that would show
+	 * through to them.
+	 *
+	 * @since 0.9
+	 */
+	private void detachViews () {
+
+		if (views == null) {
+			return;
+		}
+
+		for (Table view : new ArrayList<Table>(views)) {
+			view.detach();
+		}
+
+	}
+
+	/**
+	 * Opens a cursor over the rows of the table, reading only some of the
+	 * columns.
+	 *
+	 * @param selected the indices of the columns to be read.
+	 * @return the cursor, positioned before the first row.
+	 * @since 0.9
+	 */
+	Cursor cursor (int[] selected) {
+		return new TableCursor(selected, null);
+	}
+
+	/**
+	 * Opens a cursor over some of the rows of the table, such as those found
+	 * by {@link #lookup(int, String)}, reading only some of the columns.
+	 *
+	 * @param selected the indices of the columns to be read.
+	 * @param found the slots of the rows to be read, in order.
+	 * @return the cursor, positioned before the first row.
+	 * @since 0.9
+	 */
+	Cursor cursor (int[] selected, int[] found) {
+		return new TableCursor(selected, found);
+	}
+
+	// ----- Table Cursor ----- //
+
+	/**
+	 * A cursor over the rows of a table held in memory.
+	 *
+	 * @since 0.9
+	 */
+	private class TableCursor extends Cursor {
+
+		private Column[] selected;
+		private int[] found;
+		private int next;
+		private int slot;
+
+		@Override
+		public boolean hasNext () {
+
+			if (found != null) {
+
+				while (next < found.length && deleted.get(found[next])) {
+					next++;
+				}
+
+				slot = next < found.length ? found[next] : slots;
+
+			}
+
+			while (slot < slots && deleted.get(slot)) {
+				slot++;
+			}
+
+			return slot < slots;
+
+		}
+
+		@Override
+		public String[] next () {
+
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			String[] row = new String[selected.length];
+
+			for (int i = 0; i < selected.length; i++) {
+				row[i] = selected[i].get(slot);
+			}
+
+			slot++;
+			next++;
+
+			return row;
+
+		}
+
+		@Override
+		public void close () {
+			slot = slots;
+			found = null;
+		}
+
+		TableCursor (int[] columns, int[] slotsFound) {
+
+			this.selected = new Column[columns.length];
+			this.found = slotsFound;
+			this.next = 0;
+			this.slot = 0;
+
+			for (int i = 0; i < columns.length; i++) {
+				selected[i] = data.get(columns[i]);
+			}
+
+		}
+
+	}
+
+	// ----- Constructor ----- //
+
+	Table (String[] newColumns) {
+		this(newColumns, false);
+	}
+
+	/**
+	 * Class constructor, creates an empty table whose values may be held
+	 * outside the heap.
+	 *
+	 * @param newColumns the names of the columns.
+	 * @param offHeap whether values are held outside the heap.
+	 * @since 0.9
+	 */
+	Table (String[] newColumns, boolean offHeap) {
+		this(newColumns, null, offHeap);
+	}
+
+	/**
+	 * Class constructor, creates an empty table with typed columns, whose
+	 * STRING values may be held outside the heap.
+	 *
+	 * @param newColumns the names of the columns.
+	 * @param types the types of the columns, or null if all are STRING.
+	 * @param offHeap whether STRING values are held outside the heap.
+	 * @since 0.9
+	 */
+	Table (String[] newColumns, Type[] types, boolean offHeap) {
+
+		this.columns = new ArrayList<String>(Arrays.asList(newColumns));
+		this.positions = new HashMap<String, Integer>();
+		this.data = new ArrayList<Column>();
+		this.keys = new KeyIndex();
+		this.indexes = new LinkedHashMap<String, Index>();
+		this.deleted = new BitSet();
+		this.noDeleted = 0;
+		this.slots = 0;
+		this.version = 0;
+		this.savedVersion = -1;
+		this.sequence = 0;
+		this.compression = Compression.NONE;
+		this.offHeap = offHeap;
+		this.print = new Printer(this);
+
+		for (int i = 0; i < newColumns.length; i++) {
+			if (types != null && types[i] != Type.STRING) {
+				data.add(TypedColumn.of(types[i]));
+			} else {
+				data.add(offHeap ? new OffHeapColumn() : new StringColumn());
+			}
+		}
+
+		indexColumns();
+
+	}
+
+	/**
+	 * Class constructor, creates a table from columns that already hold
+	 * values, such as those read in from file.
+	 *
+	 * @param newColumns the names of the columns.
+	 * @param newData the values of each column, all of the same size.
+	 * @since 0.9
+	 */
+	Table (String[] newColumns, ArrayList<Column> newData) {
+
+		this.columns = new ArrayList<String>(Arrays.asList(newColumns));
+		this.positions = new HashMap<String, Integer>();
+		this.data = newData;
+		this.keys = new KeyIndex();
+		this.indexes = new LinkedHashMap<String, Index>();
+		this.deleted = new BitSet();
+		this.noDeleted = 0;
+		this.slots = newData.isEmpty() ? 0 : newData.get(0).size();
+		this.savedVersion = -1;
+		this.compression = Compression.NONE;
+		this.offHeap = !newData.isEmpty() &&
+			newData.get(0) instanceof OffHeapColumn;
+		this.print = new Printer(this);
+
+		indexColumns();
+		indexKeys();
 
-	Table (String[] newColumns) {
-		this.columns = new ArrayList<String>(Arrays.asList(newColumns));
-		this.rows = new LinkedList<Record>();
-		this.print = new Printer(this);
 	}
 
 	// ----- Main ----- //
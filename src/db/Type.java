@@ -0,0 +1,206 @@
+package db;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+
+/**
+ * The types a column can be declared with. Values are always given and
+ * returned as strings, but a column of a type other than STRING checks each
+ * value as it is written, and holds it in its primitive form. Values are
+ * returned in a standard form, e.g. an INT written as "007" is read back as
+ * "7", and a TIMESTAMP is read back as an ISO-8601 instant in UTC.
+ *
+ * @since 0.9
+ */
+
+public enum Type {
+
+	/**
+	 * A 32-bit signed integer.
+	 */
+	INT (0, 4),
+
+	/**
+	 * A 64-bit signed integer.
+	 */
+	LONG (1, 8),
+
+	/**
+	 * A 64-bit floating point number.
+	 */
+	DOUBLE (2, 8),
+
+	/**
+	 * Either "true" or "false", in any case.
+	 */
+	BOOLEAN (3, 1),
+
+	/**
+	 * Any text.
+	 */
+	STRING (4, 0),
+
+	/**
+	 * A point in time, written either as an ISO-8601 instant such as
+	 * "2020-01-31T12:00:00Z" or as milliseconds since the epoch.
+	 */
+	TIMESTAMP (5, 8);
+
+	// ----- Instance Variables ----- //
+
+	/**
+	 * The byte identifying the type in a table file.
+	 */
+	final byte id;
+
+	/**
+	 * The number of bytes each value takes up in a table file, or 0 for
+	 * values of varying length.
+	 */
+	final int width;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Checks that a value is valid for the type, and puts it in the standard
+	 * form it will be read back in.
+	 *
+	 * @param value the value to be checked, may be null.
+	 * @return the value in its standard form.
+	 * @since 0.9
+	 */
+	String canonical (String value) throws Exception {
+
+		if (value == null || this == STRING) {
+			return value;
+		}
+
+		try {
+			switch (this) {
+				case INT:
+					return Integer.toString(Integer.parseInt(value));
+				case LONG:
+					return Long.toString(Long.parseLong(value));
+				case DOUBLE:
+					return Double.toString(Double.parseDouble(value));
+				case BOOLEAN:
+					return Boolean.toString(parseBoolean(value));
+				default:
+					return Instant.ofEpochMilli(parseTimestamp(value))
+						.toString();
+			}
+		} catch (IllegalArgumentException | DateTimeException e) {
+			throw new Exception("Invalid " + this + " value: '" + value +
+				"'.");
+		}
+
+	}
+
+	/**
+	 * Compares two values of the type by what they stand for, e.g. INT values
+	 * by number rather than as text. Null comes before any other value.
+	 *
+	 * @param a a value in standard form, may be null.
+	 * @param b a value in standard form, may be null.
+	 * @return a negative number, zero or a positive number as the first
+	 * value is less than, equal to or greater than the second.
+	 * @since 0.9
+	 */
+	int compare (String a, String b) {
+
+		if (a == null || b == null) {
+			return a == b ? 0 : a == null ? -1 : 1;
+		}
+
+		switch (this) {
+			case INT:
+			case LONG:
+				return Long.compare(Long.parseLong(a), Long.parseLong(b));
+			case DOUBLE:
+				return Double.compare(Double.parseDouble(a),
+					Double.parseDouble(b));
+			case BOOLEAN:
+				return Boolean.compare(parseBoolean(a), parseBoolean(b));
+			case TIMESTAMP:
+				return Long.compare(parseTimestamp(a), parseTimestamp(b));
+			default:
+				return a.compareTo(b);
+		}
+
+	}
+
+	/**
+	 * Decodes a value into a long that orders the same way as
+	 * {@link #compare(String, String)}, so that values compared many times,
+	 * e.g. while sorting, need only be parsed once. DOUBLE values are turned
+	 * into bits that order as the numbers do.
+	 *
+	 * @param value a value in standard form, not null, of a type other than
+	 * STRING.
+	 * @return the value as an ordered long.
+	 * @since 0.9
+	 */
+	long sortKey (String value) {
+
+		switch (this) {
+			case INT:
+			case LONG:
+				return Long.parseLong(value);
+			case DOUBLE:
+				long bits = Double.doubleToLongBits(Double.parseDouble(value));
+				return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+			case BOOLEAN:
+				return parseBoolean(value) ? 1 : 0;
+			case TIMESTAMP:
+				return parseTimestamp(value);
+			default:
+				throw new IllegalArgumentException(
+					"STRING values have no numeric sort key.");
+		}
+
+	}
+
+	/**
+	 * Reads a BOOLEAN value.
+	 *
+	 * @param value the value, "true" or "false" in any case.
+	 * @return the value as a boolean.
+	 * @since 0.9
+	 */
+	static boolean parseBoolean (String value) {
+
+		if (value.equalsIgnoreCase("true")) {
+			return true;
+		} else if (value.equalsIgnoreCase("false")) {
+			return false;
+		}
+
+		throw new IllegalArgumentException("Not a boolean: " + value);
+
+	}
+
+	/**
+	 * Reads a TIMESTAMP value.
+	 *
+	 * @param value an ISO-8601 instant, or milliseconds since the epoch.
+	 * @return the milliseconds since the epoch.
+	 * @since 0.9
+	 */
+	static long parseTimestamp (String value) {
+
+		if (value.matches("-?[0-9]+")) {
+			return Long.parseLong(value);
+		}
+
+		return Instant.parse(value).toEpochMilli();
+
+	}
+
+	// ----- Constructor ----- //
+
+	Type (int id, int width) {
+		this.id = (byte) id;
+		this.width = width;
+	}
+
+}
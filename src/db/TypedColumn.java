@@ -0,0 +1,371 @@
+package db;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * Holds the values of a column declared with a type other than STRING, in a
+ * primitive array, with a bitmap marking the rows that are null. Values are
+ * checked and converted as they are written, and only formatted back into
+ * strings when they are read.
+ *
+ * @since 0.9
+ */
+
+abstract class TypedColumn extends Column {
+
+	// ----- Instance Variables ----- //
+
+	protected Type type;
+	protected BitSet nulls;
+	protected int size;
+
+	// ----- Instance Methods ----- //
+
+	/**
+	 * Tests the methods in the TypedColumn classes, must be run with -ea.
+	 *
+	 * @since 0.9
+	 */
+	private static void testTypedColumn () throws Exception {
+
+		String[][] values = {
+			{"1", "-7", null, "2147483647"},
+			{"1", "-7", null, "9223372036854775807"},
+			{"1.5", "-7.0", null, "1.0E10"},
+			{"true", "false", null, "true"},
+			{"1970-01-01T00:00:00.001Z", "2020-01-31T12:00:00Z", null,
+				"1970-01-01T00:00:00Z"}
+		};
+		Type[] types = {Type.INT, Type.LONG, Type.DOUBLE, Type.BOOLEAN,
+			Type.TIMESTAMP};
+
+		for (int t = 0; t < types.length; t++) {
+
+			TypedColumn column = of(types[t]);
+
+			for (String value : values[t]) {
+				column.add(value);
+			}
+
+			assert column.size() == 4 && column.get(2) == null &&
+				column.get(1).equals(values[t][1]) :
+				"Values not stored correctly for " + types[t] + ".";
+
+			column.set(2, values[t][0]);
+			column.set(0, null);
+			assert column.get(2).equals(values[t][0]) && column.get(0) == null
+				: "Values not set correctly for " + types[t] + ".";
+
+			BitSet deleted = new BitSet();
+			deleted.set(1);
+			column.compact(deleted);
+			assert column.size() == 3 && column.get(0) == null &&
+				column.get(2).equals(values[t][3]) :
+				"Rows not kept in order by compaction for " + types[t] + ".";
+
+			ByteBuffer block = ByteBuffer.allocate(64);
+			column.encode(block, new int[] {2, 0}, 2);
+			block.flip();
+			TypedColumn copy = of(types[t]);
+			copy.decode(block, 2);
+			assert copy.get(0).equals(values[t][3]) && copy.get(1) == null &&
+				!block.hasRemaining() : "Block not encoded correctly for " +
+				types[t] + ".";
+
+		}
+
+		assert Type.INT.canonical("007").equals("7") &&
+			Type.TIMESTAMP.canonical("1000").equals("1970-01-01T00:00:01Z") &&
+			Type.BOOLEAN.canonical("TRUE").equals("true") :
+			"Values not put in standard form.";
+
+		try {
+			Type.INT.canonical("seven");
+			assert false : "Invalid value should not be accepted.";
+		} catch (Exception e) {
+			assert e.getMessage().startsWith("Invalid INT value") :
+				"Invalid value not reported clearly.";
+		}
+
+	}
+
+	/**
+	 * Creates an empty column for a type.
+	 *
+	 * @param type the type of the column, other than STRING.
+	 * @return the new column.
+	 * @since 0.9
+	 */
+	static TypedColumn of (Type type) {
+
+		switch (type) {
+			case INT:
+				return new IntColumn();
+			case DOUBLE:
+				return new DoubleColumn();
+			case BOOLEAN:
+				return new BooleanColumn();
+			case LONG:
+			case TIMESTAMP:
+				return new LongColumn(type);
+			default:
+				throw new IllegalArgumentException(
+					"Not a primitive type: " + type);
+		}
+
+	}
+
+	/**
+	 * Gets the type of the column.
+	 *
+	 * @return the type.
+	 * @since 0.9
+	 */
+	Type type () {
+		return type;
+	}
+
+	/**
+	 * Checks whether a row is null.
+	 *
+	 * @param row the position of the row.
+	 * @return true if the row is null.
+	 * @since 0.9
+	 */
+	boolean isNull (int row) {
+		return nulls.get(row);
+	}
+
+	/**
+	 * Gets the value of a row as a long. BOOLEAN values are 1 or 0, and
+	 * TIMESTAMP values are milliseconds since the epoch.
+	 *
+	 * @param row the position of a row that is not null.
+	 * @return the value.
+	 * @since 0.9
+	 */
+	abstract long getLong (int row);
+
+	/**
+	 * Gets the value of a row as a double.
+	 *
+	 * @param row the position of a row that is not null.
+	 * @return the value.
+	 * @since 0.9
+	 */
+	abstract double getDouble (int row);
+
+	/**
+	 * Converts a value and stores it in a row, which may be one past the last
+	 * row. The value must already have been checked against the type.
+	 *
+	 * @param row the position of the row.
+	 * @param value the value, not null.
+	 * @since 0.9
+	 */
+	protected abstract void store (int row, String value);
+
+	/**
+	 * Formats the value of a row that is not null.
+	 *
+	 * @param row the position of the row.
+	 * @return the value as a string.
+	 * @since 0.9
+	 */
+	protected abstract String format (int row);
+
+	/**
+	 * Copies the value of one row into another, for compaction.
+	 *
+	 * @param from the row to copy from.
+	 * @param to the row to copy to.
+	 * @since 0.9
+	 */
+	protected abstract void move (int from, int to);
+
+	/**
+	 * Makes room for a number of rows.
+	 *
+	 * @param capacity the number of rows needed.
+	 * @since 0.9
+	 */
+	protected abstract void ensure (int capacity);
+
+	/**
+	 * Writes the value of a row to a buffer, in {@link Type#width} bytes.
+	 *
+	 * @param out the buffer being written to.
+	 * @param row the position of the row.
+	 * @since 0.9
+	 */
+	protected abstract void write (ByteBuffer out, int row);
+
+	/**
+	 * Reads a value from a buffer into a row, which may be one past the last
+	 * row.
+	 *
+	 * @param in the buffer being read.
+	 * @param row the position of the row.
+	 * @since 0.9
+	 */
+	protected abstract void read (ByteBuffer in, int row);
+
+	/**
+	 * Writes some of the rows to a block, as a bitmap of the rows that are
+	 * null followed by the value of each row.
+	 *
+	 * @param block the block being written, with enough room left.
+	 * @param slots the positions of the rows.
+	 * @param noRows the number of rows.
+	 * @since 0.9
+	 */
+	void encode (ByteBuffer block, int[] slots, int noRows) {
+
+		byte[] bits = new byte[(noRows + 7) / 8];
+
+		for (int i = 0; i < noRows; i++) {
+			if (nulls.get(slots[i])) {
+				bits[i >> 3] |= 1 << (i & 7);
+			}
+		}
+
+		block.put(bits);
+
+		for (int i = 0; i < noRows; i++) {
+			write(block, slots[i]);
+		}
+
+	}
+
+	/**
+	 * Reads a number of rows from a block written by
+	 * {@link #encode(ByteBuffer, int[], int)}, and adds them to the column.
+	 *
+	 * @param block the block being read.
+	 * @param noRows the number of rows.
+	 * @since 0.9
+	 */
+	void decode (ByteBuffer block, int noRows) {
+
+		byte[] bits = new byte[(noRows + 7) / 8];
+		block.get(bits);
+		ensure(size + noRows);
+
+		for (int i = 0; i < noRows; i++) {
+			read(block, size);
+			nulls.set(size++, (bits[i >> 3] & 1 << (i & 7)) != 0);
+		}
+
+	}
+
+	/**
+	 * Gets the number of bytes a block of rows takes up.
+	 *
+	 * @param noRows the number of rows.
+	 * @return the number of bytes.
+	 * @since 0.9
+	 */
+	int blockLength (int noRows) {
+		return (noRows + 7) / 8 + noRows * type.width;
+	}
+
+	@Override
+	String get (int row) {
+		return nulls.get(row) ? null : format(row);
+	}
+
+	@Override
+	void set (int row, String value) {
+
+		if (value == null) {
+			nulls.set(row);
+		} else {
+			nulls.clear(row);
+			store(row, value);
+		}
+
+	}
+
+	@Override
+	void add (String value) {
+		ensure(size + 1);
+		set(size++, value);
+	}
+
+	@Override
+	void compact (BitSet deleted) {
+
+		int next = 0;
+
+		for (int row = 0; row < size; row++) {
+			if (!deleted.get(row)) {
+				move(row, next);
+				nulls.set(next++, nulls.get(row));
+			}
+		}
+
+		nulls.clear(next, size);
+		size = next;
+
+	}
+
+	@Override
+	Column copy (int noRows, BitSet deleted) {
+
+		TypedColumn copy = of(type);
+		copy.ensure(noRows);
+
+		for (int row = 0; row < noRows; row++) {
+			if (deleted.get(row) || nulls.get(row)) {
+				copy.nulls.set(row);
+			} else {
+				copy.store(row, format(row));
+			}
+		}
+
+		copy.size = noRows;
+
+		return copy;
+
+	}
+
+	@Override
+	int size () {
+		return size;
+	}
+
+	/**
+	 * Gets a larger capacity for an array that is full.
+	 *
+	 * @param length the current length of the array.
+	 * @param capacity the number of rows needed.
+	 * @return the new length.
+	 * @since 0.9
+	 */
+	static int grow (int length, int capacity) {
+		return Math.max(capacity, length + (length >> 1) + 1);
+	}
+
+	// ----- Constructor ----- //
+
+	TypedColumn (Type type) {
+		this.type = type;
+		this.nulls = new BitSet();
+		this.size = 0;
+	}
+
+	// ----- Main ----- //
+
+	public static void main(String[] args) {
+
+		try {
+			testTypedColumn();
+			System.out.println("TypedColumn tests complete.\n");
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+
+	}
+
+}